@@ -0,0 +1,147 @@
+package com.example.backend.auth;
+
+import com.example.backend.metrics.LatencyHistogram;
+import com.example.backend.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 在独立的有界线程池上计算BCrypt，登录和注册的突发流量不会占满请求线程、拖慢便签读取
+ * 线程数默认取CPU核数的一半，队列满时立即拒绝，排队加计算超过timeout-ms时放弃等待，两种情况都抛出
+ * PasswordHashingRejectedException（503）。BCrypt是纯计算，虚拟线程模式下也使用平台线程
+ * 已有哈希的强度与配置不同时upgradeEncoding返回true，登录成功后由认证流程按新强度重新计算
+ */
+@Component
+public class PasswordHasher implements PasswordEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHasher.class);
+
+    // $2a$10$...，捕获强度
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final BCryptPasswordEncoder encoder;
+    private final int strength;
+    private final long timeoutMillis;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+    private final LatencyHistogram encodeTimer;
+    private final LatencyHistogram matchesTimer;
+    private final LatencyHistogram waitTimer;
+    private final LongAdder queueFullCount;
+    private final LongAdder timeoutCount;
+
+    public PasswordHasher(MetricsRegistry metrics,
+                          @Value("${auth.password.bcrypt-strength:10}") int strength,
+                          @Value("${auth.password.threads:0}") int threads,
+                          @Value("${auth.password.queue-capacity:32}") int queueCapacity,
+                          @Value("${auth.password.timeout-ms:3000}") long timeoutMillis) {
+        this.strength = strength;
+        this.encoder = new BCryptPasswordEncoder(strength);
+        this.timeoutMillis = timeoutMillis;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity), r -> {
+                    Thread thread = new Thread(r, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        String help = "BCrypt计算耗时，不含排队";
+        this.encodeTimer = metrics.timer("password_hash_seconds", help, "op", "encode");
+        this.matchesTimer = metrics.timer("password_hash_seconds", help, "op", "matches");
+        this.waitTimer = metrics.timer("password_hash_queue_wait_seconds", "BCrypt任务的排队时间");
+        String rejectedHelp = "被拒绝的BCrypt任务数";
+        this.queueFullCount = metrics.counter("password_hash_rejected_total", rejectedHelp, "reason", "queue_full");
+        this.timeoutCount = metrics.counter("password_hash_rejected_total", rejectedHelp, "reason", "timeout");
+        metrics.gauge("password_hash_queue_depth", "排队中的BCrypt任务数", () -> executor.getQueue().size());
+        metrics.gauge("password_hash_active", "正在计算的BCrypt任务数", executor::getActiveCount);
+        logger.info("密码哈希线程池：{}个线程，队列上限{}，BCrypt强度{}", poolSize, this.queueCapacity, strength);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> encoder.encode(rawPassword), encodeTimer);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> encoder.matches(rawPassword, encodedPassword), matchesTimer);
+    }
+
+    /**
+     * 哈希的强度与当前配置不同（调高或调低）时需要重新计算，格式无法识别的哈希不处理
+     * 重新计算会让这次登录多占一次BCrypt，队列已过半时推迟到以后的登录，避免正确的登录因此被拒绝
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || executor.getQueue().size() * 2 >= queueCapacity) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    private <T> T submit(Callable<T> task, LatencyHistogram timer) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                waitTimer.record(start - submitted);
+                try {
+                    return task.call();
+                } finally {
+                    timer.record(System.nanoTime() - start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queueFullCount.increment();
+            throw new PasswordHashingRejectedException("密码校验繁忙，请稍后重试");
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 还在排队的任务直接移出队列，已开始计算的任务让它算完
+            if (future.cancel(false)) {
+                executor.remove((Runnable) future);
+            }
+            timeoutCount.increment();
+            throw new PasswordHashingRejectedException("密码校验超时，请稍后重试");
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingRejectedException("密码校验被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("密码哈希计算失败", cause);
+        }
+    }
+}
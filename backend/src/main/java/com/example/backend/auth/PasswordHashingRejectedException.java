@@ -0,0 +1,11 @@
+package com.example.backend.auth;
+
+/**
+ * 密码哈希线程池队列已满或排队超时，请求应返回503由客户端稍后重试
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
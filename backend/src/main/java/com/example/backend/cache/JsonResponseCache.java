@@ -0,0 +1,143 @@
+package com.example.backend.cache;
+
+import com.example.backend.metrics.MetricsRegistry;
+import com.example.backend.util.UserChangeVersions;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 列表类读接口的响应缓存，缓存的是已经序列化好的JSON字节
+ * 缓存键包含用户的变更版本号，任何写入递增版本号后旧条目不会再被命中，无需逐个失效，
+ * 旧条目由按字节数计权的W-TinyLFU淘汰策略和访问过期时间自然清理
+ */
+@Component
+public class JsonResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonResponseCache.class);
+
+    // 每个条目除JSON字节外的估算开销（键对象、哈希表节点等）
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final ObjectMapper objectMapper;
+    private final UserChangeVersions changeVersions;
+    private final int maxEntryBytes;
+    private final Cache<Key, byte[]> cache;
+
+    public JsonResponseCache(ObjectMapper objectMapper,
+                             UserChangeVersions changeVersions,
+                             MetricsRegistry metrics,
+                             @Value("${cache.response.max-bytes:67108864}") long maxBytes,
+                             @Value("${cache.response.max-entry-bytes:1048576}") int maxEntryBytes,
+                             @Value("${cache.response.expire-minutes:30}") long expireMinutes) {
+        this.objectMapper = objectMapper;
+        this.changeVersions = changeVersions;
+        this.maxEntryBytes = maxEntryBytes;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, byte[] json) -> json.length + ENTRY_OVERHEAD)
+                .expireAfterAccess(expireMinutes, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+        metrics.gauges("cache_response", this::stats);
+        logger.info("响应缓存已启用，容量上限{}字节，单条上限{}字节", maxBytes, maxEntryBytes);
+    }
+
+    /**
+     * 读取缓存的JSON，未命中时调用loader查询并序列化后放入缓存
+     * 版本号在查询之前读取：查询期间有写入提交时，结果存在旧版本号下，之后的请求使用新版本号，不会读到旧数据
+     *
+     * @param endpoint 接口名称，区分同一用户的不同查询
+     * @param params   影响查询结果的参数，null也是有效取值
+     */
+    public byte[] get(Integer userId, String endpoint, Supplier<?> loader, Object... params) {
+        Key key = new Key(userId, endpoint, Arrays.asList(params), changeVersions.current(userId));
+        byte[] json = cache.getIfPresent(key);
+        if (json != null) {
+            return json;
+        }
+        json = serialize(loader.get());
+        // 特别大的结果只会挤掉大量小条目，直接返回不缓存
+        if (json.length <= maxEntryBytes) {
+            cache.put(key, json);
+        }
+        return json;
+    }
+
+    /**
+     * 命中率等统计信息
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("evictionWeight", stats.evictionWeight());
+        result.put("entries", cache.estimatedSize());
+        result.put("weightedBytes", cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L));
+        return result;
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化响应失败", e);
+        }
+    }
+
+    private static final class Key {
+        private final Integer userId;
+        private final String endpoint;
+        private final List<Object> params;
+        private final String version;
+        private final int hash;
+
+        Key(Integer userId, String endpoint, List<Object> params, String version) {
+            this.userId = userId;
+            this.endpoint = endpoint;
+            this.params = params;
+            this.version = version;
+            this.hash = Objects.hash(userId, endpoint, params, version);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash
+                    && Objects.equals(userId, other.userId)
+                    && endpoint.equals(other.endpoint)
+                    && params.equals(other.params)
+                    && version.equals(other.version);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.backend.compress;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 便签内容列的TypeHandler，写入时按需压缩，读取时自动解压，上层代码只接触原文
+ * 只在映射文件中按列显式引用，不注册为String的全局处理器；
+ * 配置好的实例由NoteContentConfig在解析映射文件前注册，映射文件引用该类时使用这个实例
+ */
+public class CompressedTextTypeHandler extends BaseTypeHandler<String> {
+
+    private final NoteContentCodec codec;
+
+    public CompressedTextTypeHandler(NoteContentCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, String parameter, JdbcType jdbcType) throws SQLException {
+        ps.setString(i, codec.encode(parameter));
+    }
+
+    @Override
+    public String getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return decode(rs.getString(columnName));
+    }
+
+    @Override
+    public String getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return decode(rs.getString(columnIndex));
+    }
+
+    @Override
+    public String getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return decode(cs.getString(columnIndex));
+    }
+
+    private String decode(String stored) throws SQLException {
+        try {
+            return codec.decode(stored);
+        } catch (IllegalArgumentException e) {
+            throw new SQLException("便签内容解压失败", e);
+        }
+    }
+}
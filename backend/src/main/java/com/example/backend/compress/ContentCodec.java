@@ -0,0 +1,20 @@
+package com.example.backend.compress;
+
+/**
+ * 便签内容的压缩算法
+ * 每种算法有唯一的标识，写在压缩内容的格式标记中，读取时据此选择解压算法
+ */
+public interface ContentCodec {
+
+    /**
+     * 算法标识，只能包含字母和数字，已经落库的标识不能再改
+     */
+    String getId();
+
+    byte[] compress(byte[] data);
+
+    /**
+     * 数据损坏时抛出IllegalArgumentException
+     */
+    byte[] decompress(byte[] data);
+}
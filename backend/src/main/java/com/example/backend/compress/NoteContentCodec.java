@@ -0,0 +1,94 @@
+package com.example.backend.compress;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 便签内容的存储格式
+ * UTF-8字节数超过阈值的内容压缩后以"\u0001{算法标识}:{Base64}"的形式存入原来的文本列，
+ * 其余内容原样存储。以控制字符\u0001开头的原文无论长短都会压缩，保证读取时不会误判
+ * 实例创建后不可变，由NoteContentConfig按配置创建，并通过CompressedTextTypeHandler注册到MyBatis
+ */
+public final class NoteContentCodec {
+
+    // 格式标记的首字符，SQL中用CHAR(1)判断
+    public static final char MARKER_START = '\u0001';
+    private static final char MARKER_END = ':';
+
+    private final Map<String, ContentCodec> codecs = new HashMap<>();
+
+    private final ContentCodec activeCodec;
+    // 压缩阈值（UTF-8字节数），小于等于0表示不压缩新内容
+    private final int threshold;
+
+    /**
+     * @param thresholdBytes 压缩阈值，小于等于0表示不压缩新内容
+     * @param codec          写入时使用的算法，同时用于解压
+     * @param decodeOnly     只用于解压的算法，例如切换算法后仍需读取的旧数据；Deflate总是可以解压
+     */
+    public NoteContentCodec(int thresholdBytes, ContentCodec codec, ContentCodec... decodeOnly) {
+        register(new DeflateContentCodec(6));
+        for (ContentCodec old : decodeOnly) {
+            register(old);
+        }
+        register(codec);
+        this.activeCodec = codec;
+        this.threshold = thresholdBytes;
+    }
+
+    private void register(ContentCodec codec) {
+        codecs.put(codec.getId(), codec);
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * 转换为存储格式，压缩后没有变小时原样返回
+     */
+    public String encode(String text) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        boolean ambiguous = text.charAt(0) == MARKER_START;
+        int limit = threshold;
+        // 每个字符最多3个UTF-8字节（代理对4字节对应2个字符），字符数足够少时不必编码就能确定低于阈值
+        if (!ambiguous && (limit <= 0 || (long) text.length() * 3 <= limit)) {
+            return text;
+        }
+        byte[] plain = text.getBytes(StandardCharsets.UTF_8);
+        if (!ambiguous && plain.length <= limit) {
+            return text;
+        }
+        ContentCodec codec = activeCodec;
+        String encoded = MARKER_START + codec.getId() + MARKER_END
+                + Base64.getEncoder().encodeToString(codec.compress(plain));
+        return ambiguous || encoded.length() < plain.length ? encoded : text;
+    }
+
+    /**
+     * 从存储格式还原，未压缩的内容原样返回；标记或数据无法识别时抛出IllegalArgumentException
+     */
+    public String decode(String stored) {
+        if (!isEncoded(stored)) {
+            return stored;
+        }
+        int end = stored.indexOf(MARKER_END);
+        if (end < 0) {
+            throw new IllegalArgumentException("便签内容的压缩标记不完整");
+        }
+        ContentCodec codec = codecs.get(stored.substring(1, end));
+        if (codec == null) {
+            throw new IllegalArgumentException("未知的便签内容压缩算法: " + stored.substring(1, end));
+        }
+        byte[] compressed = Base64.getDecoder().decode(stored.substring(end + 1));
+        return new String(codec.decompress(compressed), StandardCharsets.UTF_8);
+    }
+
+    public static boolean isEncoded(String stored) {
+        return stored != null && !stored.isEmpty() && stored.charAt(0) == MARKER_START;
+    }
+}
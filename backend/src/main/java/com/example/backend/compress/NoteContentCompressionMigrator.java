@@ -0,0 +1,118 @@
+package com.example.backend.compress;
+
+import com.example.backend.mapper.NoteMapper;
+import com.example.backend.model.Note;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+
+/**
+ * 在后台把已有的大内容转换为压缩格式，压缩阈值和算法由NoteContentConfig配置
+ * 按便签ID分批扫描，每批之间暂停一段时间，避免影响正常请求；
+ * 写回时以change_seq作为乐观锁，期间被用户修改过的便签跳过（新内容写入时已经按需压缩），
+ * 也不修改updated_at和change_seq，对客户端不可见
+ */
+@Component
+public class NoteContentCompressionMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteContentCompressionMigrator.class);
+
+    private final NoteMapper noteMapper;
+    private final NoteContentCodec codec;
+    private final boolean migrateOnStartup;
+    private final int batchSize;
+    private final long pauseMillis;
+
+    private volatile boolean stopped;
+
+    public NoteContentCompressionMigrator(NoteMapper noteMapper,
+                                          NoteContentCodec codec,
+                                          @Value("${note.content.migrate-on-startup:true}") boolean migrateOnStartup,
+                                          @Value("${note.content.migrate-batch-size:100}") int batchSize,
+                                          @Value("${note.content.migrate-pause-ms:200}") long pauseMillis) {
+        this.noteMapper = noteMapper;
+        this.codec = codec;
+        this.migrateOnStartup = migrateOnStartup;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!migrateOnStartup || codec.getThreshold() <= 0) {
+            return;
+        }
+        Thread worker = new Thread(this::migrate, "note-content-compression");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+    }
+
+    private void migrate() {
+        int threshold = codec.getThreshold();
+        int afterId = 0;
+        int scanned = 0;
+        int compressed = 0;
+        long savedBytes = 0;
+        long startedAt = System.currentTimeMillis();
+        logger.info("开始压缩已有的便签内容，阈值{}字节", threshold);
+        try {
+            while (!stopped) {
+                List<Note> rows = noteMapper.findUncompressedContent(afterId, threshold, batchSize);
+                if (rows.isEmpty()) {
+                    break;
+                }
+                for (Note row : rows) {
+                    afterId = row.getNoteId();
+                    scanned++;
+                    String stored = codec.encode(row.getContent());
+                    if (!NoteContentCodec.isEncoded(stored)) {
+                        // 压缩后没有变小，保持原样
+                        continue;
+                    }
+                    if (noteMapper.compressContent(row.getNoteId(), row.getChangeSeq(), stored) > 0) {
+                        compressed++;
+                        savedBytes += utf8Length(row.getContent()) - stored.length();
+                    }
+                }
+                Thread.sleep(pauseMillis);
+            }
+            logger.info("便签内容压缩完成: 检查{}个, 压缩{}个, 约节省{}字节, 耗时{}ms",
+                    scanned, compressed, savedBytes, System.currentTimeMillis() - startedAt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // 下次启动会从头继续，已压缩的行不会再被选中
+            logger.error("压缩便签内容失败，已处理到便签{}", afterId, e);
+        }
+    }
+
+    private static long utf8Length(String text) {
+        long bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
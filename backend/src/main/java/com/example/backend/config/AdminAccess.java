@@ -0,0 +1,43 @@
+package com.example.backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 运维接口的访问控制，只允许admin.user-ids中配置的用户访问；未配置时所有用户都不是管理员
+ * 按用户ID而不是用户名判断：用户改名或注册同名用户都不会取得管理员权限
+ */
+@Component
+public class AdminAccess {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminAccess.class);
+
+    private final Set<Integer> adminUserIds;
+
+    public AdminAccess(@Value("${admin.user-ids:}") Integer[] adminUserIds) {
+        this.adminUserIds = new HashSet<>(Arrays.asList(adminUserIds));
+    }
+
+    /**
+     * 当前请求的用户是否为管理员
+     */
+    public boolean isAdmin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() && authentication.getPrincipal() instanceof AuthenticatedUser) {
+            AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+            if (adminUserIds.contains(user.getUserId())) {
+                return true;
+            }
+            logger.warn("用户{}({})尝试访问运维接口", user.getUserId(), user.getUsername());
+        }
+        return false;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+public class ExportConfig {
+
+    /**
+     * 导出时并行渲染笔记的线程池，与公共ForkJoinPool隔离，避免影响其他并行任务
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool exportRenderPool(@Value("${export.render.parallelism:0}") int parallelism) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(threads);
+    }
+}
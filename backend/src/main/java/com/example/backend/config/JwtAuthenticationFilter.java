@@ -1,5 +1,10 @@
 package com.example.backend.config;
 
+import com.example.backend.metrics.LatencyHistogram;
+import com.example.backend.metrics.MetricsRegistry;
+import com.example.backend.model.User;
+import com.example.backend.push.SseTicketStore;
+import com.example.backend.service.UserService;
 import com.example.backend.util.JwtUtil;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
@@ -10,12 +15,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -27,77 +31,121 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
+    // 浏览器的EventSource不能设置请求头，推送接口通过查询参数传递一次性票据，JWT不出现在URL中
+    private static final String EVENTS_PATH = "/api/events";
+    private static final String TICKET_PARAM = "ticket";
+
     @Autowired
     private JwtUtil jwtUtil;
 
     @Autowired
-    private UserDetailsService userDetailsService;
+    private UserService userService;
+
+    @Autowired
+    private MetricsRegistry metrics;
+
+    @Autowired
+    private SseTicketStore ticketStore;
+
+    // 过滤器自身的耗时，不含后续的请求处理，按认证结果区分
+    private LatencyHistogram authenticatedTimer;
+    private LatencyHistogram rejectedTimer;
+    private LatencyHistogram anonymousTimer;
+
+    @PostConstruct
+    public void initMetrics() {
+        String help = "JWT认证过滤器的耗时";
+        authenticatedTimer = metrics.timer("jwt_filter_seconds", help, "result", "authenticated");
+        rejectedTimer = metrics.timer("jwt_filter_seconds", help, "result", "rejected");
+        anonymousTimer = metrics.timer("jwt_filter_seconds", help, "result", "anonymous");
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean tokenPresent = false;
         try {
             // 从请求头中获取token
             String authHeader = request.getHeader("Authorization");
-            String token = null;
-            String username = null;
 
             logger.debug("Request URL: {}", request.getRequestURL());
             logger.debug("Authorization header: {}", authHeader);
 
-            // 检查token是否存在且格式正确
+            // 检查token是否存在且格式正确，已认证的请求不再重复验证
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                token = authHeader.substring(7);
-                logger.debug("Extracted token: {}", token);
-                try {
-                    username = jwtUtil.extractUsername(token);
-                    logger.debug("Extracted username: {}", username);
-                } catch (ExpiredJwtException e) {
-                    logger.error("JWT token expired: {}", e.getMessage());
-                } catch (Exception e) {
-                    logger.error("Failed to extract username from token: {}", e.getMessage());
+                tokenPresent = true;
+                if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                    authenticate(request, authHeader.substring(7));
+                }
+            } else if (EVENTS_PATH.equals(request.getServletPath()) && "GET".equals(request.getMethod())
+                    && request.getParameter(TICKET_PARAM) != null) {
+                tokenPresent = true;
+                if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                    authenticateTicket(request, request.getParameter(TICKET_PARAM));
                 }
             } else {
                 logger.debug("Authorization header is missing or invalid");
             }
-
-            // 如果token有效且用户未认证
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                logger.debug("Username is not null and user is not authenticated");
-                try {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                    logger.debug("Loaded user details: {}", userDetails.getUsername());
-
-                    // 验证token
-                    try {
-                        if (jwtUtil.validateToken(token, userDetails.getUsername())) {
-                            logger.debug("Token is valid for user: {}", username);
-                            UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                                    userDetails, null, userDetails.getAuthorities());
-                            authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                            SecurityContextHolder.getContext().setAuthentication(authenticationToken);
-                            logger.debug("Authentication successful for user: {}", username);
-                        } else {
-                            logger.error("Token validation failed for user: {}", username);
-                        }
-                    } catch (SignatureException e) {
-                        logger.error("Invalid JWT signature for user: {}", username);
-                    } catch (ExpiredJwtException e) {
-                        logger.error("JWT token expired for user: {}", username);
-                    } catch (MalformedJwtException e) {
-                        logger.error("Invalid JWT token format for user: {}", username);
-                    } catch (UnsupportedJwtException e) {
-                        logger.error("Unsupported JWT token for user: {}", username);
-                    } catch (Exception e) {
-                        logger.error("Token validation failed for user: {} - {}", username, e.getMessage());
-                    }
-                } catch (Exception e) {
-                    logger.error("Failed to load user details for username: {} - {}", username, e.getMessage());
-                }
-            }
         } catch (Exception e) {
             logger.error("JWT authentication failed: {}", e.getMessage());
         }
+        LatencyHistogram timer = !tokenPresent ? anonymousTimer
+                : SecurityContextHolder.getContext().getAuthentication() != null ? authenticatedTimer : rejectedTimer;
+        timer.record(System.nanoTime() - start);
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    // 每个请求只解析并验签一次token，已验证过的token直接命中JwtUtil的缓存
+    private void authenticate(HttpServletRequest request, String token) {
+        String username = null;
+        try {
+            JwtUtil.VerifiedToken verified = jwtUtil.verify(token);
+            username = verified.getUsername();
+            logger.debug("Token is valid for user: {}", username);
+            Integer userId = resolveUserId(verified);
+            if (userId == null) {
+                logger.error("User not found for token subject: {}", username);
+                return;
+            }
+            AuthenticatedUser principal = new AuthenticatedUser(userId, username);
+            UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
+                    principal, null, principal.getAuthorities());
+            authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+            logger.debug("Authentication successful for user: {}", username);
+        } catch (SignatureException e) {
+            logger.error("Invalid JWT signature: {}", e.getMessage());
+        } catch (ExpiredJwtException e) {
+            logger.error("JWT token expired: {}", e.getMessage());
+        } catch (MalformedJwtException e) {
+            logger.error("Invalid JWT token format: {}", e.getMessage());
+        } catch (UnsupportedJwtException e) {
+            logger.error("Unsupported JWT token: {}", e.getMessage());
+        } catch (Exception e) {
+            logger.error("Token validation failed for user: {} - {}", username, e.getMessage());
+        }
+    }
+
+    // 票据兑换后立即失效，浏览器断线自动重连时需要先换取新票据
+    private void authenticateTicket(HttpServletRequest request, String ticket) {
+        AuthenticatedUser principal = ticketStore.redeem(ticket);
+        if (principal == null) {
+            logger.warn("推送票据无效、已过期或已被使用");
+            return;
+        }
+        UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
+                principal, null, principal.getAuthorities());
+        authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+    }
+
+    // 用户ID优先取自token声明；旧token没有该声明时回退到带缓存的用户查询
+    private Integer resolveUserId(JwtUtil.VerifiedToken verified) {
+        if (verified.getUserId() != null) {
+            return verified.getUserId();
+        }
+        User user = userService.findByUsername(verified.getUsername());
+        return user != null ? user.getId().intValue() : null;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.backend.config;
+
+import com.example.backend.metrics.HikariMetricsTrackerFactory;
+import com.example.backend.metrics.MetricsRegistry;
+import com.example.backend.metrics.MyBatisMetricsInterceptor;
+import com.example.backend.metrics.QueryDiagnostics;
+import com.example.backend.metrics.QueryDiagnosticsInterceptor;
+import com.example.backend.metrics.WebMetricsInterceptor;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final WebMetricsInterceptor webMetricsInterceptor;
+
+    public MetricsConfig(WebMetricsInterceptor webMetricsInterceptor) {
+        this.webMetricsInterceptor = webMetricsInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(webMetricsInterceptor).addPathPatterns("/api/**");
+    }
+
+    /**
+     * MyBatis自动配置会把容器中的Interceptor注册为插件
+     */
+    @Bean
+    public MyBatisMetricsInterceptor myBatisMetricsInterceptor(MetricsRegistry metrics) {
+        return new MyBatisMetricsInterceptor(metrics);
+    }
+
+    /**
+     * 按请求统计语句数，慢语句自动执行EXPLAIN
+     */
+    @Bean
+    public QueryDiagnosticsInterceptor queryDiagnosticsInterceptor(QueryDiagnostics diagnostics) {
+        return new QueryDiagnosticsInterceptor(diagnostics);
+    }
+
+    /**
+     * 连接池在第一次获取连接时才启动，在数据源初始化前设置指标采集
+     * BeanPostProcessor需要是静态方法，注册表延迟获取，避免提前初始化本配置类
+     */
+    @Bean
+    public static BeanPostProcessor hikariMetricsPostProcessor(ObjectProvider<MetricsRegistry> metrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource && ((HikariDataSource) bean).getMetricsTrackerFactory() == null) {
+                    ((HikariDataSource) bean).setMetricsTrackerFactory(new HikariMetricsTrackerFactory(metrics.getObject()));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.backend.config;
+
+import com.example.backend.compress.CompressedTextTypeHandler;
+import com.example.backend.compress.DeflateContentCodec;
+import com.example.backend.compress.NoteContentCodec;
+import org.apache.ibatis.type.JdbcType;
+import org.mybatis.spring.boot.autoconfigure.ConfigurationCustomizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class NoteContentConfig {
+
+    /**
+     * 便签内容的存储格式：超过阈值的内容按配置的级别压缩
+     */
+    @Bean
+    public NoteContentCodec noteContentCodec(@Value("${note.content.compress-threshold:4096}") int threshold,
+                                             @Value("${note.content.compress-level:6}") int level) {
+        return new NoteContentCodec(threshold, new DeflateContentCodec(level));
+    }
+
+    /**
+     * 映射文件按类名引用CompressedTextTypeHandler时，MyBatis先查找已注册的同类实例，找不到才反射创建；
+     * 这里在解析映射文件前注册配置好的实例。不指定Java类型，不会成为String的全局处理器
+     */
+    @Bean
+    public ConfigurationCustomizer compressedTextTypeHandlerCustomizer(NoteContentCodec codec) {
+        CompressedTextTypeHandler handler = new CompressedTextTypeHandler(codec);
+        return configuration -> configuration.getTypeHandlerRegistry().register((Class<String>) null, (JdbcType) null, handler);
+    }
+}
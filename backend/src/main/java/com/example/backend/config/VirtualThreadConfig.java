@@ -0,0 +1,84 @@
+package com.example.backend.config;
+
+import com.example.backend.util.VirtualThreads;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 虚拟线程模式（threads.virtual.enabled=true，需要Java 21及以上）
+ * Tomcat请求处理和MVC异步任务（流式导出、@Async）改为每个任务一个虚拟线程，阻塞在JDBC或BCrypt上的请求不再占满工作线程池。
+ * 并发不再受Tomcat线程数限制，由连接池提供背压：等待连接超过threads.virtual.connection-timeout-ms的请求直接失败，
+ * 避免大量请求排队到超时。导出任务和推送分发仍使用原来的有界线程池，只是线程换成虚拟线程
+ */
+@Configuration
+@ConditionalOnProperty(name = "threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    public VirtualThreadConfig() {
+        if (!VirtualThreads.isSupported()) {
+            throw new IllegalStateException("threads.virtual.enabled=true需要Java 21及以上，当前版本: "
+                    + System.getProperty("java.version"));
+        }
+        logger.info("虚拟线程模式已启用");
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService tomcatVirtualExecutor() {
+        return VirtualThreads.newThreadPerTaskExecutor("http-virtual");
+    }
+
+    /**
+     * Tomcat使用外部执行器后不再创建自己的工作线程池，server.tomcat.threads.*不再生效
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService tomcatVirtualExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(tomcatVirtualExecutor);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService asyncVirtualExecutor() {
+        return VirtualThreads.newThreadPerTaskExecutor("task-virtual");
+    }
+
+    /**
+     * 替换Spring Boot默认的applicationTaskExecutor，MVC异步请求和@Async都会使用它
+     */
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService asyncVirtualExecutor) {
+        return new TaskExecutorAdapter(asyncVirtualExecutor);
+    }
+
+    /**
+     * 缩短获取连接的等待时间，连接池耗尽时请求快速失败（返回503），而不是成千上万的虚拟线程排队等待30秒
+     */
+    @Bean
+    public static BeanPostProcessor hikariBackpressurePostProcessor(
+            @Value("${threads.virtual.connection-timeout-ms:2000}") long connectionTimeoutMs) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource && connectionTimeoutMs > 0) {
+                    HikariDataSource dataSource = (HikariDataSource) bean;
+                    if (dataSource.getConnectionTimeout() > connectionTimeoutMs) {
+                        dataSource.setConnectionTimeout(connectionTimeoutMs);
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+}
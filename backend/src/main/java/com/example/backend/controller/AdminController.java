@@ -0,0 +1,47 @@
+package com.example.backend.controller;
+
+import com.example.backend.config.AdminAccess;
+import com.example.backend.metrics.QueryDiagnostics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 运维接口，只允许admin.user-ids中配置的用户访问；诊断记录中包含SQL语句和执行计划，不能对普通用户开放
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    private static final int DEFAULT_REPORT_LIMIT = 50;
+
+    private final QueryDiagnostics queryDiagnostics;
+    private final AdminAccess adminAccess;
+
+    @Autowired
+    public AdminController(QueryDiagnostics queryDiagnostics, AdminAccess adminAccess) {
+        this.queryDiagnostics = queryDiagnostics;
+        this.adminAccess = adminAccess;
+    }
+
+    // 最近的SQL诊断记录：慢语句及其EXPLAIN结果、超出语句预算或重复执行语句的请求
+    @GetMapping("/queries")
+    public ResponseEntity<Map<String, Object>> getQueryReports(@RequestParam(required = false) Integer limit) {
+        if (!adminAccess.isAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        int size = limit == null || limit <= 0 ? DEFAULT_REPORT_LIMIT : limit;
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("settings", queryDiagnostics.settings());
+        response.put("reports", queryDiagnostics.recentReports(size));
+        return ResponseEntity.ok(response);
+    }
+}
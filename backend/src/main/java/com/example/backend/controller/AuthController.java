@@ -1,5 +1,7 @@
 package com.example.backend.controller;
 
+import com.example.backend.auth.PasswordHashingRejectedException;
+import com.example.backend.config.AuthenticatedUser;
 import com.example.backend.model.User;
 import com.example.backend.model.dto.LoginRequest;
 import com.example.backend.service.UserService;
@@ -7,12 +9,14 @@ import com.example.backend.util.JwtUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -26,6 +30,8 @@ import java.util.Map;
 public class AuthController {
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
 
+    private static final String RETRY_AFTER_SECONDS = "1";
+
     @Autowired
     private AuthenticationManager authenticationManager;
 
@@ -52,8 +58,9 @@ public class AuthController {
             SecurityContextHolder.getContext().setAuthentication(authentication);
             logger.info("Login successful for user: {}", loginRequest.getUsername());
 
-            // 生成JWT token
-            String token = jwtUtil.generateToken(loginRequest.getUsername());
+            // 生成JWT token，携带用户ID
+            AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+            String token = jwtUtil.generateToken(principal.getUsername(), principal.getUserId());
             logger.debug("Generated JWT token for user: {}", loginRequest.getUsername());
 
             // 返回token
@@ -61,6 +68,9 @@ public class AuthController {
             response.put("token", token);
             response.put("username", loginRequest.getUsername());
             return ResponseEntity.ok().body(response);
+        } catch (PasswordHashingRejectedException e) {
+            // 密码校验线程池繁忙不是认证失败，交给下面的处理方法返回503
+            throw e;
         } catch (Exception e) {
             logger.error("Login failed for username: {}. Error: {}", loginRequest.getUsername(), e.getMessage());
             logger.debug("Login failure details:", e);
@@ -78,6 +88,20 @@ public class AuthController {
         return ResponseEntity.ok("User registered successfully");
     }
 
+    /**
+     * 密码哈希线程池队列已满或排队超时，快速返回503，客户端稍后重试
+     */
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handleHashingRejected(PasswordHashingRejectedException e) {
+        logger.warn("密码校验被拒绝: {}", e.getMessage());
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(response);
+    }
+
     // 添加获取客户端IP的辅助方法
     private String getClientIp() {
         // 在实际应用中，这里应该从请求中获取真实的客户端IP
@@ -0,0 +1,42 @@
+package com.example.backend.controller;
+
+import com.example.backend.cache.JsonResponseCache;
+import com.example.backend.config.AdminAccess;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 缓存运维接口，只允许admin.user-ids中配置的用户访问
+ */
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    private final JsonResponseCache responseCache;
+    private final AdminAccess adminAccess;
+
+    @Autowired
+    public CacheController(JsonResponseCache responseCache, AdminAccess adminAccess) {
+        this.responseCache = responseCache;
+        this.adminAccess = adminAccess;
+    }
+
+    // 响应缓存的命中率、淘汰次数和占用字节数
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        if (!adminAccess.isAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("responseCache", responseCache.stats());
+        return ResponseEntity.ok(response);
+    }
+}
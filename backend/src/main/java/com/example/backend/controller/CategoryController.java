@@ -1,17 +1,21 @@
 package com.example.backend.controller;
 
+import com.example.backend.cache.JsonResponseCache;
+import com.example.backend.config.AuthenticatedUser;
 import com.example.backend.model.Category;
-import com.example.backend.model.User;
 import com.example.backend.service.CategoryService;
-import com.example.backend.service.UserService;
+import com.example.backend.util.UserChangeVersions;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -22,21 +26,43 @@ import java.util.HashMap;
 public class CategoryController {
 
     private static final Logger logger = LogManager.getLogger(CategoryController.class);
+    // ETag作用域
+    private static final String ETAG_SCOPE = "categories";
     private final CategoryService categoryService;
+    private final UserChangeVersions changeVersions;
+    private final JsonResponseCache responseCache;
 
     @Autowired
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService, UserChangeVersions changeVersions,
+                              JsonResponseCache responseCache) {
         this.categoryService = categoryService;
+        this.changeVersions = changeVersions;
+        this.responseCache = responseCache;
     }
 
-    // 获取当前用户的所有分类
+    // 获取当前用户的所有分类，数据没有变化时直接返回304，不查询数据库；withCounts=true时同时返回每个分类的便签数
     @GetMapping
-    public ResponseEntity<List<Category>> getCategories() {
-        logger.debug("开始获取当前用户的所有分类");
+    public ResponseEntity<byte[]> getCategories(
+            @RequestParam(required = false, defaultValue = "false") boolean withCounts,
+            WebRequest webRequest) {
+        logger.debug("开始获取当前用户的所有分类，withCounts={}", withCounts);
         Integer userId = getCurrentUserId();
-        List<Category> categories = categoryService.getCategoriesByUserId(userId);
-        logger.debug("成功获取{}个分类", categories.size());
-        return ResponseEntity.ok(categories);
+        String etag = changeVersions.etag(userId, ETAG_SCOPE);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        byte[] json = responseCache.get(userId, ETAG_SCOPE, () -> {
+            List<Category> categories = withCounts
+                    ? categoryService.getCategoriesWithCounts(userId)
+                    : categoryService.getCategoriesByUserId(userId);
+            logger.debug("成功获取{}个分类", categories.size());
+            return categories;
+        }, withCounts);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json);
     }
 
     // 根据ID获取分类
@@ -80,35 +106,23 @@ public class CategoryController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
-    // 更新分类
+    // 更新分类，所属用户作为更新条件，一条语句完成校验和写入
     @PutMapping("/{id}")
     public ResponseEntity<Map<String, Object>> updateCategory(@PathVariable Integer id, @RequestBody Category category) {
         logger.debug("开始更新分类: {}", id);
-        category.setCategoryId(id);
-        
-        // 验证是否为当前用户的分类
-        Category existingCategory = categoryService.getCategoryById(id);
-        if (existingCategory == null) {
-            logger.warn("未找到ID为{}的分类", id);
-            return ResponseEntity.notFound().build();
-        }
-        
         Integer userId = getCurrentUserId();
-        if (!existingCategory.getUserId().equals(userId)) {
-            logger.warn("用户{}尝试更新不属于自己的分类{}", userId, id);
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        }
+        category.setCategoryId(id);
+        category.setUserId(userId);
         
-        boolean updated = categoryService.updateCategory(category);
-        if (!updated) {
-            logger.error("更新分类失败");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        Category updated = categoryService.updateCategory(category);
+        if (updated == null) {
+            return writeRejected(id, userId, "更新");
         }
         
         logger.debug("成功更新分类: {}", id);
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
-        response.put("category", category);
+        response.put("category", updated);
         return ResponseEntity.ok(response);
     }
 
@@ -116,24 +130,11 @@ public class CategoryController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, Object>> deleteCategory(@PathVariable Integer id) {
         logger.debug("开始删除分类: {}", id);
-        
-        // 验证是否为当前用户的分类
-        Category category = categoryService.getCategoryById(id);
-        if (category == null) {
-            logger.warn("未找到ID为{}的分类", id);
-            return ResponseEntity.notFound().build();
-        }
-        
         Integer userId = getCurrentUserId();
-        if (!category.getUserId().equals(userId)) {
-            logger.warn("用户{}尝试删除不属于自己的分类{}", userId, id);
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        }
         
-        boolean deleted = categoryService.deleteCategory(id);
+        boolean deleted = categoryService.deleteCategory(id, userId);
         if (!deleted) {
-            logger.error("删除分类失败");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return writeRejected(id, userId, "删除");
         }
         
         logger.debug("成功删除分类: {}", id);
@@ -142,24 +143,29 @@ public class CategoryController {
         return ResponseEntity.ok(response);
     }
 
-    // 获取当前登录用户的ID
+    // 带用户条件的写操作没有影响任何行时，再查一次所属用户，区分分类不存在(404)和不属于当前用户(403)
+    private ResponseEntity<Map<String, Object>> writeRejected(Integer id, Integer userId, String action) {
+        Integer ownerId = categoryService.getCategoryOwnerId(id);
+        if (ownerId == null) {
+            logger.warn("未找到ID为{}的分类", id);
+            return ResponseEntity.notFound().build();
+        }
+        if (!ownerId.equals(userId)) {
+            logger.warn("用户{}尝试{}不属于自己的分类{}", userId, action, id);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        logger.error("{}分类失败", action);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    }
+
+    // 获取当前登录用户的ID，直接从认证主体中读取，不查询数据库
     private Integer getCurrentUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null && authentication.isAuthenticated() && !(authentication.getPrincipal() instanceof String)) {
-            // 从认证对象中获取用户名
-            String username = authentication.getName();
-            // 根据用户名查找用户信息
-            User user = userService.findByUsername(username);
-            if (user != null) {
-                // 将Long类型的id转换为Integer类型
-                return user.getId().intValue();
-            }
+        if (authentication != null && authentication.isAuthenticated() && authentication.getPrincipal() instanceof AuthenticatedUser) {
+            return ((AuthenticatedUser) authentication.getPrincipal()).getUserId();
         }
-        // 认证失败或用户不存在时返回默认值
+        // 认证失败时返回默认值
         logger.warn("无法获取当前用户ID，返回默认值1");
         return 1;
     }
-
-    @Autowired
-    private UserService userService;
 }
\ No newline at end of file
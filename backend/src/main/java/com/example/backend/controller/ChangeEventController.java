@@ -0,0 +1,82 @@
+package com.example.backend.controller;
+
+import com.example.backend.config.AuthenticatedUser;
+import com.example.backend.push.ChangeEventHub;
+import com.example.backend.push.SseTicketStore;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/events")
+public class ChangeEventController {
+
+    private static final Logger logger = LogManager.getLogger(ChangeEventController.class);
+    private final ChangeEventHub changeEventHub;
+    private final SseTicketStore ticketStore;
+
+    @Autowired
+    public ChangeEventController(ChangeEventHub changeEventHub, SseTicketStore ticketStore) {
+        this.changeEventHub = changeEventHub;
+        this.ticketStore = ticketStore;
+    }
+
+    /**
+     * 换取建立推送连接用的一次性票据，请求需带Authorization头
+     */
+    @PostMapping("/ticket")
+    public ResponseEntity<Map<String, Object>> issueTicket() {
+        AuthenticatedUser user = getCurrentUser();
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("ticket", ticketStore.issue(user));
+        response.put("expiresIn", ticketStore.getTtlMillis() / 1000);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 订阅当前用户的便签和分类变更事件（Server-Sent Events），以?ticket=一次性票据认证
+     * 事件：ready（连接建立，数据为当前版本号）、change（数据为ChangeEvent），另有定时心跳注释行
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe() {
+        AuthenticatedUser user = getCurrentUser();
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Integer userId = user.getUserId();
+        logger.debug("用户{}订阅变更事件", userId);
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .body(changeEventHub.subscribe(userId));
+    }
+
+    /**
+     * 获取当前登录用户
+     */
+    private AuthenticatedUser getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() && authentication.getPrincipal() instanceof AuthenticatedUser) {
+            return (AuthenticatedUser) authentication.getPrincipal();
+        }
+        // 认证失败时返回null
+        logger.warn("无法获取当前用户");
+        return null;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.backend.controller;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.core.NestedRuntimeException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 连接池在超时时间内没有空闲连接时返回503，客户端稍后重试
+ * 虚拟线程模式下请求并发不受工作线程数限制，连接池是主要的背压来源
+ * Hikari超时抛出的SQLTransientConnectionException到达这里时已被包装：事务方法中为
+ * CannotCreateTransactionException，MyBatis语句中为MyBatisSystemException包着的CannotGetJdbcConnectionException，
+ * 所以按异常链判断；其他数据访问异常原样抛出，交给默认的错误处理
+ */
+@RestControllerAdvice
+public class ConnectionPoolExceptionHandler {
+
+    private static final Logger logger = LogManager.getLogger(ConnectionPoolExceptionHandler.class);
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    @ExceptionHandler(NestedRuntimeException.class)
+    public ResponseEntity<Map<String, Object>> handlePoolExhausted(NestedRuntimeException e) {
+        Throwable timeout = e.getCause();
+        while (timeout != null && !(timeout instanceof SQLTransientConnectionException)) {
+            timeout = timeout.getCause();
+        }
+        if (timeout == null) {
+            throw e;
+        }
+        logger.warn("获取数据库连接超时: {}", timeout.getMessage());
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", "服务繁忙，请稍后重试");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(response);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.backend.controller;
+
+import com.example.backend.config.AdminAccess;
+import com.example.backend.metrics.MetricsRegistry;
+import com.example.backend.service.NoteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 指标接口，只允许admin.user-ids中配置的用户访问；Prometheus抓取时需配置该用户的Bearer令牌
+ */
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+
+    private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final NoteService noteService;
+    private final MetricsRegistry metrics;
+    private final AdminAccess adminAccess;
+
+    @Autowired
+    public MetricsController(NoteService noteService, MetricsRegistry metrics, AdminAccess adminAccess) {
+        this.noteService = noteService;
+        this.metrics = metrics;
+        this.adminAccess = adminAccess;
+    }
+
+    // Prometheus文本格式的全部指标：接口和SQL语句的耗时分位数（滑动窗口）、连接池、缓存和写缓冲
+    @GetMapping("/prometheus")
+    public void prometheus(HttpServletResponse response) throws IOException {
+        if (!adminAccess.isAdmin()) {
+            response.setStatus(HttpStatus.FORBIDDEN.value());
+            return;
+        }
+        response.setContentType(PROMETHEUS_CONTENT_TYPE);
+        Writer writer = response.getWriter();
+        metrics.writePrometheus(writer);
+        writer.flush();
+    }
+
+    // 便签写缓冲的深度、合并次数、写入耗时和缓冲时长
+    @GetMapping("/write-buffer")
+    public ResponseEntity<Map<String, Object>> getWriteBufferMetrics() {
+        if (!adminAccess.isAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("writeBuffer", noteService.getWriteBufferStats());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -1,18 +1,38 @@
 package com.example.backend.controller;
 
+import com.example.backend.cache.JsonResponseCache;
+import com.example.backend.config.AuthenticatedUser;
+import com.example.backend.model.Category;
 import com.example.backend.model.Note;
-import com.example.backend.model.User;
+import com.example.backend.model.NoteSummary;
+import com.example.backend.model.dto.BatchNoteRequest;
+import com.example.backend.model.dto.BatchResult;
+import com.example.backend.model.dto.CursorPage;
+import com.example.backend.model.dto.NoteChanges;
+import com.example.backend.model.dto.NotePatch;
+import com.example.backend.model.dto.NoteStats;
+import com.example.backend.service.CategoryService;
+import com.example.backend.service.InvalidNoteRequestException;
+import com.example.backend.service.NoteConflictException;
 import com.example.backend.service.NoteService;
-import com.example.backend.service.UserService;
+import com.example.backend.service.SearchUnavailableException;
+import com.example.backend.util.InvalidCursorException;
+import com.example.backend.util.TextEdits;
+import com.example.backend.util.UserChangeVersions;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
 import java.util.*;
 
 @RestController
@@ -20,65 +40,209 @@ import java.util.*;
 public class NoteController {
 
     private static final Logger logger = LogManager.getLogger(NoteController.class);
+    // 游标分页的默认和最大页大小
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    // 增量同步每次返回的默认和最大变更数
+    private static final int DEFAULT_SYNC_SIZE = 500;
+    private static final int MAX_SYNC_SIZE = 1000;
+    // 活跃度热力图的默认和最大天数
+    private static final int DEFAULT_ACTIVITY_DAYS = 365;
+    private static final int MAX_ACTIVITY_DAYS = 730;
+    // ETag作用域：便签列表类接口共用
+    private static final String ETAG_SCOPE = "notes";
     private final NoteService noteService;
+    private final CategoryService categoryService;
+    private final UserChangeVersions changeVersions;
+    private final JsonResponseCache responseCache;
 
     @Autowired
-    public NoteController(NoteService noteService) {
+    public NoteController(NoteService noteService, CategoryService categoryService,
+                          UserChangeVersions changeVersions, JsonResponseCache responseCache) {
         this.noteService = noteService;
+        this.categoryService = categoryService;
+        this.changeVersions = changeVersions;
+        this.responseCache = responseCache;
     }
 
-    // 获取当前用户的所有便签
+    // 获取当前用户的所有便签；传入cursor或limit时按游标分页返回
     @GetMapping
-    public ResponseEntity<List<Note>> getNotes(
-            @RequestParam(value = "archived", required = false, defaultValue = "false") Boolean isArchived) {
+    public ResponseEntity<?> getNotes(
+            @RequestParam(value = "archived", required = false, defaultValue = "false") Boolean isArchived,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            WebRequest webRequest) {
         logger.debug("开始获取当前用户的便签，归档状态: {}", isArchived);
         Integer userId = getCurrentUserId();
-        List<Note> notes = noteService.getNotesByUserId(userId, isArchived);
-        logger.debug("成功获取{}个便签", notes.size());
-        return ResponseEntity.ok(notes);
+        // 数据没有变化时直接返回304，不查询数据库也不序列化
+        String etag = changeVersions.etag(userId, ETAG_SCOPE);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        if (isPaged(cursor, limit)) {
+            int size = pageSize(limit);
+            byte[] json = responseCache.get(userId, "notes.page", () -> {
+                CursorPage<Note> page = noteService.getNotePage(userId, null, isArchived, cursor, size);
+                logger.debug("成功获取{}个便签，nextCursor={}", page.getItems().size(), page.getNextCursor());
+                return page;
+            }, null, isArchived, cursor, size);
+            return jsonBody(etag, json);
+        }
+        byte[] json = responseCache.get(userId, "notes", () -> {
+            List<Note> notes = noteService.getNotesByUserId(userId, isArchived);
+            logger.debug("成功获取{}个便签", notes.size());
+            return notes;
+        }, isArchived);
+        return jsonBody(etag, json);
     }
 
-    // 根据分类获取便签
+    // 根据分类获取便签；传入cursor或limit时按游标分页返回
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<List<Note>> getNotesByCategory(
+    public ResponseEntity<?> getNotesByCategory(
             @PathVariable Integer categoryId,
-            @RequestParam(value = "archived", required = false, defaultValue = "false") Boolean isArchived) {
+            @RequestParam(value = "archived", required = false, defaultValue = "false") Boolean isArchived,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            WebRequest webRequest) {
         logger.debug("开始获取当前用户分类ID为{}的便签，归档状态: {}", categoryId, isArchived);
         Integer userId = getCurrentUserId();
-        List<Note> notes = noteService.getNotesByUserIdAndCategoryId(userId, categoryId, isArchived);
-        logger.debug("成功获取{}个便签", notes.size());
-        return ResponseEntity.ok(notes);
+        // 数据没有变化时直接返回304，不查询数据库也不序列化
+        String etag = changeVersions.etag(userId, ETAG_SCOPE);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        if (isPaged(cursor, limit)) {
+            int size = pageSize(limit);
+            byte[] json = responseCache.get(userId, "notes.page", () -> {
+                CursorPage<Note> page = noteService.getNotePage(userId, categoryId, isArchived, cursor, size);
+                logger.debug("成功获取{}个便签，nextCursor={}", page.getItems().size(), page.getNextCursor());
+                return page;
+            }, categoryId, isArchived, cursor, size);
+            return jsonBody(etag, json);
+        }
+        byte[] json = responseCache.get(userId, "notes.category", () -> {
+            List<Note> notes = noteService.getNotesByUserIdAndCategoryId(userId, categoryId, isArchived);
+            logger.debug("成功获取{}个便签", notes.size());
+            return notes;
+        }, categoryId, isArchived);
+        return jsonBody(etag, json);
+    }
+
+    // 获取便签摘要列表（不含完整正文），用于列表卡片展示；传入cursor或limit时按游标分页返回
+    @GetMapping("/summaries")
+    public ResponseEntity<?> getNoteSummaries(
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(value = "archived", required = false, defaultValue = "false") Boolean isArchived,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            WebRequest webRequest) {
+        logger.debug("开始获取当前用户的便签摘要，分类ID: {}, 归档状态: {}", categoryId, isArchived);
+        Integer userId = getCurrentUserId();
+        // 数据没有变化时直接返回304，不查询数据库也不序列化
+        String etag = changeVersions.etag(userId, ETAG_SCOPE);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        if (isPaged(cursor, limit)) {
+            int size = pageSize(limit);
+            byte[] json = responseCache.get(userId, "summaries.page", () -> {
+                CursorPage<NoteSummary> page = noteService.getNoteSummaryPage(userId, categoryId, isArchived, cursor, size);
+                logger.debug("成功获取{}个便签摘要，nextCursor={}", page.getItems().size(), page.getNextCursor());
+                return page;
+            }, categoryId, isArchived, cursor, size);
+            return jsonBody(etag, json);
+        }
+        byte[] json = responseCache.get(userId, "summaries", () -> {
+            List<NoteSummary> summaries = noteService.getNoteSummaries(userId, categoryId, isArchived);
+            logger.debug("成功获取{}个便签摘要", summaries.size());
+            return summaries;
+        }, categoryId, isArchived);
+        return jsonBody(etag, json);
+    }
+
+    // 便签统计：未归档/归档/置顶数、各分类的便签数，以及最近days天每天新建的便签数
+    @GetMapping("/stats")
+    public ResponseEntity<?> getNoteStats(
+            @RequestParam(required = false) Integer days,
+            WebRequest webRequest) {
+        Integer userId = getCurrentUserId();
+        int range = days == null || days <= 0 ? DEFAULT_ACTIVITY_DAYS : Math.min(days, MAX_ACTIVITY_DAYS);
+        logger.debug("开始获取便签统计，天数: {}", range);
+        // 热力图的日期范围随日期变化，日期也作为ETag和缓存键的一部分
+        String today = LocalDate.now().toString();
+        String etag = changeVersions.etag(userId, "stats-" + today);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        byte[] json = responseCache.get(userId, "stats", () -> {
+            NoteStats stats = noteService.getNoteStats(userId, range);
+            logger.debug("便签统计: 未归档{}个, 归档{}个, 置顶{}个", stats.getTotal(), stats.getArchived(), stats.getPinned());
+            return stats;
+        }, range, today);
+        return jsonBody(etag, json);
+    }
+
+    // 增量同步：返回since令牌之后新建/修改的便签和已删除便签的ID；不传since时从头同步
+    @GetMapping("/changes")
+    public ResponseEntity<NoteChanges> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) Integer limit) {
+        logger.debug("开始增量同步，since={}", since);
+        Integer userId = getCurrentUserId();
+        int size = limit == null || limit <= 0 ? DEFAULT_SYNC_SIZE : Math.min(limit, MAX_SYNC_SIZE);
+        NoteChanges changes = noteService.getChangesSince(userId, since, size);
+        logger.debug("增量同步: {}个变更, {}个删除, hasMore={}", changes.getNotes().size(), changes.getDeleted().size(), changes.isHasMore());
+        return ResponseEntity.ok(changes);
     }
 
-    // 根据ID获取便签
+    // 根据ID获取便签，支持If-None-Match条件请求
     @GetMapping("/{id}")
-    public ResponseEntity<Note> getNoteById(@PathVariable Integer id) {
+    public ResponseEntity<Note> getNoteById(@PathVariable Integer id, WebRequest webRequest) {
         logger.debug("开始获取ID为{}的便签", id);
-        Note note = noteService.getNoteById(id);
-        if (note == null) {
+        // 先只读取所属用户和更新时间，校验权限并判断是否命中304
+        Note stamp = noteService.getNoteStamp(id);
+        if (stamp == null) {
             logger.warn("未找到ID为{}的便签", id);
             return ResponseEntity.notFound().build();
         }
         
         // 验证是否为当前用户的便签
         Integer userId = getCurrentUserId();
-        if (!note.getUserId().equals(userId)) {
+        if (!stamp.getUserId().equals(userId)) {
             logger.warn("用户{}尝试访问不属于自己的便签{}", userId, id);
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
         
+        String etag = noteETag(stamp);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        
+        Note note = noteService.getNoteById(id);
+        if (note == null) {
+            logger.warn("未找到ID为{}的便签", id);
+            return ResponseEntity.notFound().build();
+        }
         logger.debug("成功获取便签: {}", note.getTitle());
-        return ResponseEntity.ok(note);
+        return withETag(etag).body(note);
     }
 
     // 搜索便签
     @GetMapping("/search")
-    public ResponseEntity<List<Note>> searchNotes(
+    public ResponseEntity<?> searchNotes(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) Integer categoryId,
-            @RequestParam(required = false, defaultValue = "false") Boolean isArchived) {
+            @RequestParam(required = false, defaultValue = "false") Boolean isArchived,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            WebRequest webRequest) {
         logger.debug("开始搜索便签: 关键词={}, 分类ID={}, 归档状态={}", keyword, categoryId, isArchived);
         Integer userId = getCurrentUserId();
+        // 数据没有变化时直接返回304，不查询数据库也不序列化
+        String etag = changeVersions.etag(userId, ETAG_SCOPE);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         
         Map<String, Object> params = new HashMap<>();
         params.put("userId", userId);
@@ -86,9 +250,21 @@ public class NoteController {
         params.put("categoryId", categoryId);
         params.put("isArchived", isArchived);
         
-        List<Note> notes = noteService.searchNotes(params);
-        logger.debug("搜索结果: {}个便签", notes.size());
-        return ResponseEntity.ok(notes);
+        if (isPaged(cursor, limit)) {
+            int size = pageSize(limit);
+            byte[] json = responseCache.get(userId, "search.page", () -> {
+                CursorPage<Note> page = noteService.searchNotePage(params, cursor, size);
+                logger.debug("搜索结果: {}个便签，nextCursor={}", page.getItems().size(), page.getNextCursor());
+                return page;
+            }, keyword, categoryId, isArchived, cursor, size);
+            return jsonBody(etag, json);
+        }
+        byte[] json = responseCache.get(userId, "search", () -> {
+            List<Note> notes = noteService.searchNotes(params);
+            logger.debug("搜索结果: {}个便签", notes.size());
+            return notes;
+        }, keyword, categoryId, isArchived);
+        return jsonBody(etag, json);
     }
 
     // 创建新便签
@@ -120,39 +296,61 @@ public class NoteController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
-    // 更新便签
+    // 更新便签，自动保存产生的连续更新在写缓冲中合并后再写入数据库
     @PutMapping("/{id}")
     public ResponseEntity<Map<String, Object>> updateNote(@PathVariable Integer id, @RequestBody Note note) {
         logger.debug("开始更新便签: {}", id);
+        Integer userId = getCurrentUserId();
         note.setNoteId(id);
-        note.setUpdatedAt(new Date());
+        note.setUserId(userId);
+        if (note.getCategoryId() != null) {
+            Category category = categoryService.getCategoryById(note.getCategoryId());
+            if (category == null || !category.getUserId().equals(userId)) {
+                logger.warn("用户{}尝试把便签移动到不存在或不属于自己的分类{}", userId, note.getCategoryId());
+                return ResponseEntity.notFound().build();
+            }
+        }
         
-        // 验证是否为当前用户的便签
-        Note existingNote = noteService.getNoteById(id);
-        if (existingNote == null) {
-            logger.warn("未找到ID为{}的便签", id);
-            return ResponseEntity.notFound().build();
+        Note updated = noteService.updateNote(note);
+        if (updated == null) {
+            return writeRejected(id, userId, "更新");
         }
         
+        logger.debug("成功更新便签: {}", id);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("note", updated);
+        return ResponseEntity.ok(response);
+    }
+
+    // 部分更新便签：只修改fields中列出的字段，正文可以只提交基于baseHash版本的文本编辑
+    // 响应中不含正文，修改了正文时返回新的contentHash，供下一次编辑作为基准
+    @PatchMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> patchNote(@PathVariable Integer id, @RequestBody NotePatch patch) {
+        logger.debug("开始部分更新便签: {}, 字段: {}", id, patch.getFields());
         Integer userId = getCurrentUserId();
-        if (!existingNote.getUserId().equals(userId)) {
-            logger.warn("用户{}尝试更新不属于自己的便签{}", userId, id);
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        boolean contentPatched = patch.getFields() != null && patch.getFields().contains(NotePatch.CONTENT);
+        if (patch.getFields() != null && patch.getFields().contains(NotePatch.CATEGORY_ID) && patch.getCategoryId() != null) {
+            Category category = categoryService.getCategoryById(patch.getCategoryId());
+            if (category == null || !category.getUserId().equals(userId)) {
+                logger.warn("用户{}尝试移动便签到不存在或不属于自己的分类{}", userId, patch.getCategoryId());
+                return ResponseEntity.notFound().build();
+            }
         }
-        
-        // 保留原始创建时间
-        note.setCreatedAt(existingNote.getCreatedAt());
-        
-        boolean updated = noteService.updateNote(note);
-        if (!updated) {
-            logger.error("更新便签失败");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+
+        Note updated = noteService.patchNote(id, userId, patch);
+        if (updated == null) {
+            return writeRejected(id, userId, "更新");
         }
-        
-        logger.debug("成功更新便签: {}", id);
+
+        logger.debug("成功部分更新便签: {}", id);
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
-        response.put("note", note);
+        if (contentPatched) {
+            response.put("contentHash", TextEdits.hash(updated.getContent()));
+        }
+        updated.setContent(null);
+        response.put("note", updated);
         return ResponseEntity.ok(response);
     }
 
@@ -160,24 +358,11 @@ public class NoteController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, Object>> deleteNote(@PathVariable Integer id) {
         logger.debug("开始删除便签: {}", id);
-        
-        // 验证是否为当前用户的便签
-        Note note = noteService.getNoteById(id);
-        if (note == null) {
-            logger.warn("未找到ID为{}的便签", id);
-            return ResponseEntity.notFound().build();
-        }
-        
         Integer userId = getCurrentUserId();
-        if (!note.getUserId().equals(userId)) {
-            logger.warn("用户{}尝试删除不属于自己的便签{}", userId, id);
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        }
         
-        boolean deleted = noteService.deleteNote(id);
+        boolean deleted = noteService.deleteNote(id, userId);
         if (!deleted) {
-            logger.error("删除便签失败");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return writeRejected(id, userId, "删除");
         }
         
         logger.debug("成功删除便签: {}", id);
@@ -196,23 +381,10 @@ public class NoteController {
             return ResponseEntity.badRequest().build();
         }
         
-        // 验证是否为当前用户的便签
-        Note note = noteService.getNoteById(id);
-        if (note == null) {
-            logger.warn("未找到ID为{}的便签", id);
-            return ResponseEntity.notFound().build();
-        }
-        
         Integer userId = getCurrentUserId();
-        if (!note.getUserId().equals(userId)) {
-            logger.warn("用户{}尝试置顶/取消置顶不属于自己的便签{}", userId, id);
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        }
-        
-        boolean updated = noteService.pinNote(id, isPinned);
+        boolean updated = noteService.pinNote(id, userId, isPinned);
         if (!updated) {
-            logger.error("置顶/取消置顶便签失败");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return writeRejected(id, userId, "置顶/取消置顶");
         }
         
         logger.debug("成功置顶/取消置顶便签: {}, isPinned={}", id, isPinned);
@@ -232,23 +404,10 @@ public class NoteController {
             return ResponseEntity.badRequest().build();
         }
         
-        // 验证是否为当前用户的便签
-        Note note = noteService.getNoteById(id);
-        if (note == null) {
-            logger.warn("未找到ID为{}的便签", id);
-            return ResponseEntity.notFound().build();
-        }
-        
         Integer userId = getCurrentUserId();
-        if (!note.getUserId().equals(userId)) {
-            logger.warn("用户{}尝试归档/取消归档不属于自己的便签{}", userId, id);
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        }
-        
-        boolean updated = noteService.archiveNote(id, isArchived);
+        boolean updated = noteService.archiveNote(id, userId, isArchived);
         if (!updated) {
-            logger.error("归档/取消归档便签失败");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return writeRejected(id, userId, "归档/取消归档");
         }
         
         logger.debug("成功归档/取消归档便签: {}, isArchived={}", id, isArchived);
@@ -258,24 +417,185 @@ public class NoteController {
         return ResponseEntity.ok(response);
     }
 
-    // 获取当前登录用户的ID
+    // 按ID批量获取便签，只返回属于当前用户的便签
+    @GetMapping("/batch")
+    public ResponseEntity<Map<String, Object>> getNotesByIds(@RequestParam("ids") List<Integer> ids) {
+        logger.debug("开始批量获取便签: {}个ID", ids.size());
+        Integer userId = getCurrentUserId();
+        List<Note> notes = noteService.getNotesByIds(userId, ids);
+
+        Set<Integer> found = new HashSet<>();
+        for (Note note : notes) {
+            found.add(note.getNoteId());
+        }
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : new LinkedHashSet<>(ids)) {
+            if (id != null && !found.contains(id)) {
+                missing.add(id);
+            }
+        }
+        logger.debug("成功批量获取{}个便签，未找到{}个", notes.size(), missing.size());
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("notes", notes);
+        response.put("missing", missing);
+        return ResponseEntity.ok(response);
+    }
+
+    // 批量置顶/取消置顶便签
+    @PutMapping("/batch/pin")
+    public ResponseEntity<Map<String, Object>> pinNotes(@RequestBody BatchNoteRequest request) {
+        if (request.getIsPinned() == null) {
+            logger.error("请求参数isPinned不能为空");
+            return ResponseEntity.badRequest().build();
+        }
+        Integer userId = getCurrentUserId();
+        BatchResult result = noteService.pinNotes(userId, request.getNoteIds(), request.getIsPinned());
+        logger.debug("批量置顶/取消置顶便签: 更新{}个, isPinned={}", result.getAffected(), request.getIsPinned());
+        return batchResponse(result);
+    }
+
+    // 批量归档/取消归档便签
+    @PutMapping("/batch/archive")
+    public ResponseEntity<Map<String, Object>> archiveNotes(@RequestBody BatchNoteRequest request) {
+        if (request.getIsArchived() == null) {
+            logger.error("请求参数isArchived不能为空");
+            return ResponseEntity.badRequest().build();
+        }
+        Integer userId = getCurrentUserId();
+        BatchResult result = noteService.archiveNotes(userId, request.getNoteIds(), request.getIsArchived());
+        logger.debug("批量归档/取消归档便签: 更新{}个, isArchived={}", result.getAffected(), request.getIsArchived());
+        return batchResponse(result);
+    }
+
+    // 批量移动便签到分类，categoryId为空表示移出分类
+    @PutMapping("/batch/move")
+    public ResponseEntity<Map<String, Object>> moveNotes(@RequestBody BatchNoteRequest request) {
+        Integer userId = getCurrentUserId();
+        Integer categoryId = request.getCategoryId();
+        if (categoryId != null) {
+            Category category = categoryService.getCategoryById(categoryId);
+            if (category == null || !category.getUserId().equals(userId)) {
+                logger.warn("用户{}尝试移动便签到不存在或不属于自己的分类{}", userId, categoryId);
+                return ResponseEntity.notFound().build();
+            }
+        }
+        BatchResult result = noteService.moveNotes(userId, request.getNoteIds(), categoryId);
+        logger.debug("批量移动便签: 更新{}个, categoryId={}", result.getAffected(), categoryId);
+        return batchResponse(result);
+    }
+
+    // 批量删除便签
+    @PostMapping("/batch/delete")
+    public ResponseEntity<Map<String, Object>> deleteNotes(@RequestBody BatchNoteRequest request) {
+        Integer userId = getCurrentUserId();
+        BatchResult result = noteService.deleteNotes(userId, request.getNoteIds());
+        logger.debug("批量删除便签: 删除{}个", result.getAffected());
+        return batchResponse(result);
+    }
+
+    // 部分更新的基准版本已过期，返回当前正文的哈希，客户端需重新获取正文后再提交
+    @ExceptionHandler(NoteConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleConflict(NoteConflictException e) {
+        logger.warn("部分更新冲突: {}", e.getMessage());
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", e.getMessage());
+        response.put("contentHash", e.getCurrentHash());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
+    // 检索索引未就绪且回退检索的候选过多，返回503并提示稍后重试
+    @ExceptionHandler(SearchUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleSearchUnavailable(SearchUnavailableException e) {
+        logger.warn("搜索暂不可用: {}", e.getMessage());
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").body(response);
+    }
+
+    // 非法的分页游标或同步令牌返回400
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Map<String, Object>> handleBadCursor(InvalidCursorException e) {
+        logger.warn("分页游标错误: {}", e.getMessage());
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", e.getMessage());
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    // 部分更新或批量操作的参数不合法返回400
+    @ExceptionHandler(InvalidNoteRequestException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidRequest(InvalidNoteRequestException e) {
+        logger.warn("请求参数错误: {}", e.getMessage());
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", e.getMessage());
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    // 带用户条件的写操作没有影响任何行时，再查一次所属用户，区分便签不存在(404)和不属于当前用户(403)
+    private ResponseEntity<Map<String, Object>> writeRejected(Integer id, Integer userId, String action) {
+        Integer ownerId = noteService.getNoteOwnerId(id);
+        if (ownerId == null) {
+            logger.warn("未找到ID为{}的便签", id);
+            return ResponseEntity.notFound().build();
+        }
+        if (!ownerId.equals(userId)) {
+            logger.warn("用户{}尝试{}不属于自己的便签{}", userId, action, id);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        logger.error("{}便签失败", action);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    }
+
+    // 带ETag的200响应，要求客户端每次使用缓存前重新验证
+    private ResponseEntity.BodyBuilder withETag(String etag) {
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePrivate());
+    }
+
+    // 响应缓存中已序列化好的JSON直接作为响应体写出
+    private ResponseEntity<byte[]> jsonBody(String etag, byte[] json) {
+        return withETag(etag).contentType(MediaType.APPLICATION_JSON).body(json);
+    }
+
+    // 单个便签的ETag只由这一行的版本列生成：updated_at只精确到秒，change_seq区分同一秒内的多次写入，
+    // 与进程内的版本号无关，用户修改其他便签或服务重启都不会让它失效
+    private String noteETag(Note stamp) {
+        long updatedAt = stamp.getUpdatedAt() != null ? stamp.getUpdatedAt().getTime() : 0L;
+        long changeSeq = stamp.getChangeSeq() != null ? stamp.getChangeSeq() : 0L;
+        int revisionNo = stamp.getRevisionNo() != null ? stamp.getRevisionNo() : 0;
+        return "\"note-" + stamp.getNoteId() + "-" + updatedAt + "-" + changeSeq + "-" + revisionNo + "\"";
+    }
+
+    private ResponseEntity<Map<String, Object>> batchResponse(BatchResult result) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("affected", result.getAffected());
+        response.put("results", result.getResults());
+        return ResponseEntity.ok(response);
+    }
+
+    private boolean isPaged(String cursor, Integer limit) {
+        return cursor != null || limit != null;
+    }
+
+    private int pageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    // 获取当前登录用户的ID，直接从认证主体中读取，不查询数据库
     private Integer getCurrentUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null && authentication.isAuthenticated() && !(authentication.getPrincipal() instanceof String)) {
-            // 从认证对象中获取用户名
-            String username = authentication.getName();
-            // 根据用户名查找用户信息
-            User user = userService.findByUsername(username);
-            if (user != null) {
-                // 将Long类型的id转换为Integer类型
-                return user.getId().intValue();
-            }
+        if (authentication != null && authentication.isAuthenticated() && authentication.getPrincipal() instanceof AuthenticatedUser) {
+            return ((AuthenticatedUser) authentication.getPrincipal()).getUserId();
         }
-        // 认证失败或用户不存在时返回默认值
+        // 认证失败时返回默认值
         logger.warn("无法获取当前用户ID，返回默认值1");
         return 1;
     }
-
-    @Autowired
-    private UserService userService;
 }
\ No newline at end of file
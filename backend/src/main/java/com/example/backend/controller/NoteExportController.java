@@ -1,27 +1,41 @@
 package com.example.backend.controller;
 
-import com.example.backend.model.Note;
-import com.example.backend.model.Category;
-import com.example.backend.model.User;
-import com.example.backend.service.NoteService;
-import com.example.backend.service.CategoryService;
-import com.example.backend.service.UserService;
+import com.example.backend.config.AuthenticatedUser;
+import com.example.backend.export.ExportJob;
+import com.example.backend.export.ExportJobManager;
+import com.example.backend.export.ExportProgress;
+import com.example.backend.export.ExportRejectedException;
+import com.example.backend.export.NoteExporter;
+import com.example.backend.export.NoteExporterRegistry;
+import com.example.backend.export.WordNoteExporter;
+import com.example.backend.util.ByteRange;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.poi.xwpf.usermodel.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -32,162 +46,199 @@ import java.util.Map;
 public class NoteExportController {
 
     private static final Logger logger = LogManager.getLogger(NoteExportController.class);
-    private final NoteService noteService;
-    private final CategoryService categoryService;
-    private final UserService userService;
+    private final NoteExporterRegistry exporterRegistry;
+    private final ExportJobManager exportJobManager;
 
     @Autowired
-    public NoteExportController(NoteService noteService, CategoryService categoryService, UserService userService) {
-        this.noteService = noteService;
-        this.categoryService = categoryService;
-        this.userService = userService;
+    public NoteExportController(NoteExporterRegistry exporterRegistry, ExportJobManager exportJobManager) {
+        this.exporterRegistry = exporterRegistry;
+        this.exportJobManager = exportJobManager;
     }
 
     /**
-     * 导出所有笔记到Word文档
+     * 导出所有笔记，format为导出格式（word、markdown、html）
+     * 文件边生成边写入响应流，笔记分批从数据库读取，内存占用与笔记数量无关，写出时不占用数据库连接
+     * 响应体在MVC异步执行器上生成，与导出任务共用每个用户的并发上限，同时进行的流式导出总数也有上限（超限返回429/503）
      */
-    @GetMapping("/notes/word")
-    public ResponseEntity<byte[]> exportNotesToWord() {
-        logger.debug("开始导出所有笔记到Word文档");
-        try {
-            // 获取当前用户的ID
-            Integer userId = getCurrentUserId();
-            if (userId == null) {
-                logger.error("无法获取当前用户信息");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-            }
+    @GetMapping("/notes/{format}")
+    public ResponseEntity<StreamingResponseBody> exportNotes(@PathVariable String format) {
+        logger.debug("开始导出所有笔记，格式: {}", format);
+        NoteExporter exporter = exporterRegistry.get(format);
+        if (exporter == null) {
+            logger.warn("不支持的导出格式: {}", format);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        // 获取当前用户的ID
+        Integer userId = getCurrentUserId();
+        if (userId == null) {
+            logger.error("无法获取当前用户信息");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        Runnable releaseSlot = exportJobManager.acquireStreamingSlot(userId);
+
+        // 设置HTTP响应头，使浏览器能够下载文件
+        HttpHeaders headers = new HttpHeaders();
+        String fileName = exporter.getFileName(new Date());
+        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        headers.add(HttpHeaders.CONTENT_TYPE, exporter.getContentType());
 
-            // 获取当前用户的所有笔记（包括已归档的）
-            List<Note> notes = noteService.getNotesByUserId(userId, false);
-            List<Note> archivedNotes = noteService.getNotesByUserId(userId, true);
-            notes.addAll(archivedNotes);
-            
-            logger.debug("成功获取{}个笔记用于导出", notes.size());
-
-            // 获取所有分类信息，用于在文档中显示
-            List<Category> categories = categoryService.getCategoriesByUserId(userId);
-            Map<Integer, String> categoryMap = new HashMap<>();
-            for (Category category : categories) {
-                categoryMap.put(category.getCategoryId(), category.getName());
+        StreamingResponseBody body = out -> {
+            try {
+                int count = exporter.export(userId, out, ExportProgress.NONE);
+                logger.debug("成功导出{}个笔记，格式: {}", count, format);
+            } catch (IOException | RuntimeException e) {
+                logger.error("导出笔记时发生错误，格式: {}", format, e);
+                throw e;
+            } finally {
+                releaseSlot.run();
             }
+        };
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
+
+    /**
+     * 提交异步导出任务
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitExportJob(@RequestParam(defaultValue = WordNoteExporter.FORMAT) String format) {
+        Integer userId = getCurrentUserId();
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        ExportJob job = exportJobManager.submit(userId, format);
+        logger.debug("用户{}提交导出任务: {}", userId, job.getJobId());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("job", job);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, "/api/export/jobs/" + job.getJobId())
+                .body(response);
+    }
 
-            // 创建Word文档
-            byte[] documentBytes = createWordDocument(notes, categoryMap);
-
-            // 设置HTTP响应头，使浏览器能够下载文件
-            HttpHeaders headers = new HttpHeaders();
-            String fileName = "我的笔记导出_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date()) + ".docx";
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
-            headers.add(HttpHeaders.CONTENT_TYPE, "application/vnd.openxmlformats-officedocument.wordprocessingml.document");
-
-            logger.debug("成功生成Word文档，大小：{}字节", documentBytes.length);
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(documentBytes);
-        } catch (Exception e) {
-            logger.error("导出笔记到Word文档时发生错误", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    /**
+     * 获取当前用户的导出任务列表
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<?> listExportJobs() {
+        Integer userId = getCurrentUserId();
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
+        List<ExportJob> jobs = exportJobManager.getJobs(userId);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("jobs", jobs);
+        return ResponseEntity.ok(response);
     }
 
     /**
-     * 创建Word文档并写入笔记内容
+     * 查询导出任务状态和进度
      */
-    private byte[] createWordDocument(List<Note> notes, Map<Integer, String> categoryMap) throws IOException {
-        // 创建新的Word文档
-        XWPFDocument document = new XWPFDocument();
-        
-        // 添加文档标题
-        XWPFParagraph titleParagraph = document.createParagraph();
-        titleParagraph.setAlignment(ParagraphAlignment.CENTER);
-        XWPFRun titleRun = titleParagraph.createRun();
-        titleRun.setText("我的笔记汇总");
-        titleRun.setFontSize(24);
-        titleRun.setBold(true);
-        
-        // 添加文档生成日期
-        XWPFParagraph dateParagraph = document.createParagraph();
-        dateParagraph.setAlignment(ParagraphAlignment.CENTER);
-        XWPFRun dateRun = dateParagraph.createRun();
-        dateRun.setText("生成日期：" + new SimpleDateFormat("yyyy年MM月dd日 HH:mm:ss").format(new Date()));
-        dateRun.setFontSize(12);
-        dateRun.setColor("666666");
-        
-        // 添加空行
-        document.createParagraph();
-        
-        // 如果没有笔记，添加提示信息
-        if (notes.isEmpty()) {
-            XWPFParagraph emptyParagraph = document.createParagraph();
-            XWPFRun emptyRun = emptyParagraph.createRun();
-            emptyRun.setText("没有可导出的笔记");
-            emptyRun.setFontSize(14);
-        } else {
-            // 添加笔记数量统计
-            XWPFParagraph countParagraph = document.createParagraph();
-            XWPFRun countRun = countParagraph.createRun();
-            countRun.setText("共包含" + notes.size() + "个笔记\n");
-            countRun.setFontSize(14);
-            countRun.setBold(true);
-            
-            // 按创建时间倒序排序笔记
-            notes.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
-            
-            // 遍历所有笔记并添加到文档中
-            for (Note note : notes) {
-                // 添加笔记标题
-                XWPFParagraph noteTitleParagraph = document.createParagraph();
-                noteTitleParagraph.setPageBreak(true); // 每个笔记单独一页
-                XWPFRun noteTitleRun = noteTitleParagraph.createRun();
-                noteTitleRun.setText(note.getTitle() != null && !note.getTitle().isEmpty() ? note.getTitle() : "无标题笔记");
-                noteTitleRun.setFontSize(16);
-                noteTitleRun.setBold(true);
-                
-                // 添加笔记元信息（分类、创建时间等）
-                XWPFParagraph metaParagraph = document.createParagraph();
-                XWPFRun metaRun = metaParagraph.createRun();
-                
-                String metaInfo = "创建时间：" + formatDate(note.getCreatedAt());
-                if (note.getCategoryId() != null && categoryMap.containsKey(note.getCategoryId())) {
-                    metaInfo += " | 分类：" + categoryMap.get(note.getCategoryId());
-                }
-                if (note.getIsArchived() != null && note.getIsArchived()) {
-                    metaInfo += " | 已归档";
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getExportJob(@PathVariable String jobId) {
+        Integer userId = getCurrentUserId();
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        ExportJob job = exportJobManager.getJob(jobId, userId);
+        if (job == null) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "导出任务不存在或已过期");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("job", job);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 下载导出文件
+     * 支持单段Range请求，断线后可以从已接收的位置继续下载，文件通过FileChannel.transferTo直接写入响应
+     */
+    @GetMapping("/jobs/{jobId}/download")
+    public void downloadExportJob(@PathVariable String jobId, HttpServletRequest request,
+                                  HttpServletResponse response) throws IOException {
+        Integer userId = getCurrentUserId();
+        if (userId == null) {
+            response.sendError(HttpStatus.UNAUTHORIZED.value());
+            return;
+        }
+        ExportJob job = exportJobManager.getJob(jobId, userId);
+        if (job == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "导出任务不存在或已过期");
+            return;
+        }
+        if (job.getStatus() != ExportJob.Status.COMPLETED) {
+            response.sendError(HttpStatus.CONFLICT.value(), "导出任务尚未完成");
+            return;
+        }
+
+        Path file = job.getFile();
+        long size = job.getSize();
+        String etag = "\"" + job.getJobId() + "\"";
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(job.getFileName()));
+        NoteExporter exporter = exporterRegistry.get(job.getFormat());
+        response.setContentType(exporter != null ? exporter.getContentType() : "application/octet-stream");
+
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (ByteRange.applies(range, request.getHeader(HttpHeaders.IF_RANGE), etag)) {
+            ByteRange bounds = ByteRange.parse(range, size);
+            if (bounds == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            start = bounds.getStart();
+            end = bounds.getEnd();
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    break;
                 }
-                
-                metaRun.setText(metaInfo);
-                metaRun.setFontSize(10);
-                metaRun.setColor("999999");
-                
-                // 添加空行
-                document.createParagraph();
-                
-                // 添加笔记内容
-                XWPFParagraph contentParagraph = document.createParagraph();
-                XWPFRun contentRun = contentParagraph.createRun();
-                contentRun.setText(note.getContent() != null ? note.getContent() : "无内容");
-                contentRun.setFontSize(12);
-                contentRun.addCarriageReturn(); // 确保内容后有空行
+                position += sent;
+                remaining -= sent;
             }
         }
-        
-        // 将文档写入字节数组
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        document.write(out);
-        document.close();
-        out.close();
-        
-        return out.toByteArray();
+        logger.debug("下载导出文件: jobId={}, 范围={}-{}/{}", jobId, start, end, size);
     }
 
     /**
-     * 格式化日期为易读格式
+     * 导出任务被拒绝时返回对应状态码
      */
-    private String formatDate(Date date) {
-        if (date == null) {
-            return "未知";
-        }
-        return new SimpleDateFormat("yyyy年MM月dd日 HH:mm:ss").format(date);
+    @ExceptionHandler(ExportRejectedException.class)
+    public ResponseEntity<?> handleExportRejected(ExportRejectedException e) {
+        logger.warn("导出任务被拒绝: {}", e.getMessage());
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", e.getMessage());
+        return ResponseEntity.status(e.getStatus()).body(response);
+    }
+
+    private String contentDisposition(String fileName) throws UnsupportedEncodingException {
+        String encoded = URLEncoder.encode(fileName, "UTF-8").replace("+", "%20");
+        return "attachment; filename=\"" + encoded + "\"; filename*=UTF-8''" + encoded;
     }
 
     /**
@@ -195,19 +246,11 @@ public class NoteExportController {
      */
     private Integer getCurrentUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null && authentication.isAuthenticated() && !(authentication.getPrincipal() instanceof String)) {
-            // 从认证对象中获取用户名
-            String username = authentication.getName();
-            // 根据用户名查找用户信息
-            User user = userService.findByUsername(username);
-            if (user != null) {
-                // 将Long类型的id转换为Integer类型
-                return user.getId().intValue();
-            }
-            logger.warn("用户名为{}的用户不存在", username);
+        if (authentication != null && authentication.isAuthenticated() && authentication.getPrincipal() instanceof AuthenticatedUser) {
+            return ((AuthenticatedUser) authentication.getPrincipal()).getUserId();
         }
-        // 认证失败或用户不存在时返回null
+        // 认证失败时返回null
         logger.warn("无法获取当前用户ID");
         return null;
     }
-}
\ No newline at end of file
+}
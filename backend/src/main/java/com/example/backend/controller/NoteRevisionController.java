@@ -0,0 +1,78 @@
+package com.example.backend.controller;
+
+import com.example.backend.config.AuthenticatedUser;
+import com.example.backend.model.NoteRevision;
+import com.example.backend.service.NoteRevisionService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/notes/{noteId}/revisions")
+public class NoteRevisionController {
+
+    private static final Logger logger = LogManager.getLogger(NoteRevisionController.class);
+    // 版本列表的默认和最大页大小
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private final NoteRevisionService revisionService;
+
+    @Autowired
+    public NoteRevisionController(NoteRevisionService revisionService) {
+        this.revisionService = revisionService;
+    }
+
+    // 获取便签的历史版本列表（不含正文），按版本号倒序；传入before时返回更早的版本
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getRevisions(
+            @PathVariable Integer noteId,
+            @RequestParam(required = false) Integer before,
+            @RequestParam(required = false) Integer limit) {
+        Integer userId = getCurrentUserId();
+        int size = limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        List<NoteRevision> revisions = revisionService.getRevisions(noteId, userId, before, size);
+        logger.debug("便签{}的历史版本: {}个", noteId, revisions.size());
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("revisions", revisions);
+        return ResponseEntity.ok(response);
+    }
+
+    // 获取指定历史版本的完整内容
+    @GetMapping("/{revisionNo}")
+    public ResponseEntity<Map<String, Object>> getRevision(@PathVariable Integer noteId, @PathVariable Integer revisionNo) {
+        Integer userId = getCurrentUserId();
+        NoteRevision revision = revisionService.getRevision(noteId, userId, revisionNo);
+        if (revision == null) {
+            logger.warn("未找到便签{}的版本{}", noteId, revisionNo);
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("revision", revision);
+        return ResponseEntity.ok(response);
+    }
+
+    // 获取当前登录用户的ID，直接从认证主体中读取，不查询数据库
+    private Integer getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() && authentication.getPrincipal() instanceof AuthenticatedUser) {
+            return ((AuthenticatedUser) authentication.getPrincipal()).getUserId();
+        }
+        // 认证失败时返回默认值
+        logger.warn("无法获取当前用户ID，返回默认值1");
+        return 1;
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.backend.export;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 流式生成docx文档
+ * 直接按OOXML格式把段落写入ZIP输出流，不在内存中构建整个文档对象，内存占用与便签数量无关
+ */
+public class DocxStreamWriter implements Closeable {
+
+    private static final String W_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    private static final String CONTENT_TYPES = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+            + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+            + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+            + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+            + "<Override PartName=\"/word/document.xml\" "
+            + "ContentType=\"application/vnd.openxmlformats-officedocument.wordprocessingml.document.main+xml\"/>"
+            + "</Types>";
+
+    private static final String ROOT_RELS = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+            + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+            + "<Relationship Id=\"rId1\" "
+            + "Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" "
+            + "Target=\"word/document.xml\"/>"
+            + "</Relationships>";
+
+    private final ZipOutputStream zip;
+    private final Writer documentWriter;
+    private final XMLStreamWriter xml;
+
+    /**
+     * 段落样式
+     */
+    public static final class Style {
+        private int fontSize = 12;
+        private boolean bold;
+        private String color;
+        private boolean center;
+        private boolean pageBreakBefore;
+
+        public Style fontSize(int fontSize) {
+            this.fontSize = fontSize;
+            return this;
+        }
+
+        public Style bold() {
+            this.bold = true;
+            return this;
+        }
+
+        public Style color(String color) {
+            this.color = color;
+            return this;
+        }
+
+        public Style center() {
+            this.center = true;
+            return this;
+        }
+
+        public Style pageBreakBefore() {
+            this.pageBreakBefore = true;
+            return this;
+        }
+    }
+
+    public static Style style() {
+        return new Style();
+    }
+
+    public DocxStreamWriter(OutputStream out) throws IOException {
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        writeEntry("[Content_Types].xml", CONTENT_TYPES);
+        writeEntry("_rels/.rels", ROOT_RELS);
+        zip.putNextEntry(new ZipEntry("word/document.xml"));
+        this.documentWriter = new OutputStreamWriter(new NonClosingOutputStream(zip), StandardCharsets.UTF_8);
+        try {
+            this.xml = XMLOutputFactory.newInstance().createXMLStreamWriter(documentWriter);
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.setPrefix("w", W_NS);
+            xml.writeStartElement(W_NS, "document");
+            xml.writeNamespace("w", W_NS);
+            xml.writeStartElement(W_NS, "body");
+        } catch (XMLStreamException e) {
+            throw new IOException("初始化docx文档失败", e);
+        }
+    }
+
+    /**
+     * 写入一个段落，文本中的换行转换为软换行
+     */
+    public void paragraph(String text, Style style) throws IOException {
+        try {
+            xml.writeStartElement(W_NS, "p");
+            if (style.center || style.pageBreakBefore) {
+                xml.writeStartElement(W_NS, "pPr");
+                if (style.pageBreakBefore) {
+                    xml.writeEmptyElement(W_NS, "pageBreakBefore");
+                    xml.writeAttribute(W_NS, "val", "true");
+                }
+                if (style.center) {
+                    xml.writeEmptyElement(W_NS, "jc");
+                    xml.writeAttribute(W_NS, "val", "center");
+                }
+                xml.writeEndElement();
+            }
+            if (text != null) {
+                xml.writeStartElement(W_NS, "r");
+                writeRunProperties(style);
+                String[] lines = sanitize(text).split("\r\n|\r|\n", -1);
+                for (int i = 0; i < lines.length; i++) {
+                    if (i > 0) {
+                        xml.writeEmptyElement(W_NS, "br");
+                    }
+                    xml.writeStartElement(W_NS, "t");
+                    xml.writeAttribute("xml:space", "preserve");
+                    xml.writeCharacters(lines[i]);
+                    xml.writeEndElement();
+                }
+                xml.writeEndElement();
+            }
+            xml.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new IOException("写入docx段落失败", e);
+        }
+    }
+
+    /**
+     * 写入空段落
+     */
+    public void emptyParagraph() throws IOException {
+        paragraph(null, style());
+    }
+
+    /**
+     * 把已写入的段落刷到底层输出流
+     */
+    public void flush() throws IOException {
+        try {
+            xml.flush();
+            documentWriter.flush();
+            zip.flush();
+        } catch (XMLStreamException e) {
+            throw new IOException("刷新docx输出失败", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.writeEndElement();
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.close();
+            documentWriter.flush();
+        } catch (XMLStreamException e) {
+            throw new IOException("结束docx文档失败", e);
+        }
+        zip.closeEntry();
+        zip.finish();
+        zip.flush();
+    }
+
+    private void writeRunProperties(Style style) throws XMLStreamException {
+        xml.writeStartElement(W_NS, "rPr");
+        if (style.bold) {
+            xml.writeEmptyElement(W_NS, "b");
+        }
+        if (style.color != null) {
+            xml.writeEmptyElement(W_NS, "color");
+            xml.writeAttribute(W_NS, "val", style.color);
+        }
+        // 字号以半磅为单位
+        xml.writeEmptyElement(W_NS, "sz");
+        xml.writeAttribute(W_NS, "val", String.valueOf(style.fontSize * 2));
+        xml.writeEmptyElement(W_NS, "szCs");
+        xml.writeAttribute(W_NS, "val", String.valueOf(style.fontSize * 2));
+        xml.writeEndElement();
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    // 去掉XML 1.0不允许出现的控制字符
+    private static String sanitize(String text) {
+        StringBuilder sb = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            boolean valid = c >= 0x20 || c == '\t' || c == '\n' || c == '\r';
+            if (valid && c >= 0xFFFE) {
+                valid = false;
+            }
+            if (!valid && sb == null) {
+                sb = new StringBuilder(text.length());
+                sb.append(text, 0, i);
+            } else if (valid && sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb != null ? sb.toString() : text;
+    }
+
+    // XMLStreamWriter关闭时不能连带关闭ZIP流
+    private static final class NonClosingOutputStream extends OutputStream {
+        private final OutputStream delegate;
+
+        NonClosingOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.backend.export;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.nio.file.Path;
+import java.util.Date;
+
+/**
+ * 异步导出任务
+ */
+public class ExportJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String jobId;
+    private final Integer userId;
+    private final String format;
+    private final String fileName;
+    private final Date createdAt = new Date();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile int written;
+    private volatile int total;
+    private volatile Path file;
+    private volatile long size;
+    private volatile Date finishedAt;
+    private volatile Date expiresAt;
+    private volatile String error;
+
+    public ExportJob(String jobId, Integer userId, String format, String fileName) {
+        this.jobId = jobId;
+        this.userId = userId;
+        this.format = format;
+        this.fileName = fileName;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    @JsonIgnore
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getWritten() {
+        return written;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    void updateProgress(int written, int total) {
+        this.written = written;
+        this.total = total;
+    }
+
+    /**
+     * 完成百分比（0-100）
+     */
+    public int getProgress() {
+        if (status == Status.COMPLETED) {
+            return 100;
+        }
+        int t = total;
+        return t > 0 ? (int) (written * 100L / t) : 0;
+    }
+
+    @JsonIgnore
+    public Path getFile() {
+        return file;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    void complete(Path file, long size, Date expiresAt) {
+        this.file = file;
+        this.size = size;
+        this.expiresAt = expiresAt;
+        this.finishedAt = new Date();
+        this.status = Status.COMPLETED;
+    }
+
+    void fail(String error, Date expiresAt) {
+        this.error = error;
+        this.expiresAt = expiresAt;
+        this.finishedAt = new Date();
+        this.status = Status.FAILED;
+    }
+
+    public Date getFinishedAt() {
+        return finishedAt;
+    }
+
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+}
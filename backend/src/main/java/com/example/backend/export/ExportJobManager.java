@@ -0,0 +1,233 @@
+package com.example.backend.export;
+
+import com.example.backend.util.VirtualThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步导出任务管理
+ * 任务在有界线程池中执行，限制每个用户的并发任务数；生成的文件保存在本地磁盘，过期后自动清理。
+ * 同步流式导出也在这里登记，与导出任务共用每个用户的并发上限
+ */
+@Component
+public class ExportJobManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportJobManager.class);
+
+    private final ConcurrentHashMap<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, AtomicInteger> activeByUser = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService cleaner;
+    private Semaphore streamingPermits;
+
+    @Autowired
+    private NoteExporterRegistry exporterRegistry;
+
+    @Value("${export.jobs.workers:2}")
+    private int workers;
+
+    @Value("${export.jobs.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${export.jobs.per-user-limit:1}")
+    private int perUserLimit;
+
+    @Value("${export.jobs.dir:data/exports}")
+    private String exportDir;
+
+    @Value("${export.jobs.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${export.streaming.max-concurrent:4}")
+    private int maxStreaming;
+
+    // 虚拟线程模式下工作线程换成虚拟线程，线程数和队列上限不变
+    @Value("${threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @PostConstruct
+    public void init() throws IOException {
+        Path dir = Paths.get(exportDir);
+        Files.createDirectories(dir);
+        // 任务状态只保存在内存中，重启后遗留的文件已无法下载，直接清理
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(dir)) {
+            for (Path file : stale) {
+                Files.deleteIfExists(file);
+            }
+        }
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                VirtualThreads.factoryOr(virtualThreads, "export-worker", namedThreads("export-worker")),
+                new ThreadPoolExecutor.AbortPolicy());
+        streamingPermits = new Semaphore(Math.max(1, maxStreaming));
+        cleaner = Executors.newSingleThreadScheduledExecutor(namedThreads("export-cleaner"));
+        cleaner.scheduleWithFixedDelay(this::purgeExpired, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        cleaner.shutdownNow();
+    }
+
+    /**
+     * 提交导出任务
+     * 用户并发任务数超限时抛出429，队列已满时抛出503
+     */
+    public ExportJob submit(Integer userId, String format) {
+        NoteExporter exporter = exporterRegistry.get(format);
+        if (exporter == null) {
+            throw new ExportRejectedException(HttpStatus.BAD_REQUEST, "不支持的导出格式: " + format);
+        }
+        AtomicInteger active = activeByUser.computeIfAbsent(userId, id -> new AtomicInteger());
+        if (active.incrementAndGet() > perUserLimit) {
+            active.decrementAndGet();
+            throw new ExportRejectedException(HttpStatus.TOO_MANY_REQUESTS, "已有导出任务正在进行，请稍后再试");
+        }
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), userId, exporter.getFormat(), exporter.getFileName(new Date()));
+        jobs.put(job.getJobId(), job);
+        try {
+            executor.execute(() -> run(job, exporter, active));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getJobId());
+            active.decrementAndGet();
+            throw new ExportRejectedException(HttpStatus.SERVICE_UNAVAILABLE, "导出任务过多，请稍后再试");
+        }
+        logger.debug("已提交导出任务: jobId={}, userId={}", job.getJobId(), userId);
+        return job;
+    }
+
+    /**
+     * 为同步流式导出占用名额，导出结束后调用返回的Runnable释放（重复调用无副作用）
+     * 用户已有导出在进行时抛出429，全局同时进行的流式导出达到上限时抛出503
+     */
+    public Runnable acquireStreamingSlot(Integer userId) {
+        AtomicInteger active = activeByUser.computeIfAbsent(userId, id -> new AtomicInteger());
+        if (active.incrementAndGet() > perUserLimit) {
+            active.decrementAndGet();
+            throw new ExportRejectedException(HttpStatus.TOO_MANY_REQUESTS, "已有导出任务正在进行，请稍后再试");
+        }
+        if (!streamingPermits.tryAcquire()) {
+            active.decrementAndGet();
+            throw new ExportRejectedException(HttpStatus.SERVICE_UNAVAILABLE, "导出请求过多，请稍后再试或使用导出任务接口");
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                streamingPermits.release();
+                active.decrementAndGet();
+            }
+        };
+    }
+
+    /**
+     * 获取当前用户的导出任务，任务不存在或不属于该用户时返回null
+     */
+    public ExportJob getJob(String jobId, Integer userId) {
+        ExportJob job = jobs.get(jobId);
+        return job != null && job.getUserId().equals(userId) ? job : null;
+    }
+
+    /**
+     * 获取当前用户的所有导出任务
+     */
+    public List<ExportJob> getJobs(Integer userId) {
+        List<ExportJob> result = new ArrayList<>();
+        for (ExportJob job : jobs.values()) {
+            if (job.getUserId().equals(userId)) {
+                result.add(job);
+            }
+        }
+        result.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
+        return result;
+    }
+
+    private void run(ExportJob job, NoteExporter exporter, AtomicInteger active) {
+        job.setStatus(ExportJob.Status.RUNNING);
+        Path dir = Paths.get(exportDir);
+        Path part = dir.resolve(job.getJobId() + ".part");
+        Path target = dir.resolve(job.getJobId() + ".export");
+        long start = System.currentTimeMillis();
+        try {
+            try (OutputStream out = Files.newOutputStream(part)) {
+                exporter.export(job.getUserId(), out, job::updateProgress);
+            }
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.complete(target, Files.size(target), expiry());
+            logger.debug("导出任务完成: jobId={}, 大小={}字节, 耗时{}ms", job.getJobId(), job.getSize(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("导出任务失败: jobId={}", job.getJobId(), e);
+            job.fail("导出失败", expiry());
+            try {
+                Files.deleteIfExists(part);
+            } catch (IOException ignored) {
+                // 清理任务会再次尝试
+            }
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    private Date expiry() {
+        return new Date(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(ttlMinutes));
+    }
+
+    // 删除过期任务及其文件
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<ExportJob> it = jobs.values().iterator();
+        while (it.hasNext()) {
+            ExportJob job = it.next();
+            if (job.isFinished() && job.getExpiresAt() != null && job.getExpiresAt().getTime() <= now) {
+                it.remove();
+                try {
+                    if (job.getFile() != null) {
+                        Files.deleteIfExists(job.getFile());
+                    }
+                } catch (IOException e) {
+                    logger.warn("删除过期导出文件失败: {}", job.getFile(), e);
+                }
+            }
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
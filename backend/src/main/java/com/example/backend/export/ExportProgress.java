@@ -0,0 +1,12 @@
+package com.example.backend.export;
+
+/**
+ * 导出进度回调
+ */
+@FunctionalInterface
+public interface ExportProgress {
+
+    ExportProgress NONE = (written, total) -> { };
+
+    void update(int written, int total);
+}
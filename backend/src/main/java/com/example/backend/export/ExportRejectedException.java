@@ -0,0 +1,20 @@
+package com.example.backend.export;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * 导出任务被拒绝（用户并发超限或队列已满）
+ */
+public class ExportRejectedException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public ExportRejectedException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
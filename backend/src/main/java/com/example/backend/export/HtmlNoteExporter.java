@@ -0,0 +1,108 @@
+package com.example.backend.export;
+
+import com.example.backend.model.Note;
+import com.example.backend.service.CategoryService;
+import com.example.backend.service.NoteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.HtmlUtils;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 导出为静态HTML页面的ZIP包，每个笔记一个页面，根目录的index.html为目录，可直接用浏览器离线查看
+ */
+@Component
+public class HtmlNoteExporter extends ZipNoteExporter {
+
+    public static final String FORMAT = "html";
+
+    private static final String STYLE = "<style>"
+            + "body{font-family:-apple-system,'PingFang SC','Microsoft YaHei',sans-serif;max-width:800px;margin:40px auto;padding:0 16px;color:#333}"
+            + ".meta{color:#999;font-size:13px}"
+            + ".content{white-space:pre-wrap;word-wrap:break-word;line-height:1.6}"
+            + "</style>";
+
+    @Autowired
+    public HtmlNoteExporter(NoteService noteService, CategoryService categoryService, ForkJoinPool exportRenderPool) {
+        super(noteService, categoryService, exportRenderPool);
+    }
+
+    @Override
+    public String getFormat() {
+        return FORMAT;
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "_html.zip";
+    }
+
+    @Override
+    protected String getEntryExtension() {
+        return ".html";
+    }
+
+    @Override
+    protected String renderNote(Note note, String categoryName) {
+        String title = HtmlUtils.htmlEscape(displayTitle(note));
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html>\n<html lang=\"zh-CN\">\n<head>\n<meta charset=\"UTF-8\">\n");
+        sb.append("<title>").append(title).append("</title>\n").append(STYLE).append("\n</head>\n<body>\n");
+        sb.append("<p><a href=\"../index.html\">返回目录</a></p>\n");
+        sb.append("<h1>").append(title).append("</h1>\n");
+        sb.append("<p class=\"meta\">创建时间：").append(formatDate(note.getCreatedAt()));
+        sb.append(" | 更新时间：").append(formatDate(note.getUpdatedAt()));
+        if (categoryName != null) {
+            sb.append(" | 分类：").append(HtmlUtils.htmlEscape(categoryName));
+        }
+        if (Boolean.TRUE.equals(note.getIsPinned())) {
+            sb.append(" | 已置顶");
+        }
+        if (Boolean.TRUE.equals(note.getIsArchived())) {
+            sb.append(" | 已归档");
+        }
+        sb.append("</p>\n");
+        sb.append("<div class=\"content\">")
+                .append(note.getContent() != null ? HtmlUtils.htmlEscape(note.getContent()) : "")
+                .append("</div>\n</body>\n</html>\n");
+        return sb.toString();
+    }
+
+    @Override
+    protected void writeIndex(ZipOutputStream zip, List<IndexEntry> entries, Date exportTime) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html>\n<html lang=\"zh-CN\">\n<head>\n<meta charset=\"UTF-8\">\n");
+        sb.append("<title>我的笔记汇总</title>\n").append(STYLE).append("\n</head>\n<body>\n");
+        sb.append("<h1>我的笔记汇总</h1>\n");
+        sb.append("<p class=\"meta\">生成日期：").append(formatDate(exportTime))
+                .append("，共包含").append(entries.size()).append("个笔记</p>\n");
+        String category = null;
+        for (IndexEntry entry : entries) {
+            if (!entry.getCategory().equals(category)) {
+                if (category != null) {
+                    sb.append("</ul>\n");
+                }
+                category = entry.getCategory();
+                sb.append("<h2>").append(HtmlUtils.htmlEscape(category)).append("</h2>\n<ul>\n");
+            }
+            sb.append("<li><a href=\"").append(encodePath(entry.getPath())).append("\">")
+                    .append(HtmlUtils.htmlEscape(entry.getTitle())).append("</a></li>\n");
+        }
+        if (category != null) {
+            sb.append("</ul>\n");
+        }
+        sb.append("</body>\n</html>\n");
+        writeEntry(zip, "index.html", sb.toString(), exportTime);
+    }
+
+    // 相对链接中的每一段都需要百分号编码，'/'保留
+    private static String encodePath(String path) {
+        return UriUtils.encodePath(path, "UTF-8");
+    }
+}
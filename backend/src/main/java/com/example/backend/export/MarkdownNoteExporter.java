@@ -0,0 +1,88 @@
+package com.example.backend.export;
+
+import com.example.backend.model.Note;
+import com.example.backend.service.CategoryService;
+import com.example.backend.service.NoteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 导出为Markdown文件的ZIP包，每个分类一个目录，每个笔记一个.md文件，根目录的README.md为目录
+ */
+@Component
+public class MarkdownNoteExporter extends ZipNoteExporter {
+
+    public static final String FORMAT = "markdown";
+
+    @Autowired
+    public MarkdownNoteExporter(NoteService noteService, CategoryService categoryService, ForkJoinPool exportRenderPool) {
+        super(noteService, categoryService, exportRenderPool);
+    }
+
+    @Override
+    public String getFormat() {
+        return FORMAT;
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "_markdown.zip";
+    }
+
+    @Override
+    protected String getEntryExtension() {
+        return ".md";
+    }
+
+    @Override
+    protected String renderNote(Note note, String categoryName) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# ").append(singleLine(displayTitle(note))).append("\n\n");
+        sb.append("> 创建时间：").append(formatDate(note.getCreatedAt()));
+        sb.append(" | 更新时间：").append(formatDate(note.getUpdatedAt()));
+        if (categoryName != null) {
+            sb.append(" | 分类：").append(singleLine(categoryName));
+        }
+        if (Boolean.TRUE.equals(note.getIsPinned())) {
+            sb.append(" | 已置顶");
+        }
+        if (Boolean.TRUE.equals(note.getIsArchived())) {
+            sb.append(" | 已归档");
+        }
+        sb.append("\n\n");
+        // 便签内容本身就是纯文本/Markdown，原样写出
+        sb.append(note.getContent() != null ? note.getContent() : "").append('\n');
+        return sb.toString();
+    }
+
+    @Override
+    protected void writeIndex(ZipOutputStream zip, List<IndexEntry> entries, Date exportTime) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# 我的笔记汇总\n\n");
+        sb.append("生成日期：").append(formatDate(exportTime)).append("，共包含").append(entries.size()).append("个笔记\n");
+        String category = null;
+        for (IndexEntry entry : entries) {
+            if (!entry.getCategory().equals(category)) {
+                category = entry.getCategory();
+                sb.append("\n## ").append(singleLine(category)).append("\n\n");
+            }
+            sb.append("- [").append(escapeLinkText(entry.getTitle())).append("](<")
+                    .append(entry.getPath()).append(">)\n");
+        }
+        writeEntry(zip, "README.md", sb.toString(), exportTime);
+    }
+
+    private static String singleLine(String text) {
+        return text.replaceAll("[\\r\\n]+", " ");
+    }
+
+    private static String escapeLinkText(String text) {
+        return singleLine(text).replace("\\", "\\\\").replace("[", "\\[").replace("]", "\\]");
+    }
+}
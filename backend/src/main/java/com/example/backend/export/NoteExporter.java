@@ -0,0 +1,35 @@
+package com.example.backend.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * 便签导出格式扩展点
+ * 每种导出格式实现该接口并注册为Spring Bean，同步导出接口和异步导出任务按format查找实现
+ */
+public interface NoteExporter {
+
+    /**
+     * 导出格式标识，用于请求参数，例如word、markdown
+     */
+    String getFormat();
+
+    String getContentType();
+
+    String getFileExtension();
+
+    /**
+     * 把用户的所有笔记写入输出流，返回导出的笔记数量
+     * 实现需要边生成边写出，不能在内存中构建完整的导出文件
+     */
+    int export(Integer userId, OutputStream out, ExportProgress progress) throws IOException;
+
+    /**
+     * 下载时使用的文件名
+     */
+    default String getFileName(Date time) {
+        return "我的笔记导出_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(time) + getFileExtension();
+    }
+}
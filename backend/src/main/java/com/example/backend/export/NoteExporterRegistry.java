@@ -0,0 +1,39 @@
+package com.example.backend.export;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按格式标识查找导出实现
+ */
+@Component
+public class NoteExporterRegistry {
+
+    private final Map<String, NoteExporter> exporters = new LinkedHashMap<>();
+
+    @Autowired
+    public NoteExporterRegistry(List<NoteExporter> exporters) {
+        for (NoteExporter exporter : exporters) {
+            NoteExporter previous = this.exporters.put(exporter.getFormat(), exporter);
+            if (previous != null) {
+                throw new IllegalStateException("重复的导出格式: " + exporter.getFormat());
+            }
+        }
+    }
+
+    /**
+     * 获取指定格式的导出实现，不支持的格式返回null
+     */
+    public NoteExporter get(String format) {
+        return format != null ? exporters.get(format.toLowerCase()) : null;
+    }
+
+    public Set<String> getFormats() {
+        return exporters.keySet();
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.backend.export;
+
+import com.example.backend.model.Category;
+import com.example.backend.model.Note;
+import com.example.backend.service.CategoryService;
+import com.example.backend.service.NoteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把用户的所有笔记导出为Word文档
+ * 笔记分批从数据库读取并直接写入输出流，内存占用与笔记数量无关
+ */
+@Component
+public class WordNoteExporter implements NoteExporter {
+
+    public static final String FORMAT = "word";
+    public static final String CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+    public static final String FILE_EXTENSION = ".docx";
+
+    private final NoteService noteService;
+    private final CategoryService categoryService;
+
+    @Autowired
+    public WordNoteExporter(NoteService noteService, CategoryService categoryService) {
+        this.noteService = noteService;
+        this.categoryService = categoryService;
+    }
+
+    @Override
+    public String getFormat() {
+        return FORMAT;
+    }
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public String getFileExtension() {
+        return FILE_EXTENSION;
+    }
+
+    /**
+     * 创建Word文档并写入笔记内容，返回导出的笔记数量
+     */
+    @Override
+    public int export(Integer userId, OutputStream out, ExportProgress progress) throws IOException {
+        // 获取所有分类信息，用于在文档中显示
+        List<Category> categories = categoryService.getCategoriesByUserId(userId);
+        Map<Integer, String> categoryMap = new HashMap<>();
+        for (Category category : categories) {
+            categoryMap.put(category.getCategoryId(), category.getName());
+        }
+
+        DocxStreamWriter document = new DocxStreamWriter(out);
+
+        // 添加文档标题
+        document.paragraph("我的笔记汇总", DocxStreamWriter.style().center().fontSize(24).bold());
+
+        // 添加文档生成日期
+        document.paragraph("生成日期：" + new SimpleDateFormat("yyyy年MM月dd日 HH:mm:ss").format(new Date()),
+                DocxStreamWriter.style().center().fontSize(12).color("666666"));
+
+        // 添加空行
+        document.emptyParagraph();
+
+        int total = noteService.countNotesByUserId(userId);
+        int[] written = {0};
+        progress.update(0, total);
+        // 如果没有笔记，添加提示信息
+        if (total == 0) {
+            document.paragraph("没有可导出的笔记", DocxStreamWriter.style().fontSize(14));
+        } else {
+            // 添加笔记数量统计
+            document.paragraph("共包含" + total + "个笔记", DocxStreamWriter.style().fontSize(14).bold());
+
+            // 按创建时间倒序逐条读取所有笔记（包括已归档的）并写入文档
+            noteService.forEachNoteForExport(userId, note -> {
+                try {
+                    writeNote(document, note, categoryMap);
+                    progress.update(++written[0], total);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+
+        document.close();
+        return written[0];
+    }
+
+    /**
+     * 写入单个笔记，每个笔记单独一页
+     */
+    private void writeNote(DocxStreamWriter document, Note note, Map<Integer, String> categoryMap) throws IOException {
+        // 添加笔记标题
+        document.paragraph(note.getTitle() != null && !note.getTitle().isEmpty() ? note.getTitle() : "无标题笔记",
+                DocxStreamWriter.style().pageBreakBefore().fontSize(16).bold());
+
+        // 添加笔记元信息（分类、创建时间等）
+        String metaInfo = "创建时间：" + formatDate(note.getCreatedAt());
+        if (note.getCategoryId() != null && categoryMap.containsKey(note.getCategoryId())) {
+            metaInfo += " | 分类：" + categoryMap.get(note.getCategoryId());
+        }
+        if (note.getIsArchived() != null && note.getIsArchived()) {
+            metaInfo += " | 已归档";
+        }
+        document.paragraph(metaInfo, DocxStreamWriter.style().fontSize(10).color("999999"));
+
+        // 添加空行
+        document.emptyParagraph();
+
+        // 添加笔记内容
+        document.paragraph(note.getContent() != null ? note.getContent() : "无内容", DocxStreamWriter.style().fontSize(12));
+        document.emptyParagraph();
+    }
+
+    /**
+     * 格式化日期为易读格式
+     */
+    private String formatDate(Date date) {
+        if (date == null) {
+            return "未知";
+        }
+        return new SimpleDateFormat("yyyy年MM月dd日 HH:mm:ss").format(date);
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.backend.export;
+
+import com.example.backend.model.Category;
+import com.example.backend.model.Note;
+import com.example.backend.service.CategoryService;
+import com.example.backend.service.NoteService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 纯文本格式ZIP导出的公共实现
+ * 笔记按分类分组成小批次，在ForkJoinPool上并行渲染；当前线程负责分批读取笔记，
+ * 并把渲染完成的条目按完成顺序写入ZipOutputStream。同时渲染中的批次数有上限，内存占用与笔记数量无关
+ */
+public abstract class ZipNoteExporter implements NoteExporter {
+
+    public static final String CONTENT_TYPE = "application/zip";
+
+    // 每个渲染任务包含的笔记数
+    private static final int BATCH_SIZE = 32;
+
+    // 文件名中标题部分的最大长度
+    private static final int MAX_NAME_LENGTH = 50;
+
+    private static final String UNCATEGORIZED = "未分类";
+
+    private final NoteService noteService;
+    private final CategoryService categoryService;
+    private final ForkJoinPool renderPool;
+
+    protected ZipNoteExporter(NoteService noteService, CategoryService categoryService, ForkJoinPool renderPool) {
+        this.noteService = noteService;
+        this.categoryService = categoryService;
+        this.renderPool = renderPool;
+    }
+
+    /**
+     * 单个笔记在ZIP中的条目
+     */
+    protected static final class IndexEntry {
+        private final String path;
+        private final String title;
+        // 分类对应的目录名，同名分类的目录名带有分类ID后缀，可以区分
+        private final String category;
+
+        IndexEntry(String path, String title, String category) {
+            this.path = path;
+            this.title = title;
+            this.category = category;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+    }
+
+    /**
+     * 笔记文件的扩展名，例如.md
+     */
+    protected abstract String getEntryExtension();
+
+    /**
+     * 渲染单个笔记，在渲染线程池中调用，实现必须是线程安全的
+     */
+    protected abstract String renderNote(Note note, String categoryName);
+
+    /**
+     * 所有笔记写完后写入目录文件，同一分类的条目相邻
+     */
+    protected abstract void writeIndex(ZipOutputStream zip, List<IndexEntry> entries, Date exportTime) throws IOException;
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public int export(Integer userId, OutputStream out, ExportProgress progress) throws IOException {
+        Map<Integer, String> categoryNames = new HashMap<>();
+        Map<Integer, String> folders = new HashMap<>();
+        Set<String> usedFolders = new HashSet<>();
+        usedFolders.add(UNCATEGORIZED);
+        for (Category category : categoryService.getCategoriesByUserId(userId)) {
+            categoryNames.put(category.getCategoryId(), category.getName());
+            String folder = safeName(category.getName(), UNCATEGORIZED);
+            if (!usedFolders.add(folder)) {
+                folder = folder + "_" + category.getCategoryId();
+                usedFolders.add(folder);
+            }
+            folders.put(category.getCategoryId(), folder);
+        }
+
+        int total = noteService.countNotesByUserId(userId);
+        progress.update(0, total);
+
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        RenderPipeline pipeline = new RenderPipeline(zip, progress, total);
+        // 每个分类各自攒满一批后提交渲染，未分类的笔记使用null作为键
+        Map<Integer, List<Note>> pending = new HashMap<>();
+        try {
+            noteService.forEachNoteForExport(userId, note -> {
+                Integer key = folders.containsKey(note.getCategoryId()) ? note.getCategoryId() : null;
+                List<Note> batch = pending.computeIfAbsent(key, k -> new ArrayList<>(BATCH_SIZE));
+                batch.add(note);
+                if (batch.size() >= BATCH_SIZE) {
+                    pending.remove(key);
+                    submitBatch(pipeline, batch, key, folders, categoryNames);
+                }
+            });
+            for (Map.Entry<Integer, List<Note>> entry : pending.entrySet()) {
+                submitBatch(pipeline, entry.getValue(), entry.getKey(), folders, categoryNames);
+            }
+            pipeline.drain();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        // 条目按渲染完成顺序写入，目录中按分类归组（排序是稳定的，分类内保持原有顺序）
+        pipeline.entries.sort(Comparator.comparing(IndexEntry::getCategory));
+        writeIndex(zip, pipeline.entries, new Date());
+        zip.finish();
+        zip.flush();
+        return pipeline.written;
+    }
+
+    private void submitBatch(RenderPipeline pipeline, List<Note> notes, Integer categoryId,
+                             Map<Integer, String> folders, Map<Integer, String> categoryNames) {
+        String folder = categoryId != null ? folders.get(categoryId) : UNCATEGORIZED;
+        String categoryName = categoryId != null ? categoryNames.get(categoryId) : null;
+        try {
+            pipeline.submit(notes, folder, categoryName);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 把文本作为一个ZIP条目写入
+     */
+    protected static void writeEntry(ZipOutputStream zip, String name, String content, Date time) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        if (time != null) {
+            entry.setTime(time.getTime());
+        }
+        zip.putNextEntry(entry);
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    protected static String displayTitle(Note note) {
+        return note.getTitle() != null && !note.getTitle().trim().isEmpty() ? note.getTitle() : "无标题笔记";
+    }
+
+    protected static String formatDate(Date date) {
+        if (date == null) {
+            return "未知";
+        }
+        return new SimpleDateFormat("yyyy年MM月dd日 HH:mm:ss").format(date);
+    }
+
+    // 去掉文件名中不允许的字符
+    private static String safeName(String name, String fallback) {
+        if (name == null) {
+            return fallback;
+        }
+        String cleaned = name.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").trim();
+        if (cleaned.length() > MAX_NAME_LENGTH) {
+            int end = MAX_NAME_LENGTH;
+            if (Character.isHighSurrogate(cleaned.charAt(end - 1))) {
+                end--;
+            }
+            cleaned = cleaned.substring(0, end);
+        }
+        // 避免以点开头生成隐藏文件或“..”路径
+        while (cleaned.startsWith(".")) {
+            cleaned = cleaned.substring(1);
+        }
+        return cleaned.isEmpty() ? fallback : cleaned;
+    }
+
+    /**
+     * 一个批次的渲染结果
+     */
+    private static final class RenderedBatch {
+        private final List<String> names = new ArrayList<>();
+        private final List<String> contents = new ArrayList<>();
+        private final List<Note> notes;
+        private final String category;
+        private Throwable error;
+
+        RenderedBatch(List<Note> notes, String category) {
+            this.notes = notes;
+            this.category = category;
+        }
+    }
+
+    /**
+     * 并行渲染、顺序写出
+     * 渲染任务完成后把结果放入队列，写线程在提交新批次前或结束时取出结果写入ZIP。
+     * 队列容量等于同时渲染的批次上限，渲染线程放入结果时不会阻塞
+     */
+    private final class RenderPipeline {
+        private final ZipOutputStream zip;
+        private final ExportProgress progress;
+        private final int total;
+        private final int maxInFlight = Math.max(2, renderPool.getParallelism() * 2);
+        private final BlockingQueue<RenderedBatch> completed = new ArrayBlockingQueue<>(maxInFlight);
+        private final List<IndexEntry> entries = new ArrayList<>();
+        private int inFlight;
+        private int written;
+
+        RenderPipeline(ZipOutputStream zip, ExportProgress progress, int total) {
+            this.zip = zip;
+            this.progress = progress;
+            this.total = total;
+        }
+
+        void submit(List<Note> notes, String folder, String categoryName) throws IOException {
+            while (inFlight >= maxInFlight) {
+                writeNext();
+            }
+            RenderedBatch batch = new RenderedBatch(notes, folder);
+            renderPool.execute(() -> {
+                try {
+                    for (Note note : notes) {
+                        batch.names.add(folder + "/" + safeName(note.getTitle(), "无标题笔记") + "_" + note.getNoteId() + getEntryExtension());
+                        batch.contents.add(renderNote(note, categoryName));
+                    }
+                } catch (Throwable t) {
+                    batch.error = t;
+                }
+                completed.add(batch);
+            });
+            inFlight++;
+        }
+
+        void drain() throws IOException {
+            while (inFlight > 0) {
+                writeNext();
+            }
+        }
+
+        private void writeNext() throws IOException {
+            RenderedBatch batch;
+            try {
+                batch = completed.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("导出被中断", e);
+            }
+            inFlight--;
+            if (batch.error != null) {
+                throw new IOException("渲染笔记失败", batch.error);
+            }
+            for (int i = 0; i < batch.names.size(); i++) {
+                Note note = batch.notes.get(i);
+                writeEntry(zip, batch.names.get(i), batch.contents.get(i), note.getUpdatedAt());
+                entries.add(new IndexEntry(batch.names.get(i), displayTitle(note), batch.category));
+                progress.update(++written, total);
+            }
+        }
+    }
+}
@@ -2,14 +2,17 @@ package com.example.backend.mapper;
 
 import com.example.backend.model.Category;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
 
 @Mapper
 public interface CategoryMapper {
     List<Category> findByUserId(Integer userId);
+    List<Category> findByUserIdWithCounts(Integer userId);
     Category findById(Integer categoryId);
+    Integer findOwnerId(Integer categoryId);
     int insert(Category category);
     int update(Category category);
-    int delete(Integer categoryId);
+    int delete(@Param("categoryId") Integer categoryId, @Param("userId") Integer userId);
 }
\ No newline at end of file
@@ -1,20 +1,55 @@
 package com.example.backend.mapper;
 
 import com.example.backend.model.Note;
+import com.example.backend.model.NoteSummary;
+import com.example.backend.model.NoteTombstone;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Mapper
 public interface NoteMapper {
     List<Note> findByUserId(Map<String, Object> params);
-    List<Note> findByUserIdAndCategoryId(Integer userId, Integer categoryId);
+    List<Note> findByUserIdAndCategoryId(Map<String, Object> params);
+    List<NoteSummary> findSummaries(Map<String, Object> params);
     Note findById(Integer noteId);
+    Note findStamp(Integer noteId);
+    Integer findOwnerId(Integer noteId);
     List<Note> searchNotes(Map<String, Object> params);
+
+    int countCompressed(@Param("userId") Integer userId, @Param("categoryId") Integer categoryId,
+                        @Param("isArchived") Boolean isArchived, @Param("maxCount") int maxCount);
+    List<Note> findByIds(@Param("userId") Integer userId, @Param("noteIds") List<Integer> noteIds);
+    void scanByUserId(@Param("userId") Integer userId, ResultHandler<Note> handler);
+    int countByUserId(@Param("userId") Integer userId);
+    List<Note> findExportBatch(@Param("userId") Integer userId, @Param("beforeId") Integer beforeId, @Param("limit") int limit);
+    List<Map<String, Object>> findIndexFingerprints();
+    List<Note> findUncompressedContent(@Param("afterId") int afterId, @Param("minBytes") int minBytes, @Param("limit") int limit);
+    int compressContent(@Param("noteId") Integer noteId, @Param("changeSeq") Long changeSeq, @Param("storedContent") String storedContent);
     int insert(Note note);
     int update(Note note);
-    int delete(Integer noteId);
-    int pinNote(Integer noteId, Boolean isPinned);
-    int archiveNote(Integer noteId, Boolean isArchived);
+    Note findWithoutContent(@Param("noteId") Integer noteId, @Param("userId") Integer userId);
+    Note findContentForUpdate(@Param("noteId") Integer noteId, @Param("userId") Integer userId);
+    int patch(@Param("userId") Integer userId, @Param("note") Note note, @Param("fields") Set<String> fields);
+    int delete(@Param("noteId") Integer noteId, @Param("userId") Integer userId);
+    int pinNote(@Param("noteId") Integer noteId, @Param("userId") Integer userId, @Param("isPinned") Boolean isPinned);
+    int archiveNote(@Param("noteId") Integer noteId, @Param("userId") Integer userId, @Param("isArchived") Boolean isArchived);
+    List<Integer> findIdsByCategory(@Param("userId") Integer userId, @Param("categoryId") Integer categoryId);
+    List<Integer> findOwnedIds(@Param("userId") Integer userId, @Param("noteIds") Collection<Integer> noteIds);
+    int batchPin(@Param("userId") Integer userId, @Param("noteIds") Collection<Integer> noteIds, @Param("isPinned") Boolean isPinned);
+    int batchArchive(@Param("userId") Integer userId, @Param("noteIds") Collection<Integer> noteIds, @Param("isArchived") Boolean isArchived);
+    int batchMove(@Param("userId") Integer userId, @Param("noteIds") Collection<Integer> noteIds, @Param("categoryId") Integer categoryId);
+    int batchDelete(@Param("userId") Integer userId, @Param("noteIds") Collection<Integer> noteIds);
+    int insertTombstone(@Param("noteId") Integer noteId, @Param("userId") Integer userId);
+    int insertTombstones(@Param("userId") Integer userId, @Param("noteIds") Collection<Integer> noteIds);
+    int advanceChangeSeq(@Param("userId") Integer userId);
+    List<Note> findChangedSince(@Param("userId") Integer userId, @Param("changeSeq") long changeSeq,
+                                @Param("noteId") int noteId, @Param("limit") int limit);
+    List<NoteTombstone> findTombstonesSince(@Param("userId") Integer userId, @Param("changeSeq") long changeSeq,
+                                            @Param("noteId") int noteId, @Param("limit") int limit);
 }
\ No newline at end of file
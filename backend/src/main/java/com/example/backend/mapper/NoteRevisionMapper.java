@@ -0,0 +1,19 @@
+package com.example.backend.mapper;
+
+import com.example.backend.model.NoteRevision;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Date;
+import java.util.List;
+
+@Mapper
+public interface NoteRevisionMapper {
+    int insertBatch(@Param("revisions") List<NoteRevision> revisions);
+    List<NoteRevision> findByNoteId(@Param("noteId") Integer noteId, @Param("userId") Integer userId,
+                                    @Param("beforeRevisionNo") Integer beforeRevisionNo, @Param("limit") int limit);
+    List<NoteRevision> findChain(@Param("noteId") Integer noteId, @Param("userId") Integer userId,
+                                 @Param("revisionNo") Integer revisionNo);
+    int pruneExpired(@Param("cutoff") Date cutoff, @Param("maxRevisions") int maxRevisions);
+    int pruneDeleted(@Param("cutoff") Date cutoff);
+}
@@ -0,0 +1,20 @@
+package com.example.backend.mapper;
+
+import com.example.backend.model.NoteStatsBucket;
+import com.example.backend.model.dto.NoteStats;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Mapper
+public interface NoteStatsMapper {
+    int addNoteCounts(@Param("userId") Integer userId, @Param("noteIds") Collection<Integer> noteIds, @Param("sign") int sign);
+    int addDailyCreated(@Param("userId") Integer userId, @Param("noteId") Integer noteId);
+    int mergeIntoUncategorized(@Param("userId") Integer userId, @Param("categoryId") Integer categoryId);
+    int deleteCategory(@Param("userId") Integer userId, @Param("categoryId") Integer categoryId);
+    List<NoteStatsBucket> findByUserId(@Param("userId") Integer userId);
+    List<NoteStats.DayCount> findDailyActivity(@Param("userId") Integer userId, @Param("since") LocalDate since);
+}
@@ -11,5 +11,6 @@ public interface UserMapper {
     User findById(@Param("id") Long id);
     int insert(User user);
     int update(User user);
+    int updatePasswordHash(@Param("id") Long id, @Param("passwordHash") String passwordHash);
     int delete(@Param("id") Long id);
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.example.backend.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 连接池指标：获取连接的等待时间、连接占用时间、获取超时次数，以及活跃、空闲和等待中的线程数
+ */
+public class HikariMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    private final MetricsRegistry metrics;
+
+    public HikariMetricsTrackerFactory(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        metrics.gauge("hikari_connections_active", "正在使用的连接数", poolStats::getActiveConnections, "pool", poolName);
+        metrics.gauge("hikari_connections_idle", "空闲连接数", poolStats::getIdleConnections, "pool", poolName);
+        metrics.gauge("hikari_connections_total", "连接总数", poolStats::getTotalConnections, "pool", poolName);
+        metrics.gauge("hikari_connections_pending", "等待获取连接的线程数", poolStats::getPendingThreads, "pool", poolName);
+        metrics.gauge("hikari_connections_max", "连接数上限", poolStats::getMaxConnections, "pool", poolName);
+        LatencyHistogram acquire = metrics.timer("hikari_connection_acquire_seconds", "获取连接的等待时间", "pool", poolName);
+        LatencyHistogram usage = metrics.timer("hikari_connection_usage_seconds", "连接从借出到归还的时间", "pool", poolName);
+        LatencyHistogram creation = metrics.timer("hikari_connection_creation_seconds", "建立新连接的耗时", "pool", poolName);
+        LongAdder timeouts = metrics.counter("hikari_connection_timeout_total", "获取连接超时的次数", "pool", poolName);
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquire.record(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usage.record(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+            }
+
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                creation.record(TimeUnit.MILLISECONDS.toNanos(connectionCreatedMillis));
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.backend.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的延迟直方图，桶按对数-线性划分（与HdrHistogram相同的思路）：
+ * 每个2的幂区间再等分为SUB_BUCKETS个线性子桶，相对误差约为1/SUB_BUCKETS，数值范围从1纳秒到约68秒。
+ * 滑动窗口由若干个时间片组成，记录时只写当前时间片，过期的时间片在下一次写入时清零复用；
+ * 分位数只统计窗口内的时间片，累计次数和总耗时从启动开始计算
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 超过2^36纳秒（约68秒）的值计入最后一个桶
+    private static final int MAX_EXPONENT = 36;
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    /**
+     * 一个时间片，epoch为时间片序号
+     */
+    private static final class Slice {
+        private final AtomicLong epoch = new AtomicLong(-1);
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+        private final AtomicLong max = new AtomicLong();
+    }
+
+    private final Slice[] slices;
+    private final long sliceNanos;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    /**
+     * @param windowSeconds 分位数统计的窗口长度
+     * @param sliceCount    窗口划分的时间片数，时间片越多窗口滑动越平滑
+     */
+    public LatencyHistogram(int windowSeconds, int sliceCount) {
+        this.slices = new Slice[Math.max(2, sliceCount)];
+        for (int i = 0; i < slices.length; i++) {
+            slices[i] = new Slice();
+        }
+        this.sliceNanos = Math.max(1L, windowSeconds) * 1_000_000_000L / slices.length;
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0L, Math.min(nanos, MAX_VALUE));
+        long epoch = System.nanoTime() / sliceNanos;
+        Slice slice = slices[(int) (epoch % slices.length)];
+        long current = slice.epoch.get();
+        if (current < epoch && slice.epoch.compareAndSet(current, epoch)) {
+            // 复用过期的时间片；清零期间并发写入的少量样本可能丢失，换取写入路径无锁
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                slice.counts.set(i, 0);
+            }
+            slice.max.set(0);
+        }
+        slice.counts.incrementAndGet(bucketIndex(value));
+        slice.max.accumulateAndGet(value, Math::max);
+        count.increment();
+        sumNanos.add(value);
+    }
+
+    /**
+     * 启动以来的记录次数
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 启动以来的总耗时（纳秒）
+     */
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+
+    /**
+     * 窗口内数据的快照，分位数在快照上计算
+     */
+    public Snapshot snapshot() {
+        long[] merged = new long[BUCKET_COUNT];
+        long total = 0;
+        long max = 0;
+        long oldest = System.nanoTime() / sliceNanos - slices.length + 1;
+        for (Slice slice : slices) {
+            if (slice.epoch.get() < oldest) {
+                continue;
+            }
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                long c = slice.counts.get(i);
+                merged[i] += c;
+                total += c;
+            }
+            max = Math.max(max, slice.max.get());
+        }
+        return new Snapshot(merged, total, max);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    // 桶内的最大值，作为该桶样本的代表值
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long sub = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * 窗口内的直方图快照
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long max;
+
+        Snapshot(long[] counts, long count, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMaxNanos() {
+            return max;
+        }
+
+        /**
+         * 分位数（纳秒），quantile取值0到1，窗口内没有数据时返回0
+         */
+        public long valueAt(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1L, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
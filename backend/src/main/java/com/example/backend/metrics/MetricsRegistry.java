@@ -0,0 +1,209 @@
+package com.example.backend.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 进程内的指标注册表，输出Prometheus文本格式
+ * 计时器是带滑动窗口分位数的LatencyHistogram，以summary类型输出；计数器是LongAdder；
+ * 仪表在输出时读取。同名同标签的指标只创建一次，调用方应缓存返回的对象，热路径上不再查表
+ */
+@Component
+public class MetricsRegistry {
+
+    // summary输出的分位数
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private static final String TYPE_SUMMARY = "summary";
+    private static final String TYPE_COUNTER = "counter";
+    private static final String TYPE_GAUGE = "gauge";
+
+    /**
+     * 同名指标，按标签区分序列
+     */
+    private static final class Family {
+        private final String type;
+        private final String help;
+        private final ConcurrentMap<String, Object> series = new ConcurrentSkipListMap<>();
+
+        Family(String type, String help) {
+            this.type = type;
+            this.help = help;
+        }
+    }
+
+    private final ConcurrentMap<String, Family> families = new ConcurrentSkipListMap<>();
+    // 按前缀批量导出的数值，例如缓存的统计信息
+    private final ConcurrentMap<String, Supplier<Map<String, Object>>> groups = new ConcurrentHashMap<>();
+    private final int windowSeconds;
+    private final int windowSlices;
+
+    public MetricsRegistry(@Value("${metrics.window-seconds:60}") int windowSeconds,
+                           @Value("${metrics.window-slices:6}") int windowSlices) {
+        this.windowSeconds = windowSeconds;
+        this.windowSlices = windowSlices;
+    }
+
+    /**
+     * 计时器，labels按名称、取值交替传入
+     */
+    public LatencyHistogram timer(String name, String help, String... labels) {
+        return (LatencyHistogram) family(name, TYPE_SUMMARY, help).series
+                .computeIfAbsent(labelText(labels), k -> new LatencyHistogram(windowSeconds, windowSlices));
+    }
+
+    public LongAdder counter(String name, String help, String... labels) {
+        return (LongAdder) family(name, TYPE_COUNTER, help).series
+                .computeIfAbsent(labelText(labels), k -> new LongAdder());
+    }
+
+    public void gauge(String name, String help, Supplier<? extends Number> value, String... labels) {
+        family(name, TYPE_GAUGE, help).series.put(labelText(labels), value);
+    }
+
+    /**
+     * 把stats返回的数值项导出为prefix_项名的仪表，项名由驼峰转为下划线，布尔值输出为0或1
+     */
+    public void gauges(String prefix, Supplier<Map<String, Object>> stats) {
+        groups.put(prefix, stats);
+    }
+
+    /**
+     * 按Prometheus文本格式（0.0.4）写出全部指标，时间单位为秒
+     */
+    public void writePrometheus(Writer out) throws IOException {
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+            if (TYPE_SUMMARY.equals(family.type)) {
+                writeSummary(out, name, family);
+                continue;
+            }
+            writeHeader(out, name, family.type, family.help);
+            for (Map.Entry<String, Object> series : family.series.entrySet()) {
+                Object metric = series.getValue();
+                Object value = metric instanceof LongAdder ? ((LongAdder) metric).sum() : ((Supplier<?>) metric).get();
+                writeSample(out, name, series.getKey(), value instanceof Number ? ((Number) value).doubleValue() : Double.NaN);
+            }
+        }
+        for (Map.Entry<String, Supplier<Map<String, Object>>> group : groups.entrySet()) {
+            for (Map.Entry<String, Object> stat : group.getValue().get().entrySet()) {
+                Object value = stat.getValue();
+                double number;
+                if (value instanceof Number) {
+                    number = ((Number) value).doubleValue();
+                } else if (value instanceof Boolean) {
+                    number = (Boolean) value ? 1 : 0;
+                } else {
+                    continue;
+                }
+                String name = group.getKey() + "_" + snakeCase(stat.getKey());
+                writeHeader(out, name, TYPE_GAUGE, null);
+                writeSample(out, name, "", number);
+            }
+        }
+    }
+
+    private void writeSummary(Writer out, String name, Family family) throws IOException {
+        writeHeader(out, name, TYPE_SUMMARY, family.help);
+        StringBuilder maxLines = new StringBuilder();
+        for (Map.Entry<String, Object> series : family.series.entrySet()) {
+            String labels = series.getKey();
+            LatencyHistogram histogram = (LatencyHistogram) series.getValue();
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            for (double quantile : QUANTILES) {
+                String quantileLabel = "quantile=\"" + quantile + "\"";
+                String withQuantile = labels.isEmpty()
+                        ? "{" + quantileLabel + "}"
+                        : labels.substring(0, labels.length() - 1) + "," + quantileLabel + "}";
+                writeSample(out, name, withQuantile, snapshot.valueAt(quantile) / NANOS_PER_SECOND);
+            }
+            writeSample(out, name + "_sum", labels, histogram.getSumNanos() / NANOS_PER_SECOND);
+            writeSample(out, name + "_count", labels, histogram.getCount());
+            maxLines.append(name).append("_max").append(labels).append(' ')
+                    .append(format(snapshot.getMaxNanos() / NANOS_PER_SECOND)).append('\n');
+        }
+        // 窗口内的最大值不属于summary的标准序列，单独作为仪表输出
+        writeHeader(out, name + "_max", TYPE_GAUGE, null);
+        out.write(maxLines.toString());
+    }
+
+    private Family family(String name, String type, String help) {
+        Family family = families.computeIfAbsent(name, k -> new Family(type, help));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("指标" + name + "已注册为" + family.type);
+        }
+        return family;
+    }
+
+    private static void writeHeader(Writer out, String name, String type, String help) throws IOException {
+        if (help != null) {
+            out.write("# HELP " + name + " " + help.replace("\\", "\\\\").replace("\n", "\\n") + "\n");
+        }
+        out.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static void writeSample(Writer out, String name, String labels, double value) throws IOException {
+        out.write(name);
+        out.write(labels);
+        out.write(' ');
+        out.write(format(value));
+        out.write('\n');
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    // 标签按传入顺序输出，调用方对同一指标应使用相同的标签顺序
+    private static String labelText(String... labels) {
+        if (labels.length == 0) {
+            return "";
+        }
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("标签必须按名称、取值成对传入");
+        }
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            String value = labels[i + 1] != null ? labels[i + 1] : "";
+            sb.append(labels[i]).append("=\"")
+                    .append(value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                    .append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String snakeCase(String key) {
+        StringBuilder sb = new StringBuilder(key.length() + 8);
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (Character.isUpperCase(c)) {
+                sb.append('_').append(Character.toLowerCase(c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+}
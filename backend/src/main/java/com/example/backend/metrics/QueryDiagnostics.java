@@ -0,0 +1,457 @@
+package com.example.backend.metrics;
+
+import com.example.backend.model.dto.QueryReport;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQL诊断：统计每个HTTP请求执行的语句，标记超出语句预算、同一语句执行多次（N+1）或参数完全相同的重复执行；
+ * 超过耗时阈值的语句在后台线程中执行EXPLAIN。诊断记录写入环形缓冲区，同时以JSON写入结构化日志
+ * 参数值可能是密码哈希、邮箱或便签正文，默认只记录参数类型，实际值只保存在内存中供EXPLAIN使用
+ */
+@Component
+public class QueryDiagnostics {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryDiagnostics.class);
+
+    // EXPLAIN队列的容量，队列满时慢语句只记录不分析
+    private static final int EXPLAIN_QUEUE_CAPACITY = 16;
+    private static final int EXPLAIN_TIMEOUT_SECONDS = 5;
+    private static final int MAX_EXPLAIN_ROWS = 50;
+    // 开启diagnostics.query.log-parameter-values时参数值的最大长度
+    private static final int MAX_PARAMETER_LENGTH = 64;
+
+    /**
+     * 一个HTTP请求中执行的语句
+     */
+    private static final class RequestQueries {
+        private final String request;
+        private int count;
+        private long totalNanos;
+        private final Map<String, Integer> statements = new LinkedHashMap<>();
+        // 语句和绑定的参数值都相同的执行次数，键为(语句名, 参数值列表)，按值比较
+        private final Map<Map.Entry<String, List<Object>>, Integer> executions = new LinkedHashMap<>();
+
+        RequestQueries(String request) {
+            this.request = request;
+        }
+    }
+
+    /**
+     * 在请求线程中记录下的参数绑定调用，EXPLAIN时在后台线程中重放
+     */
+    private static final class BoundParameter {
+        private final Method method;
+        private final Object[] args;
+
+        BoundParameter(Method method, Object[] args) {
+            this.method = method;
+            this.args = args;
+        }
+    }
+
+    private final ThreadLocal<RequestQueries> current = new ThreadLocal<>();
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final boolean logParameterValues;
+    private final int queryBudget;
+    private final int repeatThreshold;
+    private final long slowNanos;
+    private final long explainIntervalMillis;
+    private final AtomicReferenceArray<QueryReport> reports;
+    private final AtomicLong sequence = new AtomicLong();
+    // 每条语句上一次执行EXPLAIN的时间，同一语句在间隔内只分析一次
+    private final ConcurrentMap<String, Long> lastExplained = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor explainExecutor;
+    private final LongAdder slowCount;
+    private final LongAdder flaggedRequestCount;
+
+    public QueryDiagnostics(DataSource dataSource,
+                            ObjectMapper objectMapper,
+                            MetricsRegistry metrics,
+                            @Value("${diagnostics.query.enabled:true}") boolean enabled,
+                            @Value("${diagnostics.query.budget:10}") int queryBudget,
+                            @Value("${diagnostics.query.repeat-threshold:5}") int repeatThreshold,
+                            @Value("${diagnostics.query.slow-ms:200}") long slowMillis,
+                            @Value("${diagnostics.query.explain-interval-seconds:300}") long explainIntervalSeconds,
+                            @Value("${diagnostics.query.ring-size:200}") int ringSize,
+                            @Value("${diagnostics.query.log-parameter-values:false}") boolean logParameterValues) {
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.logParameterValues = logParameterValues;
+        this.queryBudget = queryBudget;
+        this.repeatThreshold = Math.max(2, repeatThreshold);
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowMillis);
+        this.explainIntervalMillis = TimeUnit.SECONDS.toMillis(explainIntervalSeconds);
+        this.reports = new AtomicReferenceArray<>(Math.max(1, ringSize));
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(EXPLAIN_QUEUE_CAPACITY), r -> {
+                    Thread thread = new Thread(r, "query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.slowCount = metrics.counter("query_diagnostics_slow_statements_total", "超过耗时阈值的SQL语句数");
+        this.flaggedRequestCount = metrics.counter("query_diagnostics_flagged_requests_total", "超出语句预算或重复执行语句的请求数");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 请求开始时调用，之后当前线程执行的语句都计入该请求
+     */
+    public void beginRequest(String request) {
+        if (enabled) {
+            current.set(new RequestQueries(request));
+        }
+    }
+
+    /**
+     * 请求结束时调用，超出预算或有重复执行的语句时生成诊断记录
+     */
+    public void endRequest() {
+        RequestQueries queries = current.get();
+        if (queries == null) {
+            return;
+        }
+        current.remove();
+        List<String> reasons = new ArrayList<>(3);
+        if (queries.count > queryBudget) {
+            reasons.add(QueryReport.REASON_OVER_BUDGET);
+        }
+        for (Integer count : queries.statements.values()) {
+            if (count >= repeatThreshold) {
+                reasons.add(QueryReport.REASON_REPEATED);
+                break;
+            }
+        }
+        Map<String, Integer> duplicates = new LinkedHashMap<>();
+        for (Map.Entry<Map.Entry<String, List<Object>>, Integer> e : queries.executions.entrySet()) {
+            if (e.getValue() > 1) {
+                duplicates.merge(e.getKey().getKey(), e.getValue() - 1, Integer::sum);
+            }
+        }
+        if (!duplicates.isEmpty()) {
+            reasons.add(QueryReport.REASON_DUPLICATE);
+        }
+        if (reasons.isEmpty()) {
+            return;
+        }
+        QueryReport report = newReport(QueryReport.TYPE_REQUEST, queries.request);
+        report.setReasons(reasons);
+        report.setQueryCount(queries.count);
+        report.setTotalMillis(queries.totalNanos / 1e6);
+        report.setStatements(queries.statements);
+        report.setDuplicates(duplicates.isEmpty() ? null : duplicates);
+        flaggedRequestCount.increment();
+        publish(report);
+    }
+
+    /**
+     * 语句执行后由MyBatis拦截器调用
+     *
+     * @param boundSql 调用方已有时传入，为null时按需生成
+     */
+    void onStatement(MappedStatement ms, Object parameter, BoundSql boundSql, long elapsedNanos) {
+        String statement = MyBatisMetricsInterceptor.statementName(ms.getId());
+        RequestQueries queries = current.get();
+        BoundSql sql = boundSql;
+        if (queries != null) {
+            queries.count++;
+            queries.totalNanos += elapsedNanos;
+            queries.statements.merge(statement, 1, Integer::sum);
+            try {
+                if (sql == null) {
+                    sql = ms.getBoundSql(parameter);
+                }
+                queries.executions.merge(new AbstractMap.SimpleImmutableEntry<>(statement, parameterValues(ms, parameter, sql)),
+                        1, Integer::sum);
+            } catch (RuntimeException e) {
+                logger.debug("读取语句{}的参数失败: {}", ms.getId(), e.getMessage());
+            }
+        }
+        if (elapsedNanos < slowNanos || !enabled) {
+            return;
+        }
+        slowCount.increment();
+        if (sql == null) {
+            sql = ms.getBoundSql(parameter);
+        }
+        QueryReport report = newReport(QueryReport.TYPE_SLOW_STATEMENT, queries != null ? queries.request : null);
+        report.setStatement(statement);
+        report.setSql(sql.getSql().replaceAll("\\s+", " ").trim());
+        report.setElapsedMillis(elapsedNanos / 1e6);
+        List<BoundParameter> bound = recordParameters(ms, parameter, sql);
+        report.setParameters(describe(bound, logParameterValues));
+        if (bound == null || !claimExplain(statement)) {
+            publish(report);
+            return;
+        }
+        try {
+            explainExecutor.execute(() -> {
+                explain(report, bound);
+                publish(report);
+            });
+        } catch (RejectedExecutionException e) {
+            report.setExplainError("EXPLAIN队列已满");
+            publish(report);
+        }
+    }
+
+    /**
+     * 最近的诊断记录，新的在前
+     */
+    public List<QueryReport> recentReports(int limit) {
+        long last = sequence.get();
+        int size = reports.length();
+        List<QueryReport> result = new ArrayList<>(Math.min(limit, size));
+        for (long seq = last; seq > 0 && seq > last - size && result.size() < limit; seq--) {
+            QueryReport report = reports.get((int) (seq % size));
+            if (report != null && report.getSequence() == seq) {
+                result.add(report);
+            }
+        }
+        return result;
+    }
+
+    public Map<String, Object> settings() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("enabled", enabled);
+        settings.put("queryBudget", queryBudget);
+        settings.put("repeatThreshold", repeatThreshold);
+        settings.put("slowMillis", TimeUnit.NANOSECONDS.toMillis(slowNanos));
+        settings.put("explainIntervalSeconds", TimeUnit.MILLISECONDS.toSeconds(explainIntervalMillis));
+        settings.put("ringSize", reports.length());
+        settings.put("logParameterValues", logParameterValues);
+        return settings;
+    }
+
+    private QueryReport newReport(String type, String request) {
+        QueryReport report = new QueryReport();
+        report.setType(type);
+        report.setTime(new Date());
+        report.setRequest(request);
+        return report;
+    }
+
+    // 写入环形缓冲区和结构化日志
+    private void publish(QueryReport report) {
+        long seq = sequence.incrementAndGet();
+        report.setSequence(seq);
+        reports.set((int) (seq % reports.length()), report);
+        try {
+            logger.warn("{}", objectMapper.writeValueAsString(report));
+        } catch (JsonProcessingException e) {
+            logger.warn("SQL诊断记录序列化失败: {} {}", report.getType(), report.getStatement());
+        }
+    }
+
+    private boolean claimExplain(String statement) {
+        long now = System.currentTimeMillis();
+        Long last = lastExplained.putIfAbsent(statement, now);
+        return last == null || (now - last >= explainIntervalMillis && lastExplained.replace(statement, last, now));
+    }
+
+    /**
+     * 用MyBatis的参数处理器把参数绑定到一个只做记录的PreparedStatement上，
+     * 得到与实际执行相同的参数值（包括类型处理器的转换）。失败时返回null
+     */
+    private List<BoundParameter> recordParameters(MappedStatement ms, Object parameter, BoundSql boundSql) {
+        List<BoundParameter> bound = new ArrayList<>();
+        PreparedStatement recorder = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                        bound.add(new BoundParameter(method, args.clone()));
+                    }
+                    return defaultValue(method.getReturnType());
+                });
+        try {
+            ms.getConfiguration().newParameterHandler(ms, parameter, boundSql).setParameters(recorder);
+            return bound;
+        } catch (RuntimeException | SQLException e) {
+            logger.debug("记录语句{}的参数失败: {}", ms.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 按与DefaultParameterHandler相同的规则读取语句绑定的参数值，不经过类型处理器，
+     * 用于判断同一请求中参数完全相同的重复执行
+     */
+    private static List<Object> parameterValues(MappedStatement ms, Object parameter, BoundSql boundSql) {
+        List<ParameterMapping> mappings = boundSql.getParameterMappings();
+        List<Object> values = new ArrayList<>(mappings.size());
+        TypeHandlerRegistry registry = ms.getConfiguration().getTypeHandlerRegistry();
+        MetaObject meta = null;
+        for (ParameterMapping mapping : mappings) {
+            if (mapping.getMode() == ParameterMode.OUT) {
+                continue;
+            }
+            String property = mapping.getProperty();
+            if (boundSql.hasAdditionalParameter(property)) {
+                values.add(boundSql.getAdditionalParameter(property));
+            } else if (parameter == null || registry.hasTypeHandler(parameter.getClass())) {
+                values.add(parameter);
+            } else {
+                if (meta == null) {
+                    meta = ms.getConfiguration().newMetaObject(parameter);
+                }
+                values.add(meta.getValue(property));
+            }
+        }
+        return values;
+    }
+
+    // 默认只输出参数类型（setString输出String），开启后输出截断的参数值
+    private static List<String> describe(List<BoundParameter> bound, boolean includeValues) {
+        if (bound == null) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(bound.size());
+        for (BoundParameter parameter : bound) {
+            String name = parameter.method.getName();
+            if (name.equals("setNull")) {
+                values.add("NULL");
+            } else if (!includeValues) {
+                values.add(name.substring(3));
+            } else {
+                String value = String.valueOf(parameter.args[1]);
+                values.add(value.length() > MAX_PARAMETER_LENGTH ? value.substring(0, MAX_PARAMETER_LENGTH) + "..." : value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 用记录下来的参数重新绑定后执行EXPLAIN，只对查询和DML语句执行
+     */
+    private void explain(QueryReport report, List<BoundParameter> bound) {
+        String sql = report.getSql().trim();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        if (!isExplainable(sql)) {
+            report.setExplain(rows);
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql)) {
+            ps.setQueryTimeout(EXPLAIN_TIMEOUT_SECONDS);
+            bind(ps, bound);
+            try (ResultSet rs = ps.executeQuery()) {
+                readRows(rs, rows);
+            }
+            report.setExplain(rows);
+        } catch (SQLException | RuntimeException e) {
+            report.setExplainError(e.getMessage());
+        }
+    }
+
+    private static boolean isExplainable(String sql) {
+        String lower = sql.toLowerCase(Locale.ROOT);
+        return lower.startsWith("select") || lower.startsWith("update") || lower.startsWith("delete")
+                || lower.startsWith("insert") || lower.startsWith("replace") || lower.startsWith("with");
+    }
+
+    // 按记录时的下标重放参数
+    private static void bind(PreparedStatement ps, List<BoundParameter> bound) throws SQLException {
+        for (BoundParameter parameter : bound) {
+            try {
+                parameter.method.invoke(ps, parameter.args);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof SQLException) {
+                    throw (SQLException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    private static void readRows(ResultSet rs, List<Map<String, Object>> rows) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        while (rs.next() && rows.size() < MAX_EXPLAIN_ROWS) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                Object value = rs.getObject(i);
+                row.put(meta.getColumnLabel(i), value instanceof Number || value instanceof Boolean || value == null
+                        ? value : String.valueOf(value));
+            }
+            rows.add(Collections.unmodifiableMap(row));
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+}
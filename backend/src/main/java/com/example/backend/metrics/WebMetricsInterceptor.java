@@ -0,0 +1,58 @@
+package com.example.backend.metrics;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 记录每个控制器方法的处理耗时和按状态码区分的请求数
+ * 异步请求（流式导出、SSE）从第一次分派开始计时，到异步处理完成后的最后一次分派结束
+ */
+@Component
+public class WebMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = WebMetricsInterceptor.class.getName() + ".start";
+
+    private final MetricsRegistry metrics;
+    // 每个控制器方法的计时器，避免每个请求拼接标签查表
+    private final ConcurrentMap<Method, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    public WebMetricsInterceptor(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (!(start instanceof Long) || !(handler instanceof HandlerMethod)) {
+            return;
+        }
+        long elapsed = System.nanoTime() - (Long) start;
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        String name = handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+        timers.computeIfAbsent(handlerMethod.getMethod(), m -> metrics.timer("http_server_requests_seconds",
+                "控制器方法的处理耗时", "handler", name)).record(elapsed);
+        // 未被异常处理器转换的异常此时状态码可能仍是200，按500统计
+        int status = ex != null && response.getStatus() < 400 ? 500 : response.getStatus();
+        String httpMethod = request.getMethod();
+        counters.computeIfAbsent(name + " " + httpMethod + " " + status, k -> metrics.counter("http_server_requests_total",
+                "按控制器方法和状态码统计的请求数", "handler", name, "method", httpMethod, "status", String.valueOf(status)))
+                .increment();
+    }
+}
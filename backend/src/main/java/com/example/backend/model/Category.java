@@ -1,5 +1,7 @@
 package com.example.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.Date;
 
 public class Category {
@@ -8,6 +10,11 @@ public class Category {
     private String name;
     private String color;
     private Date createdAt;
+    // 分类下未归档和已归档的便签数，只在请求带计数的分类列表时填充
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer noteCount;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer archivedCount;
 
     // Getters and Setters
     public Integer getCategoryId() {
@@ -49,4 +56,20 @@ public class Category {
     public void setCreatedAt(Date createdAt) {
         this.createdAt = createdAt;
     }
+
+    public Integer getNoteCount() {
+        return noteCount;
+    }
+
+    public void setNoteCount(Integer noteCount) {
+        this.noteCount = noteCount;
+    }
+
+    public Integer getArchivedCount() {
+        return archivedCount;
+    }
+
+    public void setArchivedCount(Integer archivedCount) {
+        this.archivedCount = archivedCount;
+    }
 }
\ No newline at end of file
@@ -13,6 +13,11 @@ public class Note {
     private Date updatedAt;
     private Boolean isPinned;
     private Boolean isArchived;
+    private String contentPreview;
+    private Integer contentLength;
+    private Long changeSeq;
+    // 最新的历史版本号
+    private Integer revisionNo;
 
     // Getters and Setters
     public Integer getNoteId() {
@@ -94,4 +99,36 @@ public class Note {
     public void setIsArchived(Boolean isArchived) {
         this.isArchived = isArchived;
     }
+
+    public String getContentPreview() {
+        return contentPreview;
+    }
+
+    public void setContentPreview(String contentPreview) {
+        this.contentPreview = contentPreview;
+    }
+
+    public Integer getContentLength() {
+        return contentLength;
+    }
+
+    public void setContentLength(Integer contentLength) {
+        this.contentLength = contentLength;
+    }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
+    public Integer getRevisionNo() {
+        return revisionNo;
+    }
+
+    public void setRevisionNo(Integer revisionNo) {
+        this.revisionNo = revisionNo;
+    }
 }
\ No newline at end of file
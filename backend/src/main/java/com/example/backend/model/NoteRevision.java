@@ -0,0 +1,101 @@
+package com.example.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Date;
+
+/**
+ * 便签的一个历史版本
+ * 每隔若干个版本保存一次完整快照，其余版本只保存相对上一版本的正文编辑，
+ * 还原时从最近的快照开始依次应用编辑
+ */
+public class NoteRevision {
+    private Integer noteId;
+    private Integer userId;
+    private Integer revisionNo;
+    private Boolean snapshot;
+    private String title;
+    // 快照时为完整正文，否则为序列化的文本编辑；还原后的正文放在content中
+    private String payload;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String content;
+    private Integer contentLength;
+    private Date createdAt;
+
+    // Getters and Setters
+    public Integer getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(Integer noteId) {
+        this.noteId = noteId;
+    }
+
+    @JsonIgnore
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public Integer getRevisionNo() {
+        return revisionNo;
+    }
+
+    public void setRevisionNo(Integer revisionNo) {
+        this.revisionNo = revisionNo;
+    }
+
+    @JsonIgnore
+    public Boolean getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(Boolean snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    @JsonIgnore
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public Integer getContentLength() {
+        return contentLength;
+    }
+
+    public void setContentLength(Integer contentLength) {
+        this.contentLength = contentLength;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.backend.model;
+
+/**
+ * 便签统计的一个分桶：某个分类下归档、置顶状态相同的便签数
+ */
+public class NoteStatsBucket {
+    // 0表示未分类
+    private Integer categoryId;
+    private Boolean isArchived;
+    private Boolean isPinned;
+    private Integer noteCount;
+
+    // Getters and Setters
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Integer categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public Boolean getIsArchived() {
+        return isArchived;
+    }
+
+    public void setIsArchived(Boolean isArchived) {
+        this.isArchived = isArchived;
+    }
+
+    public Boolean getIsPinned() {
+        return isPinned;
+    }
+
+    public void setIsPinned(Boolean isPinned) {
+        this.isPinned = isPinned;
+    }
+
+    public Integer getNoteCount() {
+        return noteCount;
+    }
+
+    public void setNoteCount(Integer noteCount) {
+        this.noteCount = noteCount;
+    }
+}
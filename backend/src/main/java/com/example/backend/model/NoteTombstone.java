@@ -0,0 +1,37 @@
+package com.example.backend.model;
+
+import java.util.Date;
+
+/**
+ * 已删除便签的记录，增量同步时下发给客户端
+ */
+public class NoteTombstone {
+    private Integer noteId;
+    private Long changeSeq;
+    private Date deletedAt;
+
+    // Getters and Setters
+    public Integer getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(Integer noteId) {
+        this.noteId = noteId;
+    }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
+    public Date getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(Date deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+}
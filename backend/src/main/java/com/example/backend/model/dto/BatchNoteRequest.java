@@ -0,0 +1,46 @@
+package com.example.backend.model.dto;
+
+import java.util.List;
+
+/**
+ * 批量便签操作请求，不同操作只使用其中对应的字段
+ */
+public class BatchNoteRequest {
+    private List<Integer> noteIds;
+    private Boolean isPinned;
+    private Boolean isArchived;
+    private Integer categoryId;
+
+    // Getters and Setters
+    public List<Integer> getNoteIds() {
+        return noteIds;
+    }
+
+    public void setNoteIds(List<Integer> noteIds) {
+        this.noteIds = noteIds;
+    }
+
+    public Boolean getIsPinned() {
+        return isPinned;
+    }
+
+    public void setIsPinned(Boolean isPinned) {
+        this.isPinned = isPinned;
+    }
+
+    public Boolean getIsArchived() {
+        return isArchived;
+    }
+
+    public void setIsArchived(Boolean isArchived) {
+        this.isArchived = isArchived;
+    }
+
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Integer categoryId) {
+        this.categoryId = categoryId;
+    }
+}
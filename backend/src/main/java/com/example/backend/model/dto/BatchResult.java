@@ -0,0 +1,63 @@
+package com.example.backend.model.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量操作结果，按请求中的顺序给出每个便签ID的处理结果
+ */
+public class BatchResult {
+
+    public static final String OK = "ok";
+    // 便签不存在或不属于当前用户
+    public static final String NOT_FOUND = "not_found";
+
+    private int affected;
+    private List<Item> results = new ArrayList<>();
+
+    public static class Item {
+        private Integer noteId;
+        private String status;
+
+        public Item() {
+        }
+
+        public Item(Integer noteId, String status) {
+            this.noteId = noteId;
+            this.status = status;
+        }
+
+        public Integer getNoteId() {
+            return noteId;
+        }
+
+        public void setNoteId(Integer noteId) {
+            this.noteId = noteId;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+    }
+
+    // Getters and Setters
+    public int getAffected() {
+        return affected;
+    }
+
+    public void setAffected(int affected) {
+        this.affected = affected;
+    }
+
+    public List<Item> getResults() {
+        return results;
+    }
+
+    public void setResults(List<Item> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.backend.model.dto;
+
+import com.example.backend.model.Note;
+import com.example.backend.model.NoteTombstone;
+
+import java.util.List;
+
+/**
+ * 增量同步结果
+ * notes为新建或修改过的便签，deleted为已删除的便签，按变更序号升序排列；
+ * hasMore为true时应立即用nextToken继续拉取，否则保存nextToken供下次同步使用
+ */
+public class NoteChanges {
+    private List<Note> notes;
+    private List<NoteTombstone> deleted;
+    private String nextToken;
+    private boolean hasMore;
+
+    public NoteChanges() {
+    }
+
+    public NoteChanges(List<Note> notes, List<NoteTombstone> deleted, String nextToken, boolean hasMore) {
+        this.notes = notes;
+        this.deleted = deleted;
+        this.nextToken = nextToken;
+        this.hasMore = hasMore;
+    }
+
+    // Getters and Setters
+    public List<Note> getNotes() {
+        return notes;
+    }
+
+    public void setNotes(List<Note> notes) {
+        this.notes = notes;
+    }
+
+    public List<NoteTombstone> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<NoteTombstone> deleted) {
+        this.deleted = deleted;
+    }
+
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    public void setNextToken(String nextToken) {
+        this.nextToken = nextToken;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
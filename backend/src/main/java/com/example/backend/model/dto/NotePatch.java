@@ -0,0 +1,147 @@
+package com.example.backend.model.dto;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 便签的部分更新请求
+ * fields列出要修改的字段，只有列出的字段会被写入；正文可以整体替换(content)，
+ * 也可以基于baseHash对应的版本提交一组文本编辑(edits)，此时只需上传改动的部分
+ */
+public class NotePatch {
+
+    public static final String TITLE = "title";
+    public static final String CONTENT = "content";
+    public static final String COLOR = "color";
+    public static final String CATEGORY_ID = "categoryId";
+    public static final String IS_PINNED = "isPinned";
+    public static final String IS_ARCHIVED = "isArchived";
+
+    private Set<String> fields;
+    private String title;
+    private String content;
+    private String color;
+    private Integer categoryId;
+    private Boolean isPinned;
+    private Boolean isArchived;
+    // 编辑所基于的正文的SHA-256（UTF-8编码后计算，小写十六进制）
+    private String baseHash;
+    private List<TextEdit> edits;
+
+    /**
+     * 一处文本编辑：从offset开始删除delete个字符，再插入insert
+     * offset和delete以UTF-16代码单元计（与JavaScript字符串下标一致），都基于编辑前的正文；
+     * 多处编辑必须按offset升序排列且互不重叠
+     */
+    public static class TextEdit {
+        private int offset;
+        private int delete;
+        private String insert;
+
+        public TextEdit() {
+        }
+
+        public TextEdit(int offset, int delete, String insert) {
+            this.offset = offset;
+            this.delete = delete;
+            this.insert = insert;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public void setOffset(int offset) {
+            this.offset = offset;
+        }
+
+        public int getDelete() {
+            return delete;
+        }
+
+        public void setDelete(int delete) {
+            this.delete = delete;
+        }
+
+        public String getInsert() {
+            return insert;
+        }
+
+        public void setInsert(String insert) {
+            this.insert = insert;
+        }
+    }
+
+    // Getters and Setters
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    public void setFields(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public void setColor(String color) {
+        this.color = color;
+    }
+
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Integer categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public Boolean getIsPinned() {
+        return isPinned;
+    }
+
+    public void setIsPinned(Boolean isPinned) {
+        this.isPinned = isPinned;
+    }
+
+    public Boolean getIsArchived() {
+        return isArchived;
+    }
+
+    public void setIsArchived(Boolean isArchived) {
+        this.isArchived = isArchived;
+    }
+
+    public String getBaseHash() {
+        return baseHash;
+    }
+
+    public void setBaseHash(String baseHash) {
+        this.baseHash = baseHash;
+    }
+
+    public List<TextEdit> getEdits() {
+        return edits;
+    }
+
+    public void setEdits(List<TextEdit> edits) {
+        this.edits = edits;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.backend.model.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 用户的便签统计，由增量维护的计数表汇总得到，不扫描便签表
+ * 除archived外的计数都只包含未归档的便签，与列表页的展示一致
+ */
+public class NoteStats {
+    private int total;
+    private int archived;
+    private int pinned;
+    private int uncategorized;
+    private List<CategoryCount> categories = new ArrayList<>();
+    private List<DayCount> activity = new ArrayList<>();
+
+    /**
+     * 单个分类的便签数
+     */
+    public static class CategoryCount {
+        private Integer categoryId;
+        private int noteCount;
+        private int archivedCount;
+        private int pinnedCount;
+
+        public CategoryCount() {
+        }
+
+        public CategoryCount(Integer categoryId) {
+            this.categoryId = categoryId;
+        }
+
+        public Integer getCategoryId() {
+            return categoryId;
+        }
+
+        public void setCategoryId(Integer categoryId) {
+            this.categoryId = categoryId;
+        }
+
+        public int getNoteCount() {
+            return noteCount;
+        }
+
+        public void setNoteCount(int noteCount) {
+            this.noteCount = noteCount;
+        }
+
+        public int getArchivedCount() {
+            return archivedCount;
+        }
+
+        public void setArchivedCount(int archivedCount) {
+            this.archivedCount = archivedCount;
+        }
+
+        public int getPinnedCount() {
+            return pinnedCount;
+        }
+
+        public void setPinnedCount(int pinnedCount) {
+            this.pinnedCount = pinnedCount;
+        }
+    }
+
+    /**
+     * 某一天新建的便签数，日期格式为yyyy-MM-dd，没有新建便签的日期不返回
+     */
+    public static class DayCount {
+        private String date;
+        private int count;
+
+        public String getDate() {
+            return date;
+        }
+
+        public void setDate(String date) {
+            this.date = date;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+    }
+
+    // Getters and Setters
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getArchived() {
+        return archived;
+    }
+
+    public void setArchived(int archived) {
+        this.archived = archived;
+    }
+
+    public int getPinned() {
+        return pinned;
+    }
+
+    public void setPinned(int pinned) {
+        this.pinned = pinned;
+    }
+
+    public int getUncategorized() {
+        return uncategorized;
+    }
+
+    public void setUncategorized(int uncategorized) {
+        this.uncategorized = uncategorized;
+    }
+
+    public List<CategoryCount> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<CategoryCount> categories) {
+        this.categories = categories;
+    }
+
+    public List<DayCount> getActivity() {
+        return activity;
+    }
+
+    public void setActivity(List<DayCount> activity) {
+        this.activity = activity;
+    }
+}
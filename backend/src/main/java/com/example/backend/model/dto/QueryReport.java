@@ -0,0 +1,163 @@
+package com.example.backend.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQL诊断记录：单条慢语句（附带EXPLAIN结果），或超出语句预算、重复执行同一语句的请求
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class QueryReport {
+
+    public static final String TYPE_SLOW_STATEMENT = "SLOW_STATEMENT";
+    public static final String TYPE_REQUEST = "REQUEST";
+
+    // 请求标记的原因
+    public static final String REASON_OVER_BUDGET = "OVER_BUDGET";
+    public static final String REASON_REPEATED = "REPEATED";
+    public static final String REASON_DUPLICATE = "DUPLICATE";
+
+    private long sequence;
+    private String type;
+    private Date time;
+    // 所在的HTTP请求，例如"PUT /api/notes/5"；后台线程执行的语句为null
+    private String request;
+    private List<String> reasons;
+
+    // 慢语句
+    private String statement;
+    private String sql;
+    private List<String> parameters;
+    private Double elapsedMillis;
+    private List<Map<String, Object>> explain;
+    private String explainError;
+
+    // 请求汇总
+    private Integer queryCount;
+    private Double totalMillis;
+    private Map<String, Integer> statements;
+    private Map<String, Integer> duplicates;
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Date getTime() {
+        return time;
+    }
+
+    public void setTime(Date time) {
+        this.time = time;
+    }
+
+    public String getRequest() {
+        return request;
+    }
+
+    public void setRequest(String request) {
+        this.request = request;
+    }
+
+    public List<String> getReasons() {
+        return reasons;
+    }
+
+    public void setReasons(List<String> reasons) {
+        this.reasons = reasons;
+    }
+
+    public String getStatement() {
+        return statement;
+    }
+
+    public void setStatement(String statement) {
+        this.statement = statement;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public void setSql(String sql) {
+        this.sql = sql;
+    }
+
+    public List<String> getParameters() {
+        return parameters;
+    }
+
+    public void setParameters(List<String> parameters) {
+        this.parameters = parameters;
+    }
+
+    public Double getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(Double elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<Map<String, Object>> getExplain() {
+        return explain;
+    }
+
+    public void setExplain(List<Map<String, Object>> explain) {
+        this.explain = explain;
+    }
+
+    public String getExplainError() {
+        return explainError;
+    }
+
+    public void setExplainError(String explainError) {
+        this.explainError = explainError;
+    }
+
+    public Integer getQueryCount() {
+        return queryCount;
+    }
+
+    public void setQueryCount(Integer queryCount) {
+        this.queryCount = queryCount;
+    }
+
+    public Double getTotalMillis() {
+        return totalMillis;
+    }
+
+    public void setTotalMillis(Double totalMillis) {
+        this.totalMillis = totalMillis;
+    }
+
+    public Map<String, Integer> getStatements() {
+        return statements;
+    }
+
+    public void setStatements(Map<String, Integer> statements) {
+        this.statements = statements;
+    }
+
+    public Map<String, Integer> getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(Map<String, Integer> duplicates) {
+        this.duplicates = duplicates;
+    }
+}
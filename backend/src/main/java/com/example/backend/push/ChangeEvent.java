@@ -0,0 +1,43 @@
+package com.example.backend.push;
+
+import java.util.List;
+
+/**
+ * 推送给客户端的数据变更事件，只包含变更对象的ID，客户端收到后自行拉取（配合ETag/增量同步）
+ */
+public class ChangeEvent {
+
+    public static final String KIND_NOTE = "note";
+    public static final String KIND_CATEGORY = "category";
+
+    public static final String ACTION_UPSERT = "upsert";
+    public static final String ACTION_DELETE = "delete";
+
+    private final String kind;
+    private final String action;
+    private final List<Integer> ids;
+    private final String version;
+
+    public ChangeEvent(String kind, String action, List<Integer> ids, String version) {
+        this.kind = kind;
+        this.action = action;
+        this.ids = ids;
+        this.version = version;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public List<Integer> getIds() {
+        return ids;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.backend.push;
+
+import com.example.backend.util.UserChangeVersions;
+import com.example.backend.util.VirtualThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 进程内的变更事件推送中心
+ * 每个SSE连接是一个订阅者，连接空闲时只占用一个异步请求，不占用Tomcat线程；
+ * 事件先放入订阅者自己的有界缓冲区，缓冲区满（客户端读得太慢）时直接断开该连接，客户端重连后通过增量同步补齐。
+ * 写出是阻塞的Servlet写入，TCP窗口已满的客户端会一直占住写它的线程，所以每个连接的写出在自己的线程上进行
+ * （虚拟线程模式下为虚拟线程），慢连接只拖住自己；单次写出超过send-timeout-ms的连接被放弃，
+ * 卡住的线程等Tomcat的写超时释放
+ */
+@Component
+public class ChangeEventHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeEventHub.class);
+
+    private final ConcurrentHashMap<Integer, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    private ExecutorService writers;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    private UserChangeVersions changeVersions;
+
+    @Value("${push.sse.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${push.sse.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${push.sse.heartbeat-seconds:25}")
+    private long heartbeatSeconds;
+
+    @Value("${push.sse.send-timeout-ms:10000}")
+    private long sendTimeoutMillis;
+
+    @Value("${push.sse.max-connections-per-user:10}")
+    private int maxConnectionsPerUser;
+
+    // 虚拟线程模式下每次写出一个虚拟线程，否则使用按需创建的平台线程
+    @Value("${threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @PostConstruct
+    public void init() {
+        writers = Executors.newCachedThreadPool(
+                VirtualThreads.factoryOr(virtualThreads, "sse-writer", namedThreads("sse-writer")));
+        // 调度线程只负责心跳和检查写出期限，不做任何阻塞写入
+        scheduler = Executors.newSingleThreadScheduledExecutor(namedThreads("sse-scheduler"));
+        scheduler.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        long checkMillis = Math.max(100, sendTimeoutMillis / 4);
+        scheduler.scheduleWithFixedDelay(this::abandonStalledSends, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber subscriber : set) {
+                subscriber.close();
+            }
+        }
+        // 不中断写出线程，已提交的complete()照常执行
+        writers.shutdown();
+    }
+
+    /**
+     * 为用户建立新的推送连接，超过单用户连接上限时断开最早的连接
+     */
+    public SseEmitter subscribe(Integer userId) {
+        return subscribe(userId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(Integer userId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        // 增删订阅者都在compute中完成，避免和最后一个连接断开时移除集合的操作交错
+        Set<Subscriber> set = subscribers.compute(userId, (id, current) -> {
+            Set<Subscriber> updated = current != null ? current : ConcurrentHashMap.newKeySet();
+            updated.add(subscriber);
+            return updated;
+        });
+        connectionCount.incrementAndGet();
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+
+        if (set.size() > maxConnectionsPerUser) {
+            Subscriber oldest = null;
+            for (Subscriber s : set) {
+                if (oldest == null || s.createdAt < oldest.createdAt) {
+                    oldest = s;
+                }
+            }
+            if (oldest != null && oldest != subscriber) {
+                oldest.close();
+            }
+        }
+        // 连接建立后先告诉客户端当前版本号，客户端据此判断是否需要立即同步
+        subscriber.offer(SseEmitter.event().name("ready").data(changeVersions.current(userId)));
+        logger.debug("用户{}建立推送连接，当前连接总数{}", userId, connectionCount.get());
+        return emitter;
+    }
+
+    /**
+     * 发布变更事件；在事务中调用时推迟到提交之后发送，回滚的写入不会推送
+     */
+    public void publish(Integer userId, String kind, String action, Collection<Integer> ids) {
+        if (userId == null || ids == null || ids.isEmpty()) {
+            return;
+        }
+        List<Integer> eventIds = Collections.unmodifiableList(new ArrayList<>(ids));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(userId, kind, action, eventIds);
+                }
+            });
+        } else {
+            deliver(userId, kind, action, eventIds);
+        }
+    }
+
+    public void publish(Integer userId, String kind, String action, Integer id) {
+        publish(userId, kind, action, Collections.singletonList(id));
+    }
+
+    /**
+     * 当前推送连接总数
+     */
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    private void deliver(Integer userId, String kind, String action, List<Integer> ids) {
+        Set<Subscriber> set = subscribers.get(userId);
+        if (set == null || set.isEmpty()) {
+            return;
+        }
+        // 版本号在提交后已经递增，事件带上新版本号，客户端可以直接用它判断本地数据是否最新
+        ChangeEvent event = new ChangeEvent(kind, action, ids, changeVersions.current(userId));
+        // SseEventBuilder在发送时会修改自身状态，每个连接单独构建
+        for (Subscriber subscriber : set) {
+            subscriber.offer(SseEmitter.event().name("change").data(event, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    private void sendHeartbeats() {
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber subscriber : set) {
+                subscriber.offer(SseEmitter.event().comment("ping"));
+            }
+        }
+    }
+
+    private void abandonStalledSends() {
+        long now = System.nanoTime();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber subscriber : set) {
+                long startedAt = subscriber.sendStartedAt;
+                if (startedAt != 0 && now - startedAt > timeoutNanos) {
+                    logger.warn("用户{}的推送连接写出超过{}ms，放弃该连接", subscriber.userId, sendTimeoutMillis);
+                    subscriber.close();
+                }
+            }
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 单个推送连接
+     * 同一时间最多只有一个发送任务在排队或执行，事件按放入顺序写出
+     * sendStartedAt为当前这次写出开始的时间（System.nanoTime），没有在写出时为0
+     */
+    private final class Subscriber {
+        private final Integer userId;
+        private final SseEmitter emitter;
+        private final long createdAt = System.nanoTime();
+        private final BlockingQueue<SseEmitter.SseEventBuilder> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile long sendStartedAt;
+
+        Subscriber(Integer userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                logger.warn("用户{}的推送连接缓冲区已满，断开慢速连接", userId);
+                close();
+                return;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this::drain);
+                } catch (RuntimeException e) {
+                    scheduled.set(false);
+                    close();
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed.get() && (event = buffer.poll()) != null) {
+                    sendStartedAt = System.nanoTime();
+                    emitter.send(event);
+                    sendStartedAt = 0;
+                }
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开
+                logger.debug("用户{}的推送连接写入失败: {}", userId, e.getMessage());
+                close();
+            } finally {
+                sendStartedAt = 0;
+                scheduled.set(false);
+                if (!closed.get() && !buffer.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            buffer.clear();
+            subscribers.computeIfPresent(userId, (id, set) -> {
+                set.remove(this);
+                return set.isEmpty() ? null : set;
+            });
+            connectionCount.decrementAndGet();
+            // complete()与send()在同一个锁上，写出卡住时会一直等待，不能在发布事件或调度的线程上调用
+            try {
+                writers.execute(this::complete);
+            } catch (RejectedExecutionException e) {
+                complete();
+            }
+        }
+
+        private void complete() {
+            try {
+                emitter.complete();
+            } catch (RuntimeException ignored) {
+                // 连接可能已经结束
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.backend.push;
+
+import com.example.backend.config.AuthenticatedUser;
+import com.example.backend.util.TtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * 推送连接的一次性票据
+ * 浏览器的EventSource不能设置请求头，而JWT放在URL中会进入访问日志、代理日志和浏览器历史。
+ * 客户端先带Authorization头换取票据，再用票据建立推送连接；票据只在内存中保存ttl-seconds秒，
+ * 使用一次即失效，并且只能用于GET /api/events。票据保存在签发它的实例上，多实例部署时两个请求需要落到同一实例
+ */
+@Component
+public class SseTicketStore {
+
+    private static final int TICKET_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final TtlCache<String, AuthenticatedUser> tickets;
+    private final long ttlMillis;
+
+    public SseTicketStore(@Value("${push.sse.ticket-ttl-seconds:30}") long ttlSeconds,
+                          @Value("${push.sse.max-tickets:10000}") int maxTickets) {
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.tickets = new TtlCache<>(maxTickets, ttlMillis);
+    }
+
+    /**
+     * 为已认证的用户签发票据
+     */
+    public String issue(AuthenticatedUser user) {
+        byte[] bytes = new byte[TICKET_BYTES];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tickets.put(ticket, new AuthenticatedUser(user.getUserId(), user.getUsername()));
+        return ticket;
+    }
+
+    /**
+     * 兑换票据，票据不存在、已过期或已使用过时返回null
+     */
+    public AuthenticatedUser redeem(String ticket) {
+        return ticket != null ? tickets.take(ticket) : null;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.backend.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 便签全文检索分词器
+ * 拉丁字母/数字按连续片段切成单词，中日韩文字切成单字和相邻二元组(bigram)
+ */
+public final class CjkBigramTokenizer {
+
+    // 单个词条最大长度，超长的片段截断后再入索引
+    private static final int MAX_TERM_LENGTH = 64;
+
+    private CjkBigramTokenizer() {
+    }
+
+    /**
+     * 文档分词：中日韩片段同时产出单字和二元组，保证单字查询也能命中
+     */
+    public static List<String> tokenizeDocument(String text) {
+        List<String> terms = new ArrayList<>();
+        tokenize(text, terms, true);
+        return terms;
+    }
+
+    /**
+     * 查询分词：中日韩片段只在长度为1时使用单字，否则只用二元组，结果更精确
+     */
+    public static List<String> tokenizeQuery(String text) {
+        List<String> terms = new ArrayList<>();
+        tokenize(text, terms, false);
+        return terms;
+    }
+
+    /**
+     * 判断词条是否为拉丁单词（查询时按前缀匹配）
+     */
+    public static boolean isWordTerm(String term) {
+        return !term.isEmpty() && !isCjk(term.codePointAt(0));
+    }
+
+    private static void tokenize(String text, List<String> terms, boolean document) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        StringBuilder word = new StringBuilder();
+        List<Integer> cjkRun = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (isCjk(cp)) {
+                flushWord(word, terms);
+                cjkRun.add(cp);
+            } else if (Character.isLetterOrDigit(cp)) {
+                flushCjk(cjkRun, terms, document);
+                if (word.length() < MAX_TERM_LENGTH) {
+                    word.appendCodePoint(Character.toLowerCase(cp));
+                }
+            } else {
+                flushWord(word, terms);
+                flushCjk(cjkRun, terms, document);
+            }
+        }
+        flushWord(word, terms);
+        flushCjk(cjkRun, terms, document);
+    }
+
+    private static void flushWord(StringBuilder word, List<String> terms) {
+        if (word.length() > 0) {
+            terms.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void flushCjk(List<Integer> run, List<String> terms, boolean document) {
+        if (run.isEmpty()) {
+            return;
+        }
+        if (document || run.size() == 1) {
+            for (int cp : run) {
+                terms.add(new String(Character.toChars(cp)));
+            }
+        }
+        for (int j = 0; j + 1 < run.size(); j++) {
+            StringBuilder bigram = new StringBuilder(4);
+            bigram.appendCodePoint(run.get(j)).appendCodePoint(run.get(j + 1));
+            terms.add(bigram.toString());
+        }
+        run.clear();
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,646 @@
+package com.example.backend.search;
+
+import com.example.backend.mapper.NoteMapper;
+import com.example.backend.model.Note;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 进程内便签倒排索引
+ * 每个用户一份独立索引（词条 -> 便签ID -> 词频），由NoteServiceImpl的写操作增量维护；
+ * 启动时优先从本地快照恢复，只对快照过期的用户回源MySQL重建。
+ * 写操作在事务中调用时推迟到提交之后生效，事务回滚不会在索引中留下数据库里不存在的内容
+ */
+@Component
+public class NoteSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteSearchIndex.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x4E534958;
+    // 版本2起文档长度按标题词数×权重加正文词数计算，旧快照的长度不同，需要重建
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final String SNAPSHOT_FILE = "notes.idx";
+
+    // 标题中的词条权重更高
+    private static final int TITLE_WEIGHT = 3;
+
+    // BM25参数
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final ConcurrentHashMap<Integer, UserIndex> users = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Integer> noteOwners = new ConcurrentHashMap<>();
+    private final Set<Integer> dirtyDuringLoad = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean loading;
+    private volatile boolean ready;
+
+    @Autowired
+    private NoteMapper noteMapper;
+
+    @Value("${note.search.index-dir:data/search-index}")
+    private String indexDir;
+
+    /**
+     * 检索结果：便签ID和相关度得分
+     */
+    public static final class Hit {
+        private final int noteId;
+        private final double score;
+
+        Hit(int noteId, double score) {
+            this.noteId = noteId;
+            this.score = score;
+        }
+
+        public int getNoteId() {
+            return noteId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    // 单篇便签在索引中的元信息和词向量
+    private static final class DocEntry {
+        int noteId;
+        Integer categoryId;
+        boolean archived;
+        boolean pinned;
+        long updatedAt;
+        int length;
+        String[] terms;
+        int[] freqs;
+    }
+
+    // 单个用户的索引，读多写少，用读写锁保护
+    private static final class UserIndex {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final TreeMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+        final Map<Integer, DocEntry> docs = new HashMap<>();
+        long totalLength;
+    }
+
+    /**
+     * 应用启动后在后台线程加载索引，加载完成前检索回退到SQL
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread loader = new Thread(this::load, "note-search-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * 索引是否已可用于检索
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 新增或替换便签的索引
+     */
+    public void index(Note note) {
+        if (note == null || note.getNoteId() == null || note.getUserId() == null) {
+            return;
+        }
+        // 分词在调用时完成，之后调用方再修改Note对象不会影响提交后写入索引的内容
+        DocEntry entry = toEntry(note);
+        Integer userId = note.getUserId();
+        afterCommit(() -> {
+            noteOwners.put(entry.noteId, userId);
+            UserIndex index = users.computeIfAbsent(userId, id -> new UserIndex());
+            index.lock.writeLock().lock();
+            try {
+                removeLocked(index, entry.noteId);
+                addLocked(index, entry);
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+            markDirty(userId);
+        });
+    }
+
+    /**
+     * 从索引中移除便签
+     */
+    public void remove(Integer noteId) {
+        afterCommit(() -> removeNow(noteId));
+    }
+
+    /**
+     * 更新便签所属分类，categoryId为null表示移出分类
+     */
+    public void updateCategory(Integer noteId, Integer categoryId) {
+        afterCommit(() -> updateCategoryNow(noteId, categoryId));
+    }
+
+    /**
+     * 更新置顶/归档状态，参数为null表示不变
+     */
+    public void updateFlags(Integer noteId, Boolean pinned, Boolean archived) {
+        afterCommit(() -> updateFlagsNow(noteId, pinned, archived));
+    }
+
+    // 在事务中调用时推迟到提交之后执行，回滚时丢弃
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void removeNow(Integer noteId) {
+        Integer userId = noteId != null ? noteOwners.remove(noteId) : null;
+        if (userId == null) {
+            return;
+        }
+        UserIndex index = users.get(userId);
+        if (index != null) {
+            index.lock.writeLock().lock();
+            try {
+                removeLocked(index, noteId);
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+        }
+        markDirty(userId);
+    }
+
+    private void updateCategoryNow(Integer noteId, Integer categoryId) {
+        Integer userId = noteId != null ? noteOwners.get(noteId) : null;
+        if (userId == null) {
+            return;
+        }
+        UserIndex index = users.get(userId);
+        if (index != null) {
+            index.lock.writeLock().lock();
+            try {
+                DocEntry entry = index.docs.get(noteId);
+                if (entry != null) {
+                    entry.categoryId = categoryId;
+                    entry.updatedAt = System.currentTimeMillis();
+                }
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+        }
+        markDirty(userId);
+    }
+
+    private void updateFlagsNow(Integer noteId, Boolean pinned, Boolean archived) {
+        Integer userId = noteId != null ? noteOwners.get(noteId) : null;
+        if (userId == null) {
+            return;
+        }
+        UserIndex index = users.get(userId);
+        if (index != null) {
+            index.lock.writeLock().lock();
+            try {
+                DocEntry entry = index.docs.get(noteId);
+                if (entry != null) {
+                    if (pinned != null) {
+                        entry.pinned = pinned;
+                    }
+                    if (archived != null) {
+                        entry.archived = archived;
+                    }
+                    entry.updatedAt = System.currentTimeMillis();
+                }
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+        }
+        markDirty(userId);
+    }
+
+    /**
+     * 按关键词检索当前用户的便签，分类和归档条件直接在倒排表上过滤
+     * 索引未就绪或关键词无法分词时返回null，由调用方回退到SQL查询
+     */
+    public List<Hit> search(Integer userId, String keyword, Integer categoryId, Boolean isArchived) {
+        if (!ready || userId == null) {
+            return null;
+        }
+        List<String> queryTerms = CjkBigramTokenizer.tokenizeQuery(keyword);
+        if (queryTerms.isEmpty()) {
+            return null;
+        }
+        UserIndex index = users.get(userId);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+        index.lock.readLock().lock();
+        try {
+            return searchLocked(index, new ArrayList<>(new LinkedHashSet<>(queryTerms)), categoryId, isArchived);
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    private List<Hit> searchLocked(UserIndex index, List<String> queryTerms, Integer categoryId, Boolean isArchived) {
+        int docCount = index.docs.size();
+        if (docCount == 0) {
+            return Collections.emptyList();
+        }
+        double avgLength = Math.max(1.0, (double) index.totalLength / docCount);
+
+        // 先展开每个查询词对应的倒排表，再按倒排表大小升序求交集，减少中间结果
+        List<Map<String, Map<Integer, Integer>>> groups = new ArrayList<>(queryTerms.size());
+        for (String term : queryTerms) {
+            Map<String, Map<Integer, Integer>> expanded = expand(index, term);
+            if (expanded.isEmpty()) {
+                return Collections.emptyList();
+            }
+            groups.add(expanded);
+        }
+        groups.sort((a, b) -> Integer.compare(postingSize(a), postingSize(b)));
+
+        Map<Integer, Double> scores = null;
+        for (Map<String, Map<Integer, Integer>> group : groups) {
+            Map<Integer, Double> groupScores = new HashMap<>();
+            for (Map<Integer, Integer> posting : group.values()) {
+                double idf = Math.log(1 + (docCount - posting.size() + 0.5) / (posting.size() + 0.5));
+                for (Map.Entry<Integer, Integer> e : posting.entrySet()) {
+                    Integer noteId = e.getKey();
+                    if (scores != null && !scores.containsKey(noteId)) {
+                        continue;
+                    }
+                    DocEntry doc = index.docs.get(noteId);
+                    if (doc == null || !matches(doc, categoryId, isArchived)) {
+                        continue;
+                    }
+                    int tf = e.getValue();
+                    double norm = tf + K1 * (1 - B + B * doc.length / avgLength);
+                    groupScores.merge(noteId, idf * tf * (K1 + 1) / norm, Double::sum);
+                }
+            }
+            if (scores != null) {
+                for (Map.Entry<Integer, Double> e : groupScores.entrySet()) {
+                    e.setValue(e.getValue() + scores.get(e.getKey()));
+                }
+            }
+            scores = groupScores;
+            if (scores.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(scores.size());
+        for (Map.Entry<Integer, Double> e : scores.entrySet()) {
+            hits.add(new Hit(e.getKey(), e.getValue()));
+        }
+        hits.sort((a, b) -> {
+            int c = Double.compare(b.score, a.score);
+            if (c != 0) {
+                return c;
+            }
+            DocEntry da = index.docs.get(a.noteId);
+            DocEntry db = index.docs.get(b.noteId);
+            c = Boolean.compare(db.pinned, da.pinned);
+            if (c != 0) {
+                return c;
+            }
+            c = Long.compare(db.updatedAt, da.updatedAt);
+            return c != 0 ? c : Integer.compare(b.noteId, a.noteId);
+        });
+        return hits;
+    }
+
+    /**
+     * 按索引的匹配规则判断便签是否命中全部查询词：拉丁单词按前缀匹配，中日韩词条精确匹配。
+     * SQL回退检索用它重新过滤候选行，回退期间返回的结果不会多于索引检索
+     *
+     * @param queryTerms CjkBigramTokenizer.tokenizeQuery的结果
+     */
+    public static boolean matches(List<String> queryTerms, String title, String content) {
+        TreeSet<String> docTerms = new TreeSet<>(CjkBigramTokenizer.tokenizeDocument(title));
+        docTerms.addAll(CjkBigramTokenizer.tokenizeDocument(content));
+        for (String term : queryTerms) {
+            if (!CjkBigramTokenizer.isWordTerm(term)) {
+                if (!docTerms.contains(term)) {
+                    return false;
+                }
+                continue;
+            }
+            String next = docTerms.ceiling(term);
+            if (next == null || !next.startsWith(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 拉丁单词按前缀匹配，中日韩词条精确匹配
+    private Map<String, Map<Integer, Integer>> expand(UserIndex index, String term) {
+        if (!CjkBigramTokenizer.isWordTerm(term)) {
+            Map<Integer, Integer> posting = index.postings.get(term);
+            return posting == null ? Collections.emptyMap() : Collections.singletonMap(term, posting);
+        }
+        return index.postings.subMap(term, true, term + Character.MAX_VALUE, false);
+    }
+
+    private static int postingSize(Map<String, Map<Integer, Integer>> group) {
+        int size = 0;
+        for (Map<Integer, Integer> posting : group.values()) {
+            size += posting.size();
+        }
+        return size;
+    }
+
+    private static boolean matches(DocEntry doc, Integer categoryId, Boolean isArchived) {
+        if (categoryId != null && !categoryId.equals(doc.categoryId)) {
+            return false;
+        }
+        return isArchived == null || isArchived == doc.archived;
+    }
+
+    private static DocEntry toEntry(Note note) {
+        // 文档长度与词频口径一致：标题中的词按权重计数，BM25的长度归一化不会偏向长标题或大量重复词
+        Map<String, Integer> freqs = new HashMap<>();
+        int length = 0;
+        for (String term : CjkBigramTokenizer.tokenizeDocument(note.getTitle())) {
+            freqs.merge(term, TITLE_WEIGHT, Integer::sum);
+            length += TITLE_WEIGHT;
+        }
+        for (String term : CjkBigramTokenizer.tokenizeDocument(note.getContent())) {
+            freqs.merge(term, 1, Integer::sum);
+            length++;
+        }
+        DocEntry entry = new DocEntry();
+        entry.noteId = note.getNoteId();
+        entry.categoryId = note.getCategoryId();
+        entry.archived = Boolean.TRUE.equals(note.getIsArchived());
+        entry.pinned = Boolean.TRUE.equals(note.getIsPinned());
+        entry.updatedAt = note.getUpdatedAt() != null ? note.getUpdatedAt().getTime() : System.currentTimeMillis();
+        entry.length = length;
+        entry.terms = new String[freqs.size()];
+        entry.freqs = new int[freqs.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> e : freqs.entrySet()) {
+            entry.terms[i] = e.getKey();
+            entry.freqs[i] = e.getValue();
+            i++;
+        }
+        return entry;
+    }
+
+    private static void addLocked(UserIndex index, DocEntry entry) {
+        for (int i = 0; i < entry.terms.length; i++) {
+            index.postings.computeIfAbsent(entry.terms[i], t -> new HashMap<>()).put(entry.noteId, entry.freqs[i]);
+        }
+        index.docs.put(entry.noteId, entry);
+        index.totalLength += entry.length;
+    }
+
+    private static void removeLocked(UserIndex index, Integer noteId) {
+        DocEntry old = index.docs.remove(noteId);
+        if (old == null) {
+            return;
+        }
+        for (String term : old.terms) {
+            Map<Integer, Integer> posting = index.postings.get(term);
+            if (posting != null) {
+                posting.remove(noteId);
+                if (posting.isEmpty()) {
+                    index.postings.remove(term);
+                }
+            }
+        }
+        index.totalLength -= old.length;
+    }
+
+    private void markDirty(Integer userId) {
+        if (loading) {
+            dirtyDuringLoad.add(userId);
+        }
+    }
+
+    // ---------------------------------------------------------------- 加载与持久化
+
+    private void load() {
+        loading = true;
+        long start = System.currentTimeMillis();
+        try {
+            Map<Integer, long[]> fingerprints = loadFingerprints();
+            Map<Integer, long[]> restored = readSnapshot(fingerprints);
+            int rebuilt = 0;
+            for (Map.Entry<Integer, long[]> e : fingerprints.entrySet()) {
+                if (!restored.containsKey(e.getKey())) {
+                    rebuildUser(e.getKey());
+                    rebuilt++;
+                }
+            }
+            // 加载期间发生写入的用户再回源一次，避免快照覆盖掉新写入
+            while (!dirtyDuringLoad.isEmpty()) {
+                List<Integer> dirty = new ArrayList<>(dirtyDuringLoad);
+                dirtyDuringLoad.removeAll(dirty);
+                for (Integer userId : dirty) {
+                    rebuildUser(userId);
+                }
+            }
+            ready = true;
+            logger.info("便签检索索引加载完成: 用户数={}, 从快照恢复={}, 回源重建={}, 耗时{}ms",
+                    fingerprints.size(), restored.size(), rebuilt, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("便签检索索引加载失败，检索将回退到SQL查询", e);
+        } finally {
+            loading = false;
+        }
+    }
+
+    // 每个用户的便签数和最后更新时间，用来判断快照是否过期
+    private Map<Integer, long[]> loadFingerprints() {
+        Map<Integer, long[]> fingerprints = new HashMap<>();
+        for (Map<String, Object> row : noteMapper.findIndexFingerprints()) {
+            Integer userId = ((Number) row.get("userId")).intValue();
+            long count = ((Number) row.get("noteCount")).longValue();
+            Object lastUpdated = row.get("lastUpdated");
+            long last = lastUpdated instanceof Number ? ((Number) lastUpdated).longValue() : 0L;
+            fingerprints.put(userId, new long[]{count, last});
+        }
+        return fingerprints;
+    }
+
+    private void rebuildUser(Integer userId) {
+        UserIndex fresh = new UserIndex();
+        List<Integer> noteIds = new ArrayList<>();
+        noteMapper.scanByUserId(userId, context -> {
+            Note note = context.getResultObject();
+            DocEntry entry = toEntry(note);
+            addLocked(fresh, entry);
+            noteIds.add(entry.noteId);
+        });
+        UserIndex previous = users.put(userId, fresh);
+        if (previous != null) {
+            previous.lock.readLock().lock();
+            try {
+                noteOwners.keySet().removeAll(previous.docs.keySet());
+            } finally {
+                previous.lock.readLock().unlock();
+            }
+        }
+        for (Integer noteId : noteIds) {
+            noteOwners.put(noteId, userId);
+        }
+    }
+
+    private Map<Integer, long[]> readSnapshot(Map<Integer, long[]> fingerprints) {
+        Map<Integer, long[]> restored = new HashMap<>();
+        Path file = Paths.get(indexDir, SNAPSHOT_FILE);
+        if (!Files.exists(file)) {
+            return restored;
+        }
+        try (InputStream raw = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(raw)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                logger.warn("便签检索索引快照格式不兼容，将全量重建: {}", file);
+                return restored;
+            }
+            int userCount = in.readInt();
+            for (int u = 0; u < userCount; u++) {
+                int userId = in.readInt();
+                long count = in.readLong();
+                long last = in.readLong();
+                int docCount = in.readInt();
+                UserIndex index = new UserIndex();
+                for (int d = 0; d < docCount; d++) {
+                    addLocked(index, readEntry(in));
+                }
+                long[] current = fingerprints.get(userId);
+                if (current != null && current[0] == count && current[1] == last) {
+                    users.put(userId, index);
+                    for (Integer noteId : index.docs.keySet()) {
+                        noteOwners.put(noteId, userId);
+                    }
+                    restored.put(userId, current);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("读取便签检索索引快照失败，将全量重建: {}", e.getMessage());
+            users.clear();
+            noteOwners.clear();
+            restored.clear();
+        }
+        return restored;
+    }
+
+    /**
+     * 停机时把索引写入本地快照，同时记录数据库指纹供下次启动校验
+     */
+    @PreDestroy
+    public void persist() {
+        if (!ready) {
+            return;
+        }
+        Path dir = Paths.get(indexDir);
+        Path tmp = dir.resolve(SNAPSHOT_FILE + ".tmp");
+        try {
+            Files.createDirectories(dir);
+            Map<Integer, long[]> fingerprints = loadFingerprints();
+            try (OutputStream raw = Files.newOutputStream(tmp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(raw)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                List<Integer> userIds = new ArrayList<>(users.keySet());
+                userIds.retainAll(fingerprints.keySet());
+                out.writeInt(userIds.size());
+                for (Integer userId : userIds) {
+                    UserIndex index = users.get(userId);
+                    long[] fingerprint = fingerprints.get(userId);
+                    index.lock.readLock().lock();
+                    try {
+                        out.writeInt(userId);
+                        out.writeLong(fingerprint[0]);
+                        out.writeLong(fingerprint[1]);
+                        writeEntries(out, index.docs.values());
+                    } finally {
+                        index.lock.readLock().unlock();
+                    }
+                }
+            }
+            Files.move(tmp, dir.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("便签检索索引快照已保存: {}个用户", users.size());
+        } catch (Exception e) {
+            logger.error("保存便签检索索引快照失败", e);
+        }
+    }
+
+    private static void writeEntries(DataOutputStream out, Collection<DocEntry> entries) throws IOException {
+        out.writeInt(entries.size());
+        for (DocEntry entry : entries) {
+            out.writeInt(entry.noteId);
+            out.writeInt(entry.categoryId != null ? entry.categoryId : -1);
+            out.writeBoolean(entry.archived);
+            out.writeBoolean(entry.pinned);
+            out.writeLong(entry.updatedAt);
+            out.writeInt(entry.length);
+            out.writeInt(entry.terms.length);
+            for (int i = 0; i < entry.terms.length; i++) {
+                out.writeUTF(entry.terms[i]);
+                out.writeInt(entry.freqs[i]);
+            }
+        }
+    }
+
+    private static DocEntry readEntry(DataInputStream in) throws IOException {
+        DocEntry entry = new DocEntry();
+        entry.noteId = in.readInt();
+        int categoryId = in.readInt();
+        entry.categoryId = categoryId >= 0 ? categoryId : null;
+        entry.archived = in.readBoolean();
+        entry.pinned = in.readBoolean();
+        entry.updatedAt = in.readLong();
+        entry.length = in.readInt();
+        int termCount = in.readInt();
+        entry.terms = new String[termCount];
+        entry.freqs = new int[termCount];
+        for (int i = 0; i < termCount; i++) {
+            entry.terms[i] = in.readUTF();
+            entry.freqs[i] = in.readInt();
+        }
+        return entry;
+    }
+}
@@ -6,8 +6,10 @@ import java.util.List;
 
 public interface CategoryService {
     List<Category> getCategoriesByUserId(Integer userId);
+    List<Category> getCategoriesWithCounts(Integer userId);
     Category getCategoryById(Integer categoryId);
+    Integer getCategoryOwnerId(Integer categoryId);
     boolean createCategory(Category category);
-    boolean updateCategory(Category category);
-    boolean deleteCategory(Integer categoryId);
+    Category updateCategory(Category category);
+    boolean deleteCategory(Integer categoryId, Integer userId);
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.example.backend.service;
+
+/**
+ * 便签写请求的参数不合法（部分更新的字段组合、越界的文本编辑、超过上限的批量操作等）
+ */
+public class InvalidNoteRequestException extends RuntimeException {
+
+    public InvalidNoteRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidNoteRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
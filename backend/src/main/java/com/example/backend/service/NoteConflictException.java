@@ -0,0 +1,18 @@
+package com.example.backend.service;
+
+/**
+ * 部分更新所基于的正文版本已经过期（其他设备已修改过正文）
+ */
+public class NoteConflictException extends RuntimeException {
+
+    private final String currentHash;
+
+    public NoteConflictException(String message, String currentHash) {
+        super(message);
+        this.currentHash = currentHash;
+    }
+
+    public String getCurrentHash() {
+        return currentHash;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Note;
+import com.example.backend.model.NoteRevision;
+import com.example.backend.model.dto.NotePatch;
+
+import java.util.List;
+
+public interface NoteRevisionService {
+    void recordCreated(Note note);
+    void recordUpdated(Note previous, Note updated, List<NotePatch.TextEdit> edits);
+    List<NoteRevision> getRevisions(Integer noteId, Integer userId, Integer beforeRevisionNo, int limit);
+    NoteRevision getRevision(Integer noteId, Integer userId, Integer revisionNo);
+}
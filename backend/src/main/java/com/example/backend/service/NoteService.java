@@ -1,18 +1,43 @@
 package com.example.backend.service;
 
 import com.example.backend.model.Note;
+import com.example.backend.model.NoteSummary;
+import com.example.backend.model.dto.BatchResult;
+import com.example.backend.model.dto.CursorPage;
+import com.example.backend.model.dto.NoteChanges;
+import com.example.backend.model.dto.NotePatch;
+import com.example.backend.model.dto.NoteStats;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface NoteService {
     List<Note> getNotesByUserId(Integer userId, Boolean isArchived);
     List<Note> getNotesByUserIdAndCategoryId(Integer userId, Integer categoryId, Boolean isArchived);
+    List<NoteSummary> getNoteSummaries(Integer userId, Integer categoryId, Boolean isArchived);
+    CursorPage<NoteSummary> getNoteSummaryPage(Integer userId, Integer categoryId, Boolean isArchived, String cursor, int limit);
     Note getNoteById(Integer noteId);
+    Note getNoteStamp(Integer noteId);
+    Integer getNoteOwnerId(Integer noteId);
     List<Note> searchNotes(Map<String, Object> params);
+    CursorPage<Note> getNotePage(Integer userId, Integer categoryId, Boolean isArchived, String cursor, int limit);
+    CursorPage<Note> searchNotePage(Map<String, Object> params, String cursor, int limit);
+    int countNotesByUserId(Integer userId);
+    void forEachNoteForExport(Integer userId, Consumer<Note> consumer);
     boolean createNote(Note note);
-    boolean updateNote(Note note);
-    boolean deleteNote(Integer noteId);
-    boolean pinNote(Integer noteId, Boolean isPinned);
-    boolean archiveNote(Integer noteId, Boolean isArchived);
+    Note updateNote(Note note);
+    boolean deleteNote(Integer noteId, Integer userId);
+    boolean pinNote(Integer noteId, Integer userId, Boolean isPinned);
+    boolean archiveNote(Integer noteId, Integer userId, Boolean isArchived);
+    List<Note> getNotesByIds(Integer userId, List<Integer> noteIds);
+    BatchResult pinNotes(Integer userId, List<Integer> noteIds, Boolean isPinned);
+    BatchResult archiveNotes(Integer userId, List<Integer> noteIds, Boolean isArchived);
+    BatchResult moveNotes(Integer userId, List<Integer> noteIds, Integer categoryId);
+    BatchResult deleteNotes(Integer userId, List<Integer> noteIds);
+    Note patchNote(Integer noteId, Integer userId, NotePatch patch);
+    NoteChanges getChangesSince(Integer userId, String token, int limit);
+    int detachCategory(Integer userId, Integer categoryId);
+    NoteStats getNoteStats(Integer userId, int days);
+    Map<String, Object> getWriteBufferStats();
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.example.backend.service;
+
+/**
+ * 检索索引未就绪，而SQL回退检索需要解压的候选过多，请客户端稍后重试
+ */
+public class SearchUnavailableException extends RuntimeException {
+
+    public SearchUnavailableException(String message) {
+        super(message);
+    }
+}
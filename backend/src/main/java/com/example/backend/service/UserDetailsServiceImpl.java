@@ -1,16 +1,18 @@
 package com.example.backend.service;
 
+import com.example.backend.config.AuthenticatedUser;
 import com.example.backend.model.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserService userService;
@@ -25,10 +27,18 @@ public class UserDetailsServiceImpl implements UserDetailsService {
             throw new UsernameNotFoundException("User not found: " + username);
         }
         logger.debug("Loaded user: {}", user.getUsername());
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getUsername())
-                .password(user.getPasswordHash())
-                .roles("USER")
-                .build();
+        return new AuthenticatedUser(user.getId().intValue(), user.getUsername(), user.getPasswordHash());
+    }
+
+    /**
+     * 登录成功后哈希强度与配置不同时由DaoAuthenticationProvider调用，保存按新强度计算的哈希
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        AuthenticatedUser principal = (AuthenticatedUser) user;
+        if (userService.updatePasswordHash(principal.getUserId().longValue(), newPassword)) {
+            logger.info("用户{}的密码哈希已按新强度重新计算", principal.getUsername());
+        }
+        return new AuthenticatedUser(principal.getUserId(), principal.getUsername(), newPassword);
     }
 }
\ No newline at end of file
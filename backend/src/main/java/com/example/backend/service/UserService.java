@@ -1,41 +1,51 @@
 package com.example.backend.service;
 
+import com.example.backend.auth.PasswordHasher;
 import com.example.backend.model.User;
 import com.example.backend.mapper.UserMapper;
+import com.example.backend.util.TtlCache;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 @Service
 public class UserService {
     @Autowired
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
     @Autowired
     private UserMapper userMapper;
 
+    // 按用户名缓存用户记录，容量和有效期都很小，写操作完成后按用户名失效
+    private final TtlCache<String, User> usernameCache = new TtlCache<>(1000, 60_000L);
+
+    // 每次失效加1；查询期间发生过失效时查到的可能是写入前的行，不放入缓存
+    private final AtomicLong invalidations = new AtomicLong();
+
     public User save(User user) {
-        // 处理密码字段 - 同时支持password和passwordHash字段
-        try {
-            // 尝试获取password字段（反射方式）
-            java.lang.reflect.Field passwordField = User.class.getDeclaredField("password");
-            passwordField.setAccessible(true);
-            Object passwordValue = passwordField.get(user);
-            if (passwordValue != null) {
-                user.setPasswordHash(passwordEncoder.encode(passwordValue.toString()));
-            }
-        } catch (Exception e) {
-            // 如果没有password字段，则使用passwordHash字段
-            if (user.getPasswordHash() != null && !user.getPasswordHash().startsWith("$2a$")) {
-                user.setPasswordHash(passwordEncoder.encode(user.getPasswordHash()));
-            }
-        }
-        
+        hashPassword(user);
+
         userMapper.insert(user);
+        evictUsername(user.getUsername());
         return user;
     }
 
+    /**
+     * 缓存中的实例在请求之间共享，返回副本，调用方修改返回值不会影响缓存
+     */
     public User findByUsername(String username) {
-        return userMapper.findByUsername(username);
+        if (username == null) {
+            return null;
+        }
+        User user = usernameCache.get(username);
+        if (user == null) {
+            long seen = invalidations.get();
+            user = userMapper.findByUsername(username);
+            if (invalidations.get() == seen) {
+                usernameCache.put(username, user);
+            }
+        }
+        return copyOf(user);
     }
 
     public User findByEmail(String email) {
@@ -47,31 +57,69 @@ public class UserService {
     }
 
     public boolean update(User user) {
-        // 处理密码字段 - 同时支持password和passwordHash字段
-        try {
-            // 尝试获取password字段（反射方式）
-            java.lang.reflect.Field passwordField = User.class.getDeclaredField("password");
-            passwordField.setAccessible(true);
-            Object passwordValue = passwordField.get(user);
-            if (passwordValue != null) {
-                user.setPasswordHash(passwordEncoder.encode(passwordValue.toString()));
-            }
-        } catch (Exception e) {
-            // 如果没有password字段，则使用passwordHash字段
-            if (user.getPasswordHash() != null && !user.getPasswordHash().startsWith("$2a$")) {
-                user.setPasswordHash(passwordEncoder.encode(user.getPasswordHash()));
-            }
-        }
-        
-        return userMapper.update(user) > 0;
+        hashPassword(user);
+
+        // 用户名可能被修改，写入后旧用户名和新用户名都失效
+        User previous = user.getId() != null ? userMapper.findById(user.getId()) : null;
+        boolean updated = userMapper.update(user) > 0;
+        evict(previous);
+        evictUsername(user.getUsername());
+        return updated;
+    }
+
+    /**
+     * 只更新密码哈希，登录时按新的BCrypt强度重新计算后调用
+     */
+    public boolean updatePasswordHash(Long id, String passwordHash) {
+        User previous = userMapper.findById(id);
+        boolean updated = userMapper.updatePasswordHash(id, passwordHash) > 0;
+        evict(previous);
+        return updated;
     }
 
     public boolean delete(Long id) {
-        return userMapper.delete(id) > 0;
+        User previous = userMapper.findById(id);
+        boolean deleted = userMapper.delete(id) > 0;
+        evict(previous);
+        return deleted;
     }
 
     // 验证用户密码
     public boolean verifyPassword(String rawPassword, String encodedPassword) {
-        return passwordEncoder.matches(rawPassword, encodedPassword);
+        return passwordHasher.matches(rawPassword, encodedPassword);
+    }
+
+    private void evict(User user) {
+        if (user != null) {
+            evictUsername(user.getUsername());
+        }
+    }
+
+    private void evictUsername(String username) {
+        if (username != null) {
+            invalidations.incrementAndGet();
+            usernameCache.remove(username);
+        }
+    }
+
+    private static User copyOf(User user) {
+        if (user == null) {
+            return null;
+        }
+        User copy = new User(user.getUsername(), user.getPassword());
+        copy.setId(user.getId());
+        copy.setPasswordHash(user.getPasswordHash());
+        copy.setEmail(user.getEmail());
+        copy.setCreatedAt(user.getCreatedAt());
+        copy.setUpdatedAt(user.getUpdatedAt());
+        return copy;
+    }
+
+    // 请求带有明文密码时计算哈希并清除明文，否则保留原有的passwordHash
+    private void hashPassword(User user) {
+        if (user.getPassword() != null) {
+            user.setPasswordHash(passwordHasher.encode(user.getPassword()));
+            user.setPassword(null);
+        }
     }
 }
\ No newline at end of file
@@ -2,9 +2,14 @@ package com.example.backend.service.impl;
 
 import com.example.backend.mapper.CategoryMapper;
 import com.example.backend.model.Category;
+import com.example.backend.push.ChangeEvent;
+import com.example.backend.push.ChangeEventHub;
 import com.example.backend.service.CategoryService;
+import com.example.backend.service.NoteService;
+import com.example.backend.util.UserChangeVersions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -14,28 +19,73 @@ public class CategoryServiceImpl implements CategoryService {
     @Autowired
     private CategoryMapper categoryMapper;
 
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private UserChangeVersions changeVersions;
+
+    @Autowired
+    private ChangeEventHub changeEvents;
+
     @Override
     public List<Category> getCategoriesByUserId(Integer userId) {
         return categoryMapper.findByUserId(userId);
     }
 
+    @Override
+    public List<Category> getCategoriesWithCounts(Integer userId) {
+        return categoryMapper.findByUserIdWithCounts(userId);
+    }
+
     @Override
     public Category getCategoryById(Integer categoryId) {
         return categoryMapper.findById(categoryId);
     }
 
+    @Override
+    public Integer getCategoryOwnerId(Integer categoryId) {
+        return categoryMapper.findOwnerId(categoryId);
+    }
+
     @Override
     public boolean createCategory(Category category) {
-        return categoryMapper.insert(category) > 0;
+        boolean created = categoryMapper.insert(category) > 0;
+        if (created) {
+            changeVersions.bump(category.getUserId());
+            changeEvents.publish(category.getUserId(), ChangeEvent.KIND_CATEGORY, ChangeEvent.ACTION_UPSERT, category.getCategoryId());
+        }
+        return created;
     }
 
+    /**
+     * 按分类ID和所属用户更新，再在同一事务中读回更新后的行；分类不存在或不属于该用户时返回null
+     */
     @Override
-    public boolean updateCategory(Category category) {
-        return categoryMapper.update(category) > 0;
+    @Transactional
+    public Category updateCategory(Category category) {
+        Category updated = categoryMapper.update(category) > 0
+                ? categoryMapper.findById(category.getCategoryId())
+                : null;
+        if (updated != null) {
+            changeVersions.bump(updated.getUserId());
+            changeEvents.publish(updated.getUserId(), ChangeEvent.KIND_CATEGORY, ChangeEvent.ACTION_UPSERT, updated.getCategoryId());
+        }
+        return updated;
     }
 
+    /**
+     * 删除分类，分类下的便签在同一事务内移到未分类，统计随之更新
+     */
     @Override
-    public boolean deleteCategory(Integer categoryId) {
-        return categoryMapper.delete(categoryId) > 0;
+    @Transactional
+    public boolean deleteCategory(Integer categoryId, Integer userId) {
+        boolean deleted = categoryMapper.delete(categoryId, userId) > 0;
+        if (deleted) {
+            noteService.detachCategory(userId, categoryId);
+            changeVersions.bump(userId);
+            changeEvents.publish(userId, ChangeEvent.KIND_CATEGORY, ChangeEvent.ACTION_DELETE, categoryId);
+        }
+        return deleted;
     }
 }
\ No newline at end of file
@@ -0,0 +1,159 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.mapper.NoteRevisionMapper;
+import com.example.backend.model.Note;
+import com.example.backend.model.NoteRevision;
+import com.example.backend.model.dto.NotePatch;
+import com.example.backend.service.NoteRevisionService;
+import com.example.backend.util.TextEdits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 便签历史版本
+ * 版本号随便签的标题或正文写入递增，版本号除以快照间隔余1的版本保存完整快照，其余保存相对上一版本的编辑，
+ * 因此还原任意版本最多读取和应用"快照间隔"个版本。写入路径上只有一条多行INSERT
+ */
+@Service
+public class NoteRevisionServiceImpl implements NoteRevisionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteRevisionServiceImpl.class);
+
+    @Autowired
+    private NoteRevisionMapper revisionMapper;
+
+    @Value("${note.revision.snapshot-interval:20}")
+    private int snapshotInterval;
+
+    @Value("${note.revision.retention-days:30}")
+    private int retentionDays;
+
+    @Value("${note.revision.max-per-note:200}")
+    private int maxPerNote;
+
+    @Value("${note.revision.prune-interval-minutes:60}")
+    private long pruneIntervalMinutes;
+
+    private ScheduledExecutorService pruner;
+
+    @PostConstruct
+    public void init() {
+        pruner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "note-revision-pruner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pruner.scheduleWithFixedDelay(this::prune, pruneIntervalMinutes, pruneIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pruner.shutdownNow();
+    }
+
+    /**
+     * 新建便签时保存版本1的快照
+     */
+    @Override
+    public void recordCreated(Note note) {
+        List<NoteRevision> revisions = new ArrayList<>(1);
+        revisions.add(snapshot(note, 1));
+        revisionMapper.insertBatch(revisions);
+    }
+
+    /**
+     * 便签的标题或正文写入后保存新版本，必须在写入的同一事务中调用
+     * edits为相对previous正文的编辑，为null时比较前后正文计算差异
+     */
+    @Override
+    public void recordUpdated(Note previous, Note updated, List<NotePatch.TextEdit> edits) {
+        Integer revisionNo = updated.getRevisionNo();
+        if (previous == null || revisionNo == null) {
+            return;
+        }
+        List<NoteRevision> revisions = new ArrayList<>(2);
+        // 早于历史版本功能的便签没有任何版本，第一次修改时把修改前的内容一并保存为版本0
+        if (revisionNo == 1) {
+            revisions.add(snapshot(previous, 0));
+        }
+        if ((revisionNo - 1) % Math.max(1, snapshotInterval) == 0) {
+            revisions.add(snapshot(updated, revisionNo));
+        } else {
+            NoteRevision delta = revision(updated, revisionNo, false);
+            delta.setPayload(TextEdits.encode(edits != null ? edits : TextEdits.diff(previous.getContent(), updated.getContent())));
+            revisions.add(delta);
+        }
+        revisionMapper.insertBatch(revisions);
+    }
+
+    @Override
+    public List<NoteRevision> getRevisions(Integer noteId, Integer userId, Integer beforeRevisionNo, int limit) {
+        return revisionMapper.findByNoteId(noteId, userId, beforeRevisionNo, limit);
+    }
+
+    /**
+     * 从最近的快照开始依次应用编辑还原指定版本，版本不存在或不属于该用户时返回null
+     */
+    @Override
+    public NoteRevision getRevision(Integer noteId, Integer userId, Integer revisionNo) {
+        List<NoteRevision> chain = revisionMapper.findChain(noteId, userId, revisionNo);
+        if (chain.isEmpty() || !revisionNo.equals(chain.get(chain.size() - 1).getRevisionNo())) {
+            return null;
+        }
+        String content = null;
+        for (NoteRevision revision : chain) {
+            if (Boolean.TRUE.equals(revision.getSnapshot())) {
+                content = revision.getPayload();
+            } else {
+                content = TextEdits.apply(content, TextEdits.decode(revision.getPayload()));
+            }
+        }
+        NoteRevision result = chain.get(chain.size() - 1);
+        result.setPayload(null);
+        result.setContent(content);
+        return result;
+    }
+
+    private void prune() {
+        try {
+            Date cutoff = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays));
+            int expired = revisionMapper.pruneExpired(cutoff, maxPerNote);
+            int deleted = revisionMapper.pruneDeleted(cutoff);
+            if (expired > 0 || deleted > 0) {
+                logger.info("清理历史版本: 过期{}个, 已删除便签的{}个", expired, deleted);
+            }
+        } catch (Exception e) {
+            logger.error("清理历史版本失败", e);
+        }
+    }
+
+    private static NoteRevision snapshot(Note note, int revisionNo) {
+        NoteRevision revision = revision(note, revisionNo, true);
+        revision.setPayload(note.getContent());
+        return revision;
+    }
+
+    private static NoteRevision revision(Note note, int revisionNo, boolean snapshot) {
+        NoteRevision revision = new NoteRevision();
+        revision.setNoteId(note.getNoteId());
+        revision.setUserId(note.getUserId());
+        revision.setRevisionNo(revisionNo);
+        revision.setSnapshot(snapshot);
+        revision.setTitle(note.getTitle() != null ? note.getTitle() : "");
+        String content = note.getContent();
+        revision.setContentLength(content != null ? content.codePointCount(0, content.length()) : 0);
+        return revision;
+    }
+}
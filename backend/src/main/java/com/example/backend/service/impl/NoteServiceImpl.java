@@ -1,27 +1,154 @@
 package com.example.backend.service.impl;
 
 import com.example.backend.mapper.NoteMapper;
+import com.example.backend.metrics.MetricsRegistry;
+import com.example.backend.mapper.NoteStatsMapper;
 import com.example.backend.model.Note;
+import com.example.backend.model.NoteStatsBucket;
+import com.example.backend.model.NoteSummary;
+import com.example.backend.model.NoteTombstone;
+import com.example.backend.model.dto.BatchResult;
+import com.example.backend.model.dto.CursorPage;
+import com.example.backend.model.dto.NoteChanges;
+import com.example.backend.model.dto.NotePatch;
+import com.example.backend.model.dto.NoteStats;
+import com.example.backend.push.ChangeEvent;
+import com.example.backend.push.ChangeEventHub;
+import com.example.backend.search.CjkBigramTokenizer;
+import com.example.backend.search.NoteSearchIndex;
+import com.example.backend.service.NoteConflictException;
+import com.example.backend.service.NoteRevisionService;
+import com.example.backend.service.InvalidNoteRequestException;
 import com.example.backend.service.NoteService;
+import com.example.backend.service.SearchUnavailableException;
+import com.example.backend.util.NoteCursor;
+import com.example.backend.util.SyncToken;
+import com.example.backend.util.InvalidCursorException;
+import com.example.backend.util.TextEdits;
+import com.example.backend.util.UserChangeVersions;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 @Service
 public class NoteServiceImpl implements NoteService {
 
+    // content_preview列的长度上限
+    private static final int MAX_PREVIEW_LENGTH = 255;
+
+    // 单次批量操作的便签数上限
+    private static final int MAX_BATCH_SIZE = 500;
+
+    // 与notes表的title VARCHAR(100)、color VARCHAR(20)一致，按字符数计
+    private static final int MAX_TITLE_LENGTH = 100;
+    private static final int MAX_COLOR_LENGTH = 20;
+
+    // 统计计数的增减方向
+    private static final int COUNT_IN = 1;
+    private static final int COUNT_OUT = -1;
+
+    // 与列表的ORDER BY is_pinned DESC, updated_at DESC, note_id DESC一致，排在前面的较小
+    private static final Comparator<NoteCursor> KEYSET_ORDER = Comparator
+            .comparing(NoteCursor::isPinned, Comparator.reverseOrder())
+            .thenComparing(NoteCursor::getUpdatedAt, Comparator.reverseOrder())
+            .thenComparing(NoteCursor::getNoteId, Comparator.reverseOrder());
+
+    // 部分更新允许修改的字段
+    private static final Set<String> PATCHABLE_FIELDS = new HashSet<>(Arrays.asList(
+            NotePatch.TITLE, NotePatch.CONTENT, NotePatch.COLOR,
+            NotePatch.CATEGORY_ID, NotePatch.IS_PINNED, NotePatch.IS_ARCHIVED));
+
     @Autowired
     private NoteMapper noteMapper;
 
+    @Autowired
+    private NoteStatsMapper noteStatsMapper;
+
+    @Autowired
+    private NoteRevisionService revisionService;
+
+    @Autowired
+    private NoteSearchIndex searchIndex;
+
+    @Autowired
+    private UserChangeVersions changeVersions;
+
+    @Autowired
+    private ChangeEventHub changeEvents;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MetricsRegistry metrics;
+
+    @Value("${note.preview.length:120}")
+    private int previewLength;
+
+    @Value("${note.search.fallback-max-compressed:200}")
+    private int fallbackMaxCompressed;
+
+    @Value("${export.batch-size:200}")
+    private int exportBatchSize;
+
+    @Value("${note.write-buffer.window-ms:0}")
+    private long writeBufferWindowMillis;
+
+    @Value("${note.write-buffer.max-pending:1000}")
+    private int writeBufferMaxPending;
+
+    private TransactionTemplate writeTransaction;
+
+    private NoteWriteBuffer writeBuffer;
+
+    // 整行更新在自己的事务中写入；其他写操作在事务中先写入缓冲时加入该事务，
+    // 不会在外层事务占着连接的同时再申请一个连接，写缓冲在提交后才移出条目
+    @PostConstruct
+    public void init() {
+        writeTransaction = new TransactionTemplate(transactionManager);
+        writeBuffer = new NoteWriteBuffer(note -> writeTransaction.execute(status -> writeNote(note)),
+                writeBufferWindowMillis, writeBufferMaxPending,
+                metrics.timer("note_write_buffer_flush_seconds", "写缓冲把一个便签写入数据库的耗时"));
+        metrics.gauges("note_write_buffer", writeBuffer::stats);
+    }
+
+    // 检索索引、推送等依赖的Bean在本Bean之后销毁，关闭时它们仍然可用
+    @PreDestroy
+    public void shutdown() {
+        writeBuffer.close();
+    }
+
     @Override
     public List<Note> getNotesByUserId(Integer userId, Boolean isArchived) {
         Map<String, Object> params = new HashMap<>();
         params.put("userId", userId);
         params.put("isArchived", isArchived);
-        return noteMapper.findByUserId(params);
+        return overlayPending(noteMapper.findByUserId(params), params, true);
     }
 
     @Override
@@ -30,47 +157,829 @@ public class NoteServiceImpl implements NoteService {
         params.put("userId", userId);
         params.put("categoryId", categoryId);
         params.put("isArchived", isArchived);
-        return noteMapper.findByUserIdAndCategoryId(userId, categoryId);
+        return overlayPending(noteMapper.findByUserIdAndCategoryId(params), params, true);
+    }
+
+    @Override
+    public CursorPage<Note> getNotePage(Integer userId, Integer categoryId, Boolean isArchived, String cursor, int limit) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("userId", userId);
+        params.put("categoryId", categoryId);
+        params.put("isArchived", isArchived);
+        applyKeyset(params, cursor != null ? NoteCursor.decode(cursor) : null, limit);
+        List<Note> rows = categoryId != null
+                ? noteMapper.findByUserIdAndCategoryId(params)
+                : noteMapper.findByUserId(params);
+        // 游标按数据库中的值计算，之后再叠加缓冲中的版本
+        CursorPage<Note> page = toKeysetPage(rows, limit, NoteServiceImpl::cursorOf);
+        page.setItems(overlayPending(page.getItems(), params, true));
+        return page;
+    }
+
+    @Override
+    public List<NoteSummary> getNoteSummaries(Integer userId, Integer categoryId, Boolean isArchived) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("userId", userId);
+        params.put("categoryId", categoryId);
+        params.put("isArchived", isArchived);
+        return overlayPendingSummaries(noteMapper.findSummaries(params), params);
+    }
+
+    @Override
+    public CursorPage<NoteSummary> getNoteSummaryPage(Integer userId, Integer categoryId, Boolean isArchived, String cursor, int limit) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("userId", userId);
+        params.put("categoryId", categoryId);
+        params.put("isArchived", isArchived);
+        applyKeyset(params, cursor != null ? NoteCursor.decode(cursor) : null, limit);
+        CursorPage<NoteSummary> page = toKeysetPage(noteMapper.findSummaries(params), limit, NoteServiceImpl::summaryCursorOf);
+        page.setItems(overlayPendingSummaries(page.getItems(), params));
+        return page;
     }
 
     @Override
     public Note getNoteById(Integer noteId) {
-        return noteMapper.findById(noteId);
+        Note note = noteMapper.findById(noteId);
+        Note pending = note != null ? writeBuffer.get(noteId) : null;
+        if (pending != null) {
+            overlay(note, pending);
+        }
+        return note;
+    }
+
+    // 缓冲中的版本带有毫秒精度的更新时间，条件GET不会把它当作未修改
+    @Override
+    public Note getNoteStamp(Integer noteId) {
+        Note stamp = noteMapper.findStamp(noteId);
+        Note pending = stamp != null ? writeBuffer.get(noteId) : null;
+        if (pending != null) {
+            stamp.setUpdatedAt(pending.getUpdatedAt());
+        }
+        return stamp;
+    }
+
+    @Override
+    public Integer getNoteOwnerId(Integer noteId) {
+        return noteMapper.findOwnerId(noteId);
     }
 
     @Override
     public List<Note> searchNotes(Map<String, Object> params) {
-        return noteMapper.searchNotes(params);
+        Integer userId = (Integer) params.get("userId");
+        String keyword = (String) params.get("keyword");
+        if (keyword != null && !keyword.trim().isEmpty()) {
+            // 优先走倒排索引，索引未就绪时回退到LIKE查询
+            List<NoteSearchIndex.Hit> hits = searchIndex.search(userId, keyword,
+                    (Integer) params.get("categoryId"), (Boolean) params.get("isArchived"));
+            if (hits != null) {
+                return loadHits(userId, hits, params);
+            }
+            checkFallbackCandidates(params);
+        }
+        // 先叠加缓冲中的版本再匹配关键词，缓冲中改过的标题和正文也按新内容过滤
+        return filterCompressedCandidates(overlayPending(noteMapper.searchNotes(params), params, true), keyword);
+    }
+
+    @Override
+    public CursorPage<Note> searchNotePage(Map<String, Object> params, String cursor, int limit) {
+        Integer userId = (Integer) params.get("userId");
+        String keyword = (String) params.get("keyword");
+        NoteCursor after = cursor != null ? NoteCursor.decode(cursor) : null;
+        if (keyword != null && !keyword.trim().isEmpty() && (after == null || after.isRanked())) {
+            List<NoteSearchIndex.Hit> hits = searchIndex.search(userId, keyword,
+                    (Integer) params.get("categoryId"), (Boolean) params.get("isArchived"));
+            if (hits != null) {
+                return toRankedPage(userId, hits, after, limit, params);
+            }
+        }
+        if (keyword != null && !keyword.trim().isEmpty()) {
+            checkFallbackCandidates(params);
+        }
+        Map<String, Object> pageParams = new HashMap<>(params);
+        applyKeyset(pageParams, after != null && !after.isRanked() ? after : null, limit);
+        // 游标按过滤前的最后一行计算，过滤后这一页可能少于limit条，但不会漏掉后面的结果
+        CursorPage<Note> page = toKeysetPage(noteMapper.searchNotes(pageParams), limit, NoteServiceImpl::cursorOf);
+        page.setItems(filterCompressedCandidates(overlayPending(page.getItems(), pageParams, true), keyword));
+        return page;
+    }
+
+    /**
+     * SQL回退检索会读取并解压用户全部压缩存储的便签，数量超过上限时不回退，等索引加载完成后再检索
+     */
+    private void checkFallbackCandidates(Map<String, Object> params) {
+        int compressed = noteMapper.countCompressed((Integer) params.get("userId"), (Integer) params.get("categoryId"),
+                (Boolean) params.get("isArchived"), fallbackMaxCompressed + 1);
+        if (compressed > fallbackMaxCompressed) {
+            throw new SearchUnavailableException("搜索索引正在加载，请稍后重试");
+        }
+    }
+
+    /**
+     * SQL回退检索会把所有压缩存储的便签作为候选返回，这里按解压后的内容重新匹配关键词。
+     * 匹配使用索引的分词规则（拉丁单词前缀、中日韩二元组），回退结果与索引检索的语义一致；
+     * LIKE按整个关键词匹配子串，多个查询词不连续出现的便签在回退期间查不到，结果只会比索引检索少。
+     * 关键词无法分词（只有标点等）时索引不可用，按子串匹配
+     */
+    private List<Note> filterCompressedCandidates(List<Note> notes, String keyword) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return notes;
+        }
+        List<String> queryTerms = CjkBigramTokenizer.tokenizeQuery(keyword);
+        String needle = keyword.toLowerCase(Locale.ROOT);
+        List<Note> matched = new ArrayList<>(notes.size());
+        for (Note note : notes) {
+            boolean hit = queryTerms.isEmpty()
+                    ? containsIgnoreCase(note.getTitle(), needle) || containsIgnoreCase(note.getContent(), needle)
+                    : NoteSearchIndex.matches(queryTerms, note.getTitle(), note.getContent());
+            if (hit) {
+                matched.add(note);
+            }
+        }
+        return matched;
+    }
+
+    private static boolean containsIgnoreCase(String text, String lowerNeedle) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(lowerNeedle);
+    }
+
+    // 多取一条用来判断是否还有下一页
+    private void applyKeyset(Map<String, Object> params, NoteCursor after, int limit) {
+        if (after != null) {
+            if (after.isRanked()) {
+                throw new InvalidCursorException("该列表不支持相关度游标");
+            }
+            params.put("cursorPinned", after.isPinned());
+            params.put("cursorUpdatedAt", after.getUpdatedAt());
+            params.put("cursorNoteId", after.getNoteId());
+        }
+        params.put("limit", limit + 1);
+    }
+
+    private <T> CursorPage<T> toKeysetPage(List<T> rows, int limit, Function<T, NoteCursor> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, limit));
+        return new CursorPage<>(items, cursorOf.apply(items.get(limit - 1)).encode());
+    }
+
+    private static NoteCursor cursorOf(Note note) {
+        return NoteCursor.keyset(note.getIsPinned(), note.getUpdatedAt(), note.getNoteId());
+    }
+
+    private static NoteCursor summaryCursorOf(NoteSummary summary) {
+        return NoteCursor.keyset(summary.getIsPinned(), summary.getUpdatedAt(), summary.getNoteId());
+    }
+
+    // 相关度排序的结果在内存中定位上一页最后一条，然后截取一页
+    private CursorPage<Note> toRankedPage(Integer userId, List<NoteSearchIndex.Hit> hits, NoteCursor after, int limit,
+                                          Map<String, Object> filters) {
+        int start = 0;
+        if (after != null) {
+            // 上一页最后一条可能已被删除或得分变化，此时从第一条得分更低的结果继续
+            start = hits.size();
+            for (int i = 0; i < hits.size(); i++) {
+                NoteSearchIndex.Hit hit = hits.get(i);
+                if (hit.getNoteId() == after.getNoteId()) {
+                    start = i + 1;
+                    break;
+                }
+                if (hit.getScore() < after.getScore()) {
+                    start = i;
+                    break;
+                }
+            }
+        }
+        int end = Math.min(hits.size(), start + limit);
+        List<NoteSearchIndex.Hit> slice = hits.subList(start, end);
+        String nextCursor = null;
+        if (end < hits.size() && !slice.isEmpty()) {
+            NoteSearchIndex.Hit last = slice.get(slice.size() - 1);
+            nextCursor = NoteCursor.ranked(last.getScore(), last.getNoteId()).encode();
+        }
+        return new CursorPage<>(loadHits(userId, slice, filters), nextCursor);
+    }
+
+    // 按检索得分顺序取回便签
+    private List<Note> loadHits(Integer userId, List<NoteSearchIndex.Hit> hits, Map<String, Object> filters) {
+        List<Note> notes = new ArrayList<>(hits.size());
+        if (hits.isEmpty()) {
+            return notes;
+        }
+        List<Integer> noteIds = new ArrayList<>(hits.size());
+        for (NoteSearchIndex.Hit hit : hits) {
+            noteIds.add(hit.getNoteId());
+        }
+        Map<Integer, Note> byId = new HashMap<>();
+        for (Note note : noteMapper.findByIds(userId, noteIds)) {
+            byId.put(note.getNoteId(), note);
+        }
+        for (Integer noteId : noteIds) {
+            Note note = byId.get(noteId);
+            if (note != null) {
+                notes.add(note);
+            }
+        }
+        return overlayPending(notes, filters, false);
     }
 
     @Override
+    public int countNotesByUserId(Integer userId) {
+        return noteMapper.countByUserId(userId);
+    }
+
+    /**
+     * 按创建顺序倒序分批读取，每批是一次独立的查询，consumer写出时不占用数据库连接，
+     * 客户端下载再慢也不会长时间占住连接池。各批不在同一个快照中，导出期间新建的便签不会出现
+     */
+    @Override
+    public void forEachNoteForExport(Integer userId, Consumer<Note> consumer) {
+        writeBuffer.flushUser(userId);
+        int batchSize = Math.max(1, exportBatchSize);
+        Integer beforeId = null;
+        while (true) {
+            List<Note> batch = noteMapper.findExportBatch(userId, beforeId, batchSize);
+            batch.forEach(consumer);
+            if (batch.size() < batchSize) {
+                return;
+            }
+            beforeId = batch.get(batch.size() - 1).getNoteId();
+        }
+    }
+
+    // 每次写入先为用户分配新的变更序号，写入语句在同一事务内引用它，供增量同步使用
+    @Override
+    @Transactional
     public boolean createNote(Note note) {
-        return noteMapper.insert(note) > 0;
+        applyPreview(note);
+        note.setRevisionNo(1);
+        noteMapper.advanceChangeSeq(note.getUserId());
+        boolean created = noteMapper.insert(note) > 0;
+        if (created) {
+            revisionService.recordCreated(note);
+            noteStatsMapper.addNoteCounts(note.getUserId(), Collections.singleton(note.getNoteId()), COUNT_IN);
+            noteStatsMapper.addDailyCreated(note.getUserId(), note.getNoteId());
+            searchIndex.index(note);
+            changeVersions.bump(note.getUserId());
+            changeEvents.publish(note.getUserId(), ChangeEvent.KIND_NOTE, ChangeEvent.ACTION_UPSERT, note.getNoteId());
+        }
+        return created;
     }
 
+    /**
+     * 整行更新，便签不存在或不属于该用户时返回null，字段不合法时抛出InvalidNoteRequestException
+     * 启用写缓冲时校验字段和所属用户后放入缓冲，返回缓冲中的版本，由写缓冲稍后合并写入；
+     * 缓冲后的写入失败已无法返回给客户端，所以数据库会拒绝的值必须在这里拒绝。分类的所属用户由调用方校验
+     */
     @Override
-    public boolean updateNote(Note note) {
-        return noteMapper.update(note) > 0;
+    public Note updateNote(Note note) {
+        validateNote(note);
+        applyPreview(note);
+        if (!writeBuffer.isEnabled()) {
+            return writeTransaction.execute(status -> writeNote(note));
+        }
+        Note existing = noteMapper.findWithoutContent(note.getNoteId(), note.getUserId());
+        if (existing == null) {
+            return null;
+        }
+        note.setCreatedAt(existing.getCreatedAt());
+        note.setUpdatedAt(new Date());
+        writeBuffer.put(note);
+        // 列表缓存和ETag立即失效，读取时叠加缓冲中的版本
+        changeVersions.bump(note.getUserId());
+        changeEvents.publish(note.getUserId(), ChangeEvent.KIND_NOTE, ChangeEvent.ACTION_UPSERT, note.getNoteId());
+        return note;
+    }
+
+    /**
+     * 按便签ID和所属用户更新，再在同一事务中读回更新后的行；便签不存在或不属于该用户时返回null
+     */
+    private Note writeNote(Note note) {
+        noteMapper.advanceChangeSeq(note.getUserId());
+        // 修改前的内容用于计算历史版本的差异
+        Note previous = noteMapper.findContentForUpdate(note.getNoteId(), note.getUserId());
+        if (previous == null) {
+            return null;
+        }
+        // 分类、置顶、归档都可能变化，先按旧状态移出统计，更新后再按新状态计入
+        Set<Integer> ids = Collections.singleton(note.getNoteId());
+        noteStatsMapper.addNoteCounts(note.getUserId(), ids, COUNT_OUT);
+        Note updated = noteMapper.update(note) > 0
+                ? noteMapper.findWithoutContent(note.getNoteId(), note.getUserId())
+                : null;
+        if (updated != null) {
+            updated.setContent(note.getContent());
+            noteStatsMapper.addNoteCounts(updated.getUserId(), ids, COUNT_IN);
+            revisionService.recordUpdated(previous, updated, null);
+            searchIndex.index(updated);
+            changeVersions.bump(updated.getUserId());
+            changeEvents.publish(updated.getUserId(), ChangeEvent.KIND_NOTE, ChangeEvent.ACTION_UPSERT, updated.getNoteId());
+        }
+        return updated;
     }
 
+    /**
+     * 部分更新：只写入patch.fields中列出的字段；正文可以提交基于baseHash版本的文本编辑，
+     * 基准版本已过期时抛出NoteConflictException。便签不存在或不属于该用户时返回null
+     * 返回的便签只在本次修改或读取过正文时带有正文
+     */
     @Override
-    public boolean deleteNote(Integer noteId) {
-        return noteMapper.delete(noteId) > 0;
+    @Transactional
+    public Note patchNote(Integer noteId, Integer userId, NotePatch patch) {
+        Set<String> fields = validatePatch(patch);
+        writeBuffer.flush(noteId);
+        boolean contentPatched = fields.contains(NotePatch.CONTENT);
+        boolean titlePatched = fields.contains(NotePatch.TITLE);
+        Note note = new Note();
+        note.setNoteId(noteId);
+        note.setUserId(userId);
+        note.setTitle(patch.getTitle());
+        note.setColor(patch.getColor());
+        note.setCategoryId(patch.getCategoryId());
+        note.setIsPinned(patch.getIsPinned());
+        note.setIsArchived(patch.getIsArchived());
+
+        // 先锁住用户行再读取正文，校验基准版本到写入之间不会有同一用户的其他写入
+        noteMapper.advanceChangeSeq(userId);
+        Note current = null;
+        // 修改标题或正文时需要修改前的内容，用于校验基准版本、重建检索索引和保存历史版本
+        if (contentPatched || titlePatched) {
+            current = noteMapper.findContentForUpdate(noteId, userId);
+            if (current == null) {
+                return null;
+            }
+        }
+        if (contentPatched) {
+            if (patch.getBaseHash() != null) {
+                String currentHash = TextEdits.hash(current.getContent());
+                if (!currentHash.equalsIgnoreCase(patch.getBaseHash())) {
+                    throw new NoteConflictException("便签正文已被修改，请获取最新内容后重试", currentHash);
+                }
+            }
+            note.setContent(patch.getEdits() != null
+                    ? applyEdits(current.getContent(), patch.getEdits())
+                    : patch.getContent());
+            applyPreview(note);
+        }
+
+        boolean statsChanged = fields.contains(NotePatch.CATEGORY_ID)
+                || fields.contains(NotePatch.IS_PINNED) || fields.contains(NotePatch.IS_ARCHIVED);
+        Set<Integer> ids = Collections.singleton(noteId);
+        if (statsChanged) {
+            noteStatsMapper.addNoteCounts(userId, ids, COUNT_OUT);
+        }
+        if (noteMapper.patch(userId, note, fields) == 0) {
+            return null;
+        }
+        Note updated = noteMapper.findWithoutContent(noteId, userId);
+        if (statsChanged) {
+            noteStatsMapper.addNoteCounts(userId, ids, COUNT_IN);
+        }
+
+        if (contentPatched || titlePatched) {
+            updated.setContent(contentPatched ? note.getContent() : current.getContent());
+            revisionService.recordUpdated(current, updated, contentPatched ? patch.getEdits() : null);
+            searchIndex.index(updated);
+        } else {
+            searchIndex.updateFlags(noteId, patch.getIsPinned(), patch.getIsArchived());
+            if (fields.contains(NotePatch.CATEGORY_ID)) {
+                searchIndex.updateCategory(noteId, patch.getCategoryId());
+            }
+        }
+        changeVersions.bump(userId);
+        changeEvents.publish(userId, ChangeEvent.KIND_NOTE, ChangeEvent.ACTION_UPSERT, noteId);
+        return updated;
+    }
+
+    // 客户端提交的编辑越界属于请求错误；历史版本重建时的同类错误说明数据损坏，不在这里转换
+    private static String applyEdits(String base, List<NotePatch.TextEdit> edits) {
+        try {
+            return TextEdits.apply(base, edits);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidNoteRequestException(e.getMessage(), e);
+        }
+    }
+
+    private static void validateNote(Note note) {
+        if (note.getTitle() == null || note.getTitle().trim().isEmpty()) {
+            throw new InvalidNoteRequestException("标题不能为空");
+        }
+        validateTitleLength(note.getTitle());
+        if (note.getColor() != null && note.getColor().codePointCount(0, note.getColor().length()) > MAX_COLOR_LENGTH) {
+            throw new InvalidNoteRequestException("颜色不能超过" + MAX_COLOR_LENGTH + "个字符");
+        }
+    }
+
+    private static void validateTitleLength(String title) {
+        if (title.codePointCount(0, title.length()) > MAX_TITLE_LENGTH) {
+            throw new InvalidNoteRequestException("标题不能超过" + MAX_TITLE_LENGTH + "个字符");
+        }
+    }
+
+    // 校验字段掩码和正文编辑的组合，不合法时抛出InvalidNoteRequestException
+    private Set<String> validatePatch(NotePatch patch) {
+        if (patch == null || patch.getFields() == null || patch.getFields().isEmpty()) {
+            throw new InvalidNoteRequestException("fields不能为空");
+        }
+        Set<String> fields = new HashSet<>(patch.getFields());
+        if (!PATCHABLE_FIELDS.containsAll(fields)) {
+            fields.removeAll(PATCHABLE_FIELDS);
+            throw new InvalidNoteRequestException("不支持修改的字段: " + fields);
+        }
+        if (fields.contains(NotePatch.TITLE)) {
+            if (patch.getTitle() == null) {
+                throw new InvalidNoteRequestException("标题不能为空");
+            }
+            validateTitleLength(patch.getTitle());
+        }
+        if (fields.contains(NotePatch.COLOR) && patch.getColor() != null
+                && patch.getColor().codePointCount(0, patch.getColor().length()) > MAX_COLOR_LENGTH) {
+            throw new InvalidNoteRequestException("颜色不能超过" + MAX_COLOR_LENGTH + "个字符");
+        }
+        if ((fields.contains(NotePatch.IS_PINNED) && patch.getIsPinned() == null)
+                || (fields.contains(NotePatch.IS_ARCHIVED) && patch.getIsArchived() == null)) {
+            throw new InvalidNoteRequestException("置顶和归档状态不能为空");
+        }
+        if (fields.contains(NotePatch.CONTENT)) {
+            if (patch.getEdits() != null && patch.getContent() != null) {
+                throw new InvalidNoteRequestException("content和edits只能提供一个");
+            }
+            if (patch.getEdits() != null && patch.getBaseHash() == null) {
+                throw new InvalidNoteRequestException("提交文本编辑时必须提供baseHash");
+            }
+        }
+        return fields;
     }
 
     @Override
-    public boolean pinNote(Integer noteId, Boolean isPinned) {
-        Map<String, Object> params = new HashMap<>();
-        params.put("noteId", noteId);
-        params.put("isPinned", isPinned);
-        return noteMapper.pinNote(noteId, isPinned) > 0;
+    @Transactional
+    public boolean deleteNote(Integer noteId, Integer userId) {
+        writeBuffer.flush(noteId);
+        noteMapper.advanceChangeSeq(userId);
+        noteMapper.insertTombstone(noteId, userId);
+        noteStatsMapper.addNoteCounts(userId, Collections.singleton(noteId), COUNT_OUT);
+        boolean deleted = noteMapper.delete(noteId, userId) > 0;
+        if (deleted) {
+            searchIndex.remove(noteId);
+            changeVersions.bump(userId);
+            changeEvents.publish(userId, ChangeEvent.KIND_NOTE, ChangeEvent.ACTION_DELETE, noteId);
+        }
+        return deleted;
     }
 
     @Override
-    public boolean archiveNote(Integer noteId, Boolean isArchived) {
-        Map<String, Object> params = new HashMap<>();
-        params.put("noteId", noteId);
-        params.put("isArchived", isArchived);
-        return noteMapper.archiveNote(noteId, isArchived) > 0;
+    @Transactional
+    public boolean pinNote(Integer noteId, Integer userId, Boolean isPinned) {
+        writeBuffer.flush(noteId);
+        noteMapper.advanceChangeSeq(userId);
+        Set<Integer> ids = Collections.singleton(noteId);
+        noteStatsMapper.addNoteCounts(userId, ids, COUNT_OUT);
+        boolean updated = noteMapper.pinNote(noteId, userId, isPinned) > 0;
+        if (updated) {
+            noteStatsMapper.addNoteCounts(userId, ids, COUNT_IN);
+            searchIndex.updateFlags(noteId, isPinned, null);
+            changeVersions.bump(userId);
+            changeEvents.publish(userId, ChangeEvent.KIND_NOTE, ChangeEvent.ACTION_UPSERT, noteId);
+        }
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public boolean archiveNote(Integer noteId, Integer userId, Boolean isArchived) {
+        writeBuffer.flush(noteId);
+        noteMapper.advanceChangeSeq(userId);
+        Set<Integer> ids = Collections.singleton(noteId);
+        noteStatsMapper.addNoteCounts(userId, ids, COUNT_OUT);
+        boolean updated = noteMapper.archiveNote(noteId, userId, isArchived) > 0;
+        if (updated) {
+            noteStatsMapper.addNoteCounts(userId, ids, COUNT_IN);
+            searchIndex.updateFlags(noteId, null, isArchived);
+            changeVersions.bump(userId);
+            changeEvents.publish(userId, ChangeEvent.KIND_NOTE, ChangeEvent.ACTION_UPSERT, noteId);
+        }
+        return updated;
+    }
+
+    @Override
+    public List<Note> getNotesByIds(Integer userId, List<Integer> noteIds) {
+        Set<Integer> ids = distinctIds(noteIds);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Note> found = new HashMap<>();
+        for (Note note : noteMapper.findByIds(userId, new ArrayList<>(ids))) {
+            found.put(note.getNoteId(), note);
+        }
+        // 按请求中的顺序返回，不存在或不属于该用户的ID直接跳过
+        List<Note> notes = new ArrayList<>(found.size());
+        for (Integer id : ids) {
+            Note note = found.get(id);
+            if (note != null) {
+                notes.add(note);
+            }
+        }
+        return overlayPending(notes, Collections.emptyMap(), false);
+    }
+
+    @Override
+    @Transactional
+    public BatchResult pinNotes(Integer userId, List<Integer> noteIds, Boolean isPinned) {
+        return runBatch(userId, noteIds, ChangeEvent.ACTION_UPSERT,
+                owned -> noteMapper.batchPin(userId, owned, isPinned),
+                noteId -> searchIndex.updateFlags(noteId, isPinned, null));
+    }
+
+    @Override
+    @Transactional
+    public BatchResult archiveNotes(Integer userId, List<Integer> noteIds, Boolean isArchived) {
+        return runBatch(userId, noteIds, ChangeEvent.ACTION_UPSERT,
+                owned -> noteMapper.batchArchive(userId, owned, isArchived),
+                noteId -> searchIndex.updateFlags(noteId, null, isArchived));
+    }
+
+    @Override
+    @Transactional
+    public BatchResult moveNotes(Integer userId, List<Integer> noteIds, Integer categoryId) {
+        return runBatch(userId, noteIds, ChangeEvent.ACTION_UPSERT,
+                owned -> noteMapper.batchMove(userId, owned, categoryId),
+                noteId -> searchIndex.updateCategory(noteId, categoryId));
+    }
+
+    @Override
+    @Transactional
+    public BatchResult deleteNotes(Integer userId, List<Integer> noteIds) {
+        return runBatch(userId, noteIds, ChangeEvent.ACTION_DELETE,
+                owned -> {
+                    noteMapper.insertTombstones(userId, owned);
+                    return noteMapper.batchDelete(userId, owned);
+                },
+                searchIndex::remove);
+    }
+
+    /**
+     * 批量操作的公共流程：一次查询确定属于该用户的ID，再用一条集合语句更新这些ID，
+     * 除分配变更序号外，无论便签数量多少都只有两条SQL
+     */
+    private BatchResult runBatch(Integer userId, List<Integer> noteIds, String action,
+                                 ToIntFunction<Collection<Integer>> update, Consumer<Integer> indexUpdate) {
+        Set<Integer> ids = distinctIds(noteIds);
+        BatchResult result = new BatchResult();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        Set<Integer> owned = new HashSet<>(noteMapper.findOwnedIds(userId, ids));
+        if (!owned.isEmpty()) {
+            owned.forEach(writeBuffer::flush);
+            noteMapper.advanceChangeSeq(userId);
+            noteStatsMapper.addNoteCounts(userId, owned, COUNT_OUT);
+            result.setAffected(update.applyAsInt(owned));
+            if (!ChangeEvent.ACTION_DELETE.equals(action)) {
+                noteStatsMapper.addNoteCounts(userId, owned, COUNT_IN);
+            }
+            owned.forEach(indexUpdate);
+            changeVersions.bump(userId);
+            changeEvents.publish(userId, ChangeEvent.KIND_NOTE, action, owned);
+        }
+        for (Integer id : ids) {
+            result.getResults().add(new BatchResult.Item(id, owned.contains(id) ? BatchResult.OK : BatchResult.NOT_FOUND));
+        }
+        return result;
+    }
+
+    /**
+     * 分类删除后把其中的便签移到未分类，统计桶整体并入未分类，不需要逐条重算
+     */
+    @Override
+    @Transactional
+    public int detachCategory(Integer userId, Integer categoryId) {
+        // 缓冲中的更新可能把便签移入该分类，先写入再查找
+        writeBuffer.flushUser(userId);
+        List<Integer> noteIds = noteMapper.findIdsByCategory(userId, categoryId);
+        if (noteIds.isEmpty()) {
+            noteStatsMapper.deleteCategory(userId, categoryId);
+            return 0;
+        }
+        noteMapper.advanceChangeSeq(userId);
+        noteStatsMapper.mergeIntoUncategorized(userId, categoryId);
+        noteStatsMapper.deleteCategory(userId, categoryId);
+        int moved = noteMapper.batchMove(userId, noteIds, null);
+        noteIds.forEach(noteId -> searchIndex.updateCategory(noteId, null));
+        changeVersions.bump(userId);
+        changeEvents.publish(userId, ChangeEvent.KIND_NOTE, ChangeEvent.ACTION_UPSERT, noteIds);
+        return moved;
+    }
+
+    /**
+     * 汇总统计表中的分桶，行数只和分类数有关；days为活跃度热力图包含的天数（含今天）
+     */
+    @Override
+    public NoteStats getNoteStats(Integer userId, int days) {
+        NoteStats stats = new NoteStats();
+        Map<Integer, NoteStats.CategoryCount> categories = new LinkedHashMap<>();
+        for (NoteStatsBucket bucket : noteStatsMapper.findByUserId(userId)) {
+            int count = bucket.getNoteCount();
+            boolean archived = Boolean.TRUE.equals(bucket.getIsArchived());
+            if (archived) {
+                stats.setArchived(stats.getArchived() + count);
+            } else {
+                stats.setTotal(stats.getTotal() + count);
+                if (Boolean.TRUE.equals(bucket.getIsPinned())) {
+                    stats.setPinned(stats.getPinned() + count);
+                }
+            }
+            if (bucket.getCategoryId() == 0) {
+                if (!archived) {
+                    stats.setUncategorized(stats.getUncategorized() + count);
+                }
+                continue;
+            }
+            NoteStats.CategoryCount category = categories.computeIfAbsent(bucket.getCategoryId(), NoteStats.CategoryCount::new);
+            if (archived) {
+                category.setArchivedCount(category.getArchivedCount() + count);
+            } else {
+                category.setNoteCount(category.getNoteCount() + count);
+                if (Boolean.TRUE.equals(bucket.getIsPinned())) {
+                    category.setPinnedCount(category.getPinnedCount() + count);
+                }
+            }
+        }
+        stats.setCategories(new ArrayList<>(categories.values()));
+        stats.setActivity(noteStatsMapper.findDailyActivity(userId, LocalDate.now().minusDays(days - 1)));
+        return stats;
+    }
+
+    @Override
+    public Map<String, Object> getWriteBufferStats() {
+        return writeBuffer.stats();
+    }
+
+    /**
+     * 用写缓冲中尚未写入的版本替换查询结果中的对应字段。SQL的过滤和排序按数据库中的值执行：
+     * 叠加后不再满足请求中分类、归档条件的行被去掉；keysetOrder为true时叠加改变了置顶或更新时间的行
+     * 按列表顺序重新排列，分页时排到游标位置之前的行属于前面的页，也从本页去掉
+     */
+    private List<Note> overlayPending(List<Note> notes, Map<String, Object> filters, boolean keysetOrder) {
+        return overlayPending(notes, filters, keysetOrder, Note::getNoteId, NoteServiceImpl::overlay, NoteServiceImpl::cursorOf);
+    }
+
+    private List<NoteSummary> overlayPendingSummaries(List<NoteSummary> summaries, Map<String, Object> filters) {
+        return overlayPending(summaries, filters, true, NoteSummary::getNoteId, NoteServiceImpl::overlay,
+                NoteServiceImpl::summaryCursorOf);
+    }
+
+    private <T> List<T> overlayPending(List<T> rows, Map<String, Object> filters, boolean keysetOrder,
+                                       Function<T, Integer> idOf, BiConsumer<T, Note> overlay,
+                                       Function<T, NoteCursor> cursorOf) {
+        if (writeBuffer.isEmpty()) {
+            return rows;
+        }
+        Integer categoryId = (Integer) filters.get("categoryId");
+        Boolean isArchived = (Boolean) filters.get("isArchived");
+        NoteCursor after = keysetOrder && filters.get("cursorNoteId") != null
+                ? NoteCursor.keyset((Boolean) filters.get("cursorPinned"), (Date) filters.get("cursorUpdatedAt"),
+                        (Integer) filters.get("cursorNoteId"))
+                : null;
+        List<T> result = new ArrayList<>(rows.size());
+        boolean reordered = false;
+        for (T row : rows) {
+            Note pending = writeBuffer.get(idOf.apply(row));
+            if (pending == null) {
+                result.add(row);
+                continue;
+            }
+            if ((categoryId != null && !categoryId.equals(pending.getCategoryId()))
+                    || (isArchived != null && isArchived != Boolean.TRUE.equals(pending.getIsArchived()))) {
+                continue;
+            }
+            NoteCursor before = cursorOf.apply(row);
+            overlay.accept(row, pending);
+            if (keysetOrder) {
+                NoteCursor position = cursorOf.apply(row);
+                if (after != null && KEYSET_ORDER.compare(position, after) <= 0) {
+                    continue;
+                }
+                reordered |= KEYSET_ORDER.compare(before, position) != 0;
+            }
+            result.add(row);
+        }
+        if (reordered) {
+            result.sort((a, b) -> KEYSET_ORDER.compare(cursorOf.apply(a), cursorOf.apply(b)));
+        }
+        return result;
+    }
+
+    private static void overlay(Note note, Note pending) {
+        note.setTitle(pending.getTitle());
+        note.setContent(pending.getContent());
+        note.setContentPreview(pending.getContentPreview());
+        note.setContentLength(pending.getContentLength());
+        note.setColor(pending.getColor());
+        note.setCategoryId(pending.getCategoryId());
+        note.setIsPinned(pending.getIsPinned());
+        note.setIsArchived(pending.getIsArchived());
+        note.setUpdatedAt(pending.getUpdatedAt());
+    }
+
+    private static void overlay(NoteSummary summary, Note pending) {
+        summary.setTitle(pending.getTitle());
+        summary.setContentPreview(pending.getContentPreview());
+        summary.setContentLength(pending.getContentLength());
+        summary.setColor(pending.getColor());
+        summary.setCategoryId(pending.getCategoryId());
+        summary.setIsPinned(pending.getIsPinned());
+        summary.setIsArchived(pending.getIsArchived());
+        summary.setUpdatedAt(pending.getUpdatedAt());
+    }
+
+    // 去重并保持请求顺序，超过上限时抛出InvalidNoteRequestException
+    private Set<Integer> distinctIds(List<Integer> noteIds) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        if (noteIds != null) {
+            for (Integer id : noteIds) {
+                if (id != null) {
+                    ids.add(id);
+                }
+            }
+        }
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new InvalidNoteRequestException("单次最多操作" + MAX_BATCH_SIZE + "个便签");
+        }
+        return ids;
+    }
+
+    /**
+     * 增量同步：返回令牌之后新建/修改的便签和删除记录，两者按 (change_seq, note_id) 归并后取前limit条
+     * 在只读事务中执行，两条查询看到同一个快照
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public NoteChanges getChangesSince(Integer userId, String token, int limit) {
+        SyncToken since = SyncToken.decode(token);
+        List<Note> changed = noteMapper.findChangedSince(userId, since.getChangeSeq(), since.getNoteId(), limit + 1);
+        List<NoteTombstone> tombstones = noteMapper.findTombstonesSince(userId, since.getChangeSeq(), since.getNoteId(), limit + 1);
+
+        List<Note> notes = new ArrayList<>();
+        List<NoteTombstone> deleted = new ArrayList<>();
+        SyncToken last = since;
+        int i = 0;
+        int j = 0;
+        while (notes.size() + deleted.size() < limit && (i < changed.size() || j < tombstones.size())) {
+            boolean takeNote;
+            if (i >= changed.size()) {
+                takeNote = false;
+            } else if (j >= tombstones.size()) {
+                takeNote = true;
+            } else {
+                Note n = changed.get(i);
+                NoteTombstone t = tombstones.get(j);
+                int cmp = Long.compare(n.getChangeSeq(), t.getChangeSeq());
+                takeNote = cmp < 0 || (cmp == 0 && n.getNoteId() < t.getNoteId());
+            }
+            if (takeNote) {
+                Note note = changed.get(i++);
+                notes.add(note);
+                last = new SyncToken(note.getChangeSeq(), note.getNoteId());
+            } else {
+                NoteTombstone tombstone = tombstones.get(j++);
+                deleted.add(tombstone);
+                last = new SyncToken(tombstone.getChangeSeq(), tombstone.getNoteId());
+            }
+        }
+        boolean hasMore = i < changed.size() || j < tombstones.size();
+        return new NoteChanges(notes, deleted, last.encode(), hasMore);
+    }
+
+    // 写入时计算列表预览和字数，列表查询不再需要读取正文
+    private void applyPreview(Note note) {
+        String content = note.getContent();
+        if (content == null) {
+            note.setContentPreview(null);
+            note.setContentLength(0);
+            return;
+        }
+        int maxLength = Math.min(previewLength, MAX_PREVIEW_LENGTH);
+        StringBuilder preview = new StringBuilder(Math.min(content.length(), maxLength));
+        int previewChars = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < content.length() && previewChars < maxLength; ) {
+            int cp = content.codePointAt(i);
+            i += Character.charCount(cp);
+            if (Character.isWhitespace(cp)) {
+                pendingSpace = preview.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                preview.append(' ');
+                pendingSpace = false;
+                if (++previewChars >= maxLength) {
+                    break;
+                }
+            }
+            preview.appendCodePoint(cp);
+            previewChars++;
+        }
+        note.setContentPreview(preview.toString());
+        note.setContentLength(content.codePointCount(0, content.length()));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,337 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.metrics.LatencyHistogram;
+import com.example.backend.model.Note;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 便签整行更新的写缓冲（write-behind）
+ * 编辑器自动保存时同一便签几秒内会收到多次几乎相同的整行更新。更新先放入缓冲区，
+ * 窗口期内同一便签的后续更新直接替换缓冲中的版本，窗口期结束后只把最后一个版本写入数据库。
+ * 缓冲中的便签数超过上限时由调用线程立即写入最早的条目；关闭时写入全部条目
+ * 写入失败的条目保留在缓冲中，读取时仍叠加缓冲中的版本，一个窗口期后重试，直到写入成功；
+ * 失败情况通过stats中的failingCount和lastError报告，同一便签的其他写操作调用flush时会收到异常
+ * 在事务中调用flush时写入加入调用方的事务，不再占用第二个连接；条目在事务提交后才移出缓冲，回滚时保留等待重试
+ */
+class NoteWriteBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteWriteBuffer.class);
+
+    // 关闭时等待后台写入线程结束的时间
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    /**
+     * 缓冲中的一个便签，note和version只在ConcurrentHashMap的compute中修改
+     */
+    private static final class Pending {
+        private final Integer userId;
+        private volatile Note note;
+        private volatile long version;
+        private volatile long firstBufferedAt;
+        // 连续写入失败的次数，写入成功后清零
+        private volatile int attempts;
+        // 已在调用方事务中写入、等待提交的次数，大于0时后台线程跳过该条目
+        private final AtomicInteger uncommitted = new AtomicInteger();
+        // 写入数据库期间持有；不用synchronized，虚拟线程阻塞在JDBC调用上时不会占住载体线程
+        private final ReentrantLock flushLock = new ReentrantLock();
+
+        Pending(Integer userId, long firstBufferedAt) {
+            this.userId = userId;
+            this.firstBufferedAt = firstBufferedAt;
+        }
+    }
+
+    private final ConcurrentHashMap<Integer, Pending> pending = new ConcurrentHashMap<>();
+    // 把一个版本写入数据库，返回写入后的便签；便签已不存在或不属于该用户时返回null
+    private final Function<Note, Note> writer;
+    private final long windowMillis;
+    private final int maxPending;
+    private final ScheduledExecutorService flusher;
+    private final LatencyHistogram flushLatency;
+    private volatile boolean closed;
+
+    private final LongAdder bufferedCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder flushCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private final LongAdder delayMillis = new LongAdder();
+    private final AtomicLong maxDelayMillis = new AtomicLong();
+    private volatile String lastError;
+
+    /**
+     * @param windowMillis 第一次缓冲到写入数据库的最长时间，不大于0时不缓冲，每次更新直接写入
+     * @param maxPending   缓冲的便签数上限
+     * @param flushLatency 记录每次写入数据库的耗时
+     */
+    NoteWriteBuffer(Function<Note, Note> writer, long windowMillis, int maxPending, LatencyHistogram flushLatency) {
+        this.writer = writer;
+        this.flushLatency = flushLatency;
+        this.windowMillis = windowMillis;
+        this.maxPending = Math.max(1, maxPending);
+        if (windowMillis > 0) {
+            long tickMillis = Math.max(50, windowMillis / 5);
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "note-write-buffer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushDue, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+            logger.info("便签写缓冲已启用，窗口{}毫秒，上限{}个便签", windowMillis, this.maxPending);
+        } else {
+            flusher = null;
+        }
+    }
+
+    boolean isEnabled() {
+        return flusher != null && !closed;
+    }
+
+    /**
+     * 放入缓冲，替换同一便签尚未写入的版本；调用方负责事先校验便签的所属用户
+     */
+    void put(Note note) {
+        long now = System.currentTimeMillis();
+        pending.compute(note.getNoteId(), (noteId, entry) -> {
+            if (entry == null) {
+                entry = new Pending(note.getUserId(), now);
+            } else {
+                coalescedCount.increment();
+            }
+            entry.note = note;
+            entry.version++;
+            return entry;
+        });
+        bufferedCount.increment();
+        if (pending.size() > maxPending) {
+            flushOldest();
+        }
+    }
+
+    /**
+     * 缓冲中尚未写入的版本，没有时返回null
+     */
+    Note get(Integer noteId) {
+        Pending entry = pending.get(noteId);
+        return entry != null ? entry.note : null;
+    }
+
+    boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * 立即写入该便签缓冲中的版本，写入失败时抛出异常，条目保留在缓冲中
+     * 同一便签的其他写操作执行前必须先调用，保证写入顺序；在事务中调用时与调用方的修改一起提交
+     */
+    void flush(Integer noteId) {
+        Pending entry = pending.get(noteId);
+        if (entry != null) {
+            flushEntry(noteId, entry);
+        }
+    }
+
+    /**
+     * 立即写入该用户缓冲中的全部便签
+     */
+    void flushUser(Integer userId) {
+        for (Map.Entry<Integer, Pending> e : pending.entrySet()) {
+            if (e.getValue().userId.equals(userId)) {
+                flushEntry(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    /**
+     * 停止后台写入并写入全部缓冲的便签，之后的更新不再缓冲
+     */
+    void close() {
+        closed = true;
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        int remaining = pending.size();
+        for (Map.Entry<Integer, Pending> e : pending.entrySet()) {
+            flushQuietly(e.getKey(), e.getValue());
+        }
+        if (!pending.isEmpty()) {
+            logger.error("关闭便签写缓冲，{}个便签写入失败，更新未保存: {}", pending.size(), pending.keySet());
+        } else if (remaining > 0) {
+            logger.info("关闭便签写缓冲，写入{}个便签", remaining);
+        }
+    }
+
+    /**
+     * 缓冲深度、合并次数和写入耗时等指标
+     */
+    Map<String, Object> stats() {
+        long now = System.currentTimeMillis();
+        long oldest = 0;
+        int failing = 0;
+        for (Pending entry : pending.values()) {
+            oldest = Math.max(oldest, now - entry.firstBufferedAt);
+            if (entry.attempts > 0) {
+                failing++;
+            }
+        }
+        long flushes = flushCount.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("windowMillis", windowMillis);
+        stats.put("depth", pending.size());
+        stats.put("maxDepth", maxPending);
+        stats.put("oldestPendingMillis", oldest);
+        stats.put("bufferedCount", bufferedCount.sum());
+        stats.put("coalescedCount", coalescedCount.sum());
+        stats.put("flushCount", flushes);
+        stats.put("failedCount", failedCount.sum());
+        stats.put("failingCount", failing);
+        stats.put("lastError", lastError);
+        stats.put("droppedCount", droppedCount.sum());
+        stats.put("flushAvgMillis", flushes > 0 ? flushNanos.sum() / 1e6 / flushes : 0.0);
+        stats.put("flushMaxMillis", maxFlushNanos.get() / 1e6);
+        stats.put("delayAvgMillis", flushes > 0 ? (double) delayMillis.sum() / flushes : 0.0);
+        stats.put("delayMaxMillis", maxDelayMillis.get());
+        return stats;
+    }
+
+    // 后台定时写入已超过窗口期的条目
+    private void flushDue() {
+        long deadline = System.currentTimeMillis() - windowMillis;
+        for (Map.Entry<Integer, Pending> e : pending.entrySet()) {
+            if (e.getValue().firstBufferedAt <= deadline && e.getValue().uncommitted.get() == 0) {
+                flushQuietly(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    // 超过上限时调用线程写入最早缓冲的条目，写入速度跟不上时对更新请求形成背压
+    private void flushOldest() {
+        Integer oldestId = null;
+        Pending oldest = null;
+        for (Map.Entry<Integer, Pending> e : pending.entrySet()) {
+            if (oldest == null || e.getValue().firstBufferedAt < oldest.firstBufferedAt) {
+                oldestId = e.getKey();
+                oldest = e.getValue();
+            }
+        }
+        if (oldest != null) {
+            flushQuietly(oldestId, oldest);
+        }
+    }
+
+    private void flushQuietly(Integer noteId, Pending entry) {
+        try {
+            flushEntry(noteId, entry);
+        } catch (RuntimeException e) {
+            logger.error("写入缓冲的便签{}失败（连续{}次），保留在缓冲中等待重试", noteId, entry.attempts, e);
+        }
+    }
+
+    /**
+     * 同一便签的写入互斥进行；写入期间到达的新版本留在缓冲中，从写入完成时重新计算窗口期
+     */
+    private void flushEntry(Integer noteId, Pending entry) {
+        entry.flushLock.lock();
+        try {
+            if (pending.get(noteId) != entry) {
+                return;
+            }
+            // 先读版本号再读便签：读到的便签不会比版本号对应的旧，最多多写一次
+            long version = entry.version;
+            Long writtenInTransaction = (Long) TransactionSynchronizationManager.getResource(entry);
+            if (writtenInTransaction != null && writtenInTransaction == version) {
+                // 当前事务已写入这个版本
+                return;
+            }
+            Note note = entry.note;
+            long start = System.nanoTime();
+            Note written;
+            try {
+                written = writer.apply(note);
+            } catch (RuntimeException e) {
+                // 保留条目，从现在起再等一个窗口期重试，也让上限触发的同步写入先处理其他条目
+                failedCount.increment();
+                entry.attempts++;
+                entry.firstBufferedAt = System.currentTimeMillis();
+                lastError = "便签" + noteId + ": " + e;
+                throw e;
+            }
+            long elapsed = System.nanoTime() - start;
+            long delay = System.currentTimeMillis() - entry.firstBufferedAt;
+            flushCount.increment();
+            flushNanos.add(elapsed);
+            flushLatency.record(elapsed);
+            maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+            delayMillis.add(delay);
+            maxDelayMillis.accumulateAndGet(delay, Math::max);
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                settle(noteId, entry, version, written);
+                return;
+            }
+            // 写入属于调用方的事务，提交后才能移出缓冲；回滚时保留，一个窗口期后由后台线程重写
+            if (writtenInTransaction == null) {
+                entry.uncommitted.incrementAndGet();
+            } else {
+                TransactionSynchronizationManager.unbindResource(entry);
+            }
+            TransactionSynchronizationManager.bindResource(entry, version);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (TransactionSynchronizationManager.unbindResourceIfPossible(entry) != null) {
+                        entry.uncommitted.decrementAndGet();
+                    }
+                    if (status == STATUS_COMMITTED) {
+                        settle(noteId, entry, version, written);
+                    } else {
+                        entry.firstBufferedAt = System.currentTimeMillis();
+                    }
+                }
+            });
+        } finally {
+            entry.flushLock.unlock();
+        }
+    }
+
+    // 写入已生效：版本未变时移出缓冲，写入期间有新版本时从现在起重新计算窗口期
+    private void settle(Integer noteId, Pending entry, long version, Note written) {
+        if (written == null) {
+            droppedCount.increment();
+            logger.warn("便签{}已不存在或不属于用户{}，丢弃缓冲中的更新", noteId, entry.userId);
+        }
+        pending.computeIfPresent(noteId, (id, current) -> {
+            if (current != entry) {
+                return current;
+            }
+            if (written == null || current.version == version) {
+                return null;
+            }
+            current.firstBufferedAt = System.currentTimeMillis();
+            current.attempts = 0;
+            return current;
+        });
+    }
+}
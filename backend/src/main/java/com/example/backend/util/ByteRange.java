@@ -0,0 +1,74 @@
+package com.example.backend.util;
+
+/**
+ * 下载请求中的单段字节范围，start和end都包含在内
+ */
+public final class ByteRange {
+
+    private static final String UNIT = "bytes=";
+
+    private final long start;
+    private final long end;
+
+    public ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * 是否按Range返回部分内容：没有Range时不处理，If-Range与当前ETag不一致时忽略Range，返回完整文件
+     */
+    public static boolean applies(String range, String ifRange, String etag) {
+        return range != null && (ifRange == null || ifRange.equals(etag));
+    }
+
+    /**
+     * 解析单段Range请求头，结束位置超过文件末尾时截到最后一个字节，多段或无法满足时返回null
+     */
+    public static ByteRange parse(String range, long size) {
+        if (!range.startsWith(UNIT) || range.indexOf(',') >= 0 || size == 0) {
+            return null;
+        }
+        String spec = range.substring(UNIT.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // 后缀形式：bytes=-N 表示最后N个字节
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            }
+            if (start < 0 || start >= size || end < start) {
+                return null;
+            }
+            return new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getLength() {
+        return end - start + 1;
+    }
+}
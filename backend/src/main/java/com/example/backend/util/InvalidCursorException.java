@@ -0,0 +1,15 @@
+package com.example.backend.util;
+
+/**
+ * 客户端传回的分页游标或同步令牌无法解析，或者不能用于当前列表
+ */
+public class InvalidCursorException extends IllegalArgumentException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
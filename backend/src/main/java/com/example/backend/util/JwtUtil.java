@@ -1,12 +1,17 @@
 package com.example.backend.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -18,23 +23,72 @@ public class JwtUtil {
     // token过期时间（6小时）
     private static final long EXPIRATION_TIME = 6 * 60 * 60 * 1000;
 
+    // 用户ID声明名称
+    public static final String CLAIM_USER_ID = "uid";
+
+    // 已验证token缓存的容量上限
+    private static final int VERIFIED_CACHE_SIZE = 10_000;
+
     // 签名密钥，实际应用中应存储在配置文件中
-    private static final String SECRET_KEY = "ThisIsASecretKeyForJWTGenerationWhichShouldBeStoredInConfiguration";    
-    
-    // 获取签名密钥
-    private Key getSignKey() {
-        // 使用固定密钥
-        byte[] keyBytes = SECRET_KEY.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static final String SECRET_KEY = "ThisIsASecretKeyForJWTGenerationWhichShouldBeStoredInConfiguration";
+
+    // 密钥和解析器都是线程安全的，只构建一次
+    private final Key signKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes(StandardCharsets.UTF_8));
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signKey).build();
+
+    // 已通过验签的token，按token的SHA-256摘要索引，条目在token过期时失效
+    private final TtlCache<String, VerifiedToken> verifiedTokens = new TtlCache<>(VERIFIED_CACHE_SIZE, EXPIRATION_TIME);
+
+    /**
+     * 验签通过后的token内容
+     */
+    public static final class VerifiedToken {
+        private final String username;
+        private final Integer userId;
+        private final Date expiration;
+
+        VerifiedToken(String username, Integer userId, Date expiration) {
+            this.username = username;
+            this.userId = userId;
+            this.expiration = expiration;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public Integer getUserId() {
+            return userId;
+        }
+
+        public Date getExpiration() {
+            return expiration;
+        }
+    }
+
+    /**
+     * 解析并验证token，每个token只做一次HS512验签，之后直到过期都直接命中缓存
+     * 签名错误、格式错误或已过期时抛出对应的JwtException
+     */
+    public VerifiedToken verify(String token) {
+        String key = digest(token);
+        VerifiedToken cached = verifiedTokens.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = extractAllClaims(token);
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(),
+                userId != null ? userId.intValue() : null, claims.getExpiration());
+        if (verified.getExpiration() != null) {
+            verifiedTokens.put(key, verified, verified.getExpiration().getTime());
+        }
+        return verified;
     }
 
     // 从token中获取所有声明
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     // 从token中提取特定声明
@@ -45,12 +99,17 @@ public class JwtUtil {
 
     // 从token中提取用户名
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).getUsername();
+    }
+
+    // 从token中提取用户ID，旧token没有该声明时返回null
+    public Integer extractUserId(String token) {
+        return verify(token).getUserId();
     }
 
     // 从token中提取过期时间
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return verify(token).getExpiration();
     }
 
     // 检查token是否过期
@@ -58,9 +117,12 @@ public class JwtUtil {
         return extractExpiration(token).before(new Date());
     }
 
-    // 生成token
-    public String generateToken(String username) {
+    // 生成token，用户ID作为声明写入，认证时无需查库
+    public String generateToken(String username, Integer userId) {
         Map<String, Object> claims = new HashMap<>();
+        if (userId != null) {
+            claims.put(CLAIM_USER_ID, userId);
+        }
         return createToken(claims, username);
     }
 
@@ -71,7 +133,7 @@ public class JwtUtil {
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(getSignKey(), SignatureAlgorithm.HS512)
+                .signWith(signKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
@@ -80,4 +142,14 @@ public class JwtUtil {
         final String extractedUsername = extractUsername(token);
         return (extractedUsername.equals(username) && !isTokenExpired(token));
     }
-}
\ No newline at end of file
+
+    // 缓存键使用token摘要，避免在内存中长期保存完整token
+    private static String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
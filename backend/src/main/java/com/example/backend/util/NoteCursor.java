@@ -0,0 +1,87 @@
+package com.example.backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * 便签列表的不透明分页游标
+ * 列表按 (is_pinned, updated_at, note_id) 倒序做键集分页；关键词检索按相关度排序，游标记录得分和便签ID
+ */
+public final class NoteCursor {
+
+    private static final String KEYSET = "k";
+    private static final String RANKED = "r";
+
+    private final boolean ranked;
+    private final boolean pinned;
+    private final long updatedAt;
+    private final double score;
+    private final int noteId;
+
+    private NoteCursor(boolean ranked, boolean pinned, long updatedAt, double score, int noteId) {
+        this.ranked = ranked;
+        this.pinned = pinned;
+        this.updatedAt = updatedAt;
+        this.score = score;
+        this.noteId = noteId;
+    }
+
+    public static NoteCursor keyset(Boolean pinned, Date updatedAt, Integer noteId) {
+        return new NoteCursor(false, Boolean.TRUE.equals(pinned), updatedAt != null ? updatedAt.getTime() : 0L, 0, noteId);
+    }
+
+    public static NoteCursor ranked(double score, int noteId) {
+        return new NoteCursor(true, false, 0L, score, noteId);
+    }
+
+    /**
+     * 解析客户端传回的游标，格式非法时抛出InvalidCursorException
+     */
+    public static NoteCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (KEYSET.equals(parts[0]) && parts.length == 4) {
+                return new NoteCursor(false, "1".equals(parts[1]), Long.parseLong(parts[2]), 0, Integer.parseInt(parts[3]));
+            }
+            if (RANKED.equals(parts[0]) && parts.length == 3) {
+                double score = Double.parseDouble(parts[1]);
+                // NaN与任何得分比较都为false，会让相关度分页无法定位
+                if (!Double.isNaN(score) && !Double.isInfinite(score)) {
+                    return new NoteCursor(true, false, 0L, score, Integer.parseInt(parts[2]));
+                }
+            }
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("无效的分页游标: " + cursor, e);
+        }
+        throw new InvalidCursorException("无效的分页游标: " + cursor);
+    }
+
+    public String encode() {
+        String raw = ranked
+                ? RANKED + "|" + score + "|" + noteId
+                : KEYSET + "|" + (pinned ? "1" : "0") + "|" + updatedAt + "|" + noteId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isRanked() {
+        return ranked;
+    }
+
+    public boolean isPinned() {
+        return pinned;
+    }
+
+    public Date getUpdatedAt() {
+        return new Date(updatedAt);
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public int getNoteId() {
+        return noteId;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 增量同步的不透明令牌
+ * 记录客户端已经收到的最后一条变更 (change_seq, note_id)，下次同步从它之后继续
+ */
+public final class SyncToken {
+
+    private static final String VERSION = "s1";
+
+    // 从头同步：返回所有现存便签
+    public static final SyncToken INITIAL = new SyncToken(0L, 0);
+
+    private final long changeSeq;
+    private final int noteId;
+
+    public SyncToken(long changeSeq, int noteId) {
+        this.changeSeq = changeSeq;
+        this.noteId = noteId;
+    }
+
+    /**
+     * 解析客户端传回的令牌，为空时从头同步，格式非法时抛出InvalidCursorException
+     */
+    public static SyncToken decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return INITIAL;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (VERSION.equals(parts[0]) && parts.length == 3) {
+                long changeSeq = Long.parseLong(parts[1]);
+                int noteId = Integer.parseInt(parts[2]);
+                // 变更序号和便签ID都不会是负数，出现负数说明令牌被改动过
+                if (changeSeq >= 0 && noteId >= 0) {
+                    return new SyncToken(changeSeq, noteId);
+                }
+            }
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("无效的同步令牌: " + token, e);
+        }
+        throw new InvalidCursorException("无效的同步令牌: " + token);
+    }
+
+    public String encode() {
+        String raw = VERSION + "|" + changeSeq + "|" + noteId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public int getNoteId() {
+        return noteId;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.backend.util;
+
+import com.example.backend.model.dto.NotePatch;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 正文的文本编辑、差异计算和版本哈希
+ */
+public final class TextEdits {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private TextEdits() {
+    }
+
+    /**
+     * 把一组编辑应用到原文上，一次顺序拼接完成；编辑不合法时抛出IllegalArgumentException
+     */
+    public static String apply(String base, List<NotePatch.TextEdit> edits) {
+        String text = base != null ? base : "";
+        int growth = 0;
+        for (NotePatch.TextEdit edit : edits) {
+            growth += (edit.getInsert() != null ? edit.getInsert().length() : 0) - edit.getDelete();
+        }
+        StringBuilder result = new StringBuilder(Math.max(0, text.length() + growth));
+        int copied = 0;
+        for (NotePatch.TextEdit edit : edits) {
+            int start = edit.getOffset();
+            int end = start + edit.getDelete();
+            if (start < copied || edit.getDelete() < 0 || end > text.length() || end < start) {
+                throw new IllegalArgumentException("文本编辑的位置越界或相互重叠: offset=" + start + ", delete=" + edit.getDelete());
+            }
+            if (splitsSurrogatePair(text, start) || splitsSurrogatePair(text, end)) {
+                throw new IllegalArgumentException("文本编辑的位置不能落在代理对中间: offset=" + start);
+            }
+            result.append(text, copied, start);
+            if (edit.getInsert() != null) {
+                result.append(edit.getInsert());
+            }
+            copied = end;
+        }
+        result.append(text, copied, text.length());
+        return result.toString();
+    }
+
+    /**
+     * 计算从旧文本到新文本的编辑：去掉公共前缀和后缀后，用一处替换表示中间的差异
+     * 两者相同时返回空列表
+     */
+    public static List<NotePatch.TextEdit> diff(String oldText, String newText) {
+        String before = oldText != null ? oldText : "";
+        String after = newText != null ? newText : "";
+        List<NotePatch.TextEdit> edits = new ArrayList<>(1);
+        if (before.equals(after)) {
+            return edits;
+        }
+        int prefix = 0;
+        int max = Math.min(before.length(), after.length());
+        while (prefix < max && before.charAt(prefix) == after.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && before.charAt(before.length() - 1 - suffix) == after.charAt(after.length() - 1 - suffix)) {
+            suffix++;
+        }
+        // 不在代理对中间切开
+        if (prefix > 0 && Character.isHighSurrogate(before.charAt(prefix - 1))) {
+            prefix--;
+        }
+        if (suffix > 0 && Character.isLowSurrogate(before.charAt(before.length() - suffix))) {
+            suffix--;
+        }
+        edits.add(new NotePatch.TextEdit(prefix, before.length() - prefix - suffix,
+                after.substring(prefix, after.length() - suffix)));
+        return edits;
+    }
+
+    /**
+     * 编辑序列化为紧凑文本，每处编辑为"offset,delete,插入长度:插入内容"，依次拼接
+     */
+    public static String encode(List<NotePatch.TextEdit> edits) {
+        StringBuilder out = new StringBuilder();
+        for (NotePatch.TextEdit edit : edits) {
+            String insert = edit.getInsert() != null ? edit.getInsert() : "";
+            out.append(edit.getOffset()).append(',').append(edit.getDelete()).append(',')
+                    .append(insert.length()).append(':').append(insert);
+        }
+        return out.toString();
+    }
+
+    /**
+     * 解析encode的结果，格式错误时抛出IllegalArgumentException
+     */
+    public static List<NotePatch.TextEdit> decode(String encoded) {
+        List<NotePatch.TextEdit> edits = new ArrayList<>();
+        int pos = 0;
+        try {
+            while (pos < encoded.length()) {
+                int comma1 = encoded.indexOf(',', pos);
+                int comma2 = encoded.indexOf(',', comma1 + 1);
+                int colon = encoded.indexOf(':', comma2 + 1);
+                int offset = Integer.parseInt(encoded.substring(pos, comma1));
+                int delete = Integer.parseInt(encoded.substring(comma1 + 1, comma2));
+                int length = Integer.parseInt(encoded.substring(comma2 + 1, colon));
+                edits.add(new NotePatch.TextEdit(offset, delete, encoded.substring(colon + 1, colon + 1 + length)));
+                pos = colon + 1 + length;
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("无法解析的文本编辑: 位置" + pos, e);
+        }
+        return edits;
+    }
+
+    /**
+     * 正文的版本哈希：UTF-8编码后的SHA-256，小写十六进制；null按空串计算
+     */
+    public static String hash(String text) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] digest = md.digest((text != null ? text : "").getBytes(StandardCharsets.UTF_8));
+            char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+                hex[i * 2 + 1] = HEX[digest[i] & 0xF];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static boolean splitsSurrogatePair(String text, int index) {
+        return index > 0 && index < text.length()
+                && Character.isHighSurrogate(text.charAt(index - 1))
+                && Character.isLowSurrogate(text.charAt(index));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.backend.util;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 每个用户的数据变更版本号
+ * 便签或分类的每次写入都会递增版本号，列表类接口用它生成ETag和响应缓存的键，判断数据是否变化无需查询数据库。
+ * 版本号只保存在内存中，加上进程启动标识，重启后所有旧ETag自然失效。
+ * 前提是只部署单个实例：多实例时写入只会递增处理该请求的实例上的版本号，其他实例会继续返回304和旧的缓存，
+ * 需要按用户粘性路由，或者把版本号改为存储在共享的存储中。单个便签的ETag只依赖数据库中的版本列，不受此限制
+ */
+@Component
+public class UserChangeVersions {
+
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    private final ConcurrentHashMap<Integer, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 当前版本号
+     */
+    public String current(Integer userId) {
+        AtomicLong version = versions.get(userId);
+        return bootId + "." + (version != null ? version.get() : 0L);
+    }
+
+    /**
+     * 生成强ETag，scope区分不同资源，同一个版本号下不同资源的ETag不同
+     */
+    public String etag(Integer userId, String scope) {
+        return "\"" + scope + "-" + userId + "-" + current(userId) + "\"";
+    }
+
+    /**
+     * 标记用户数据已变化
+     * 在事务中调用时推迟到提交之后递增，避免读请求在提交前拿到新版本号却读到旧数据
+     */
+    public void bump(Integer userId) {
+        if (userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(userId);
+                }
+            });
+        } else {
+            increment(userId);
+        }
+    }
+
+    private void increment(Integer userId) {
+        versions.computeIfAbsent(userId, id -> new AtomicLong()).incrementAndGet();
+    }
+}
@@ -0,0 +1,22 @@
+-- 便签历史版本：每隔若干版本保存完整快照，其余版本只保存相对上一版本的正文编辑
+ALTER TABLE notes
+    ADD COLUMN revision_no INT NOT NULL DEFAULT 0 COMMENT '最新的历史版本号' AFTER change_seq;
+
+CREATE TABLE note_revisions (
+    revision_id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键',
+    note_id INT NOT NULL COMMENT '便签ID，逻辑关联notes表',
+    user_id INT NOT NULL COMMENT '用户ID，逻辑关联users表',
+    revision_no INT NOT NULL COMMENT '便签内的版本号',
+    is_snapshot BOOLEAN NOT NULL COMMENT '是否为完整快照',
+    title VARCHAR(100) NOT NULL COMMENT '该版本的标题',
+    payload LONGTEXT COMMENT '快照为完整正文，否则为相对上一版本的正文编辑',
+    content_length INT DEFAULT 0 COMMENT '该版本的正文字数',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    UNIQUE INDEX uk_note_revision (note_id, revision_no) COMMENT '便签版本索引'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='便签历史版本表';
+
+-- 已有便签的版本号为0，第一次修改时把修改前的内容保存为版本0的快照
+
+-- 验证修改结果
+DESC notes;
+DESC note_revisions;
@@ -0,0 +1,37 @@
+-- 便签统计：按分类、归档、置顶状态分桶的便签数和每日新建便签数，写入时在同一事务内增量维护
+CREATE TABLE note_stats (
+    user_id INT NOT NULL COMMENT '用户ID，逻辑关联users表',
+    category_id INT NOT NULL COMMENT '分类ID，0表示未分类',
+    is_archived BOOLEAN NOT NULL COMMENT '是否归档',
+    is_pinned BOOLEAN NOT NULL COMMENT '是否置顶',
+    note_count INT NOT NULL DEFAULT 0 COMMENT '便签数',
+    PRIMARY KEY (user_id, category_id, is_archived, is_pinned)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='便签统计表';
+
+CREATE TABLE note_daily_activity (
+    user_id INT NOT NULL COMMENT '用户ID，逻辑关联users表',
+    activity_date DATE NOT NULL COMMENT '日期',
+    created_count INT NOT NULL DEFAULT 0 COMMENT '当天新建的便签数',
+    PRIMARY KEY (user_id, activity_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='每日新建便签数';
+
+-- 删除分类现在会把其中的便签移到未分类，先修正以前删除分类时遗留的便签
+UPDATE notes n
+LEFT JOIN categories c ON c.category_id = n.category_id
+SET n.category_id = NULL
+WHERE n.category_id IS NOT NULL AND c.category_id IS NULL;
+
+-- 按现有数据初始化统计（执行期间应停止写入）
+INSERT INTO note_stats (user_id, category_id, is_archived, is_pinned, note_count)
+SELECT user_id, IFNULL(category_id, 0), IFNULL(is_archived, FALSE), IFNULL(is_pinned, FALSE), COUNT(*)
+FROM notes
+GROUP BY user_id, IFNULL(category_id, 0), IFNULL(is_archived, FALSE), IFNULL(is_pinned, FALSE);
+
+INSERT INTO note_daily_activity (user_id, activity_date, created_count)
+SELECT user_id, DATE(created_at), COUNT(*)
+FROM notes
+GROUP BY user_id, DATE(created_at);
+
+-- 验证修改结果
+SELECT COUNT(*) FROM note_stats;
+SELECT COUNT(*) FROM note_daily_activity;
@@ -0,0 +1,20 @@
+-- 增量同步：每个用户一个单调递增的变更序号，便签每次写入都记录当时的序号
+ALTER TABLE users
+    ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0 COMMENT '用户数据变更序号，每次写入便签时递增';
+
+ALTER TABLE notes
+    ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0 COMMENT '最后一次写入时的用户变更序号' AFTER is_archived,
+    ADD INDEX idx_user_change_seq (user_id, change_seq, note_id) COMMENT '增量同步索引';
+
+-- 已删除便签的墓碑，增量同步时告诉客户端哪些便签被删除
+CREATE TABLE note_tombstones (
+    note_id INT PRIMARY KEY COMMENT '被删除的便签ID',
+    user_id INT NOT NULL COMMENT '用户ID，逻辑关联users表',
+    change_seq BIGINT NOT NULL COMMENT '删除时的用户变更序号',
+    deleted_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '删除时间',
+    INDEX idx_user_change_seq (user_id, change_seq, note_id) COMMENT '增量同步索引'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='便签删除记录表';
+
+-- 验证修改结果
+DESC notes;
+DESC note_tombstones;
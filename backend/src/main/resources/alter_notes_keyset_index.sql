@@ -0,0 +1,8 @@
+-- 便签列表键集分页所需的联合索引，覆盖 WHERE user_id/is_archived 和 ORDER BY is_pinned, updated_at, note_id
+ALTER TABLE notes ADD INDEX idx_user_archived_pinned_updated (user_id, is_archived, is_pinned, updated_at, note_id) COMMENT '列表键集分页索引';
+
+-- 分类列表使用的键集分页索引
+ALTER TABLE notes ADD INDEX idx_user_category_archived_pinned_updated (user_id, category_id, is_archived, is_pinned, updated_at, note_id) COMMENT '分类列表键集分页索引';
+
+-- 验证修改结果
+SHOW INDEX FROM notes;
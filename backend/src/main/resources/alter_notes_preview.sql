@@ -0,0 +1,12 @@
+-- 增加便签预览列，列表查询只读取预览，不再读取LONGTEXT正文
+ALTER TABLE notes
+    ADD COLUMN content_preview VARCHAR(255) COMMENT '便签内容预览，写入时生成' AFTER content,
+    ADD COLUMN content_length INT DEFAULT 0 COMMENT '便签内容字数' AFTER content_preview;
+
+-- 回填已有便签的预览和字数（新写入由应用计算，折叠空白后截取前120字）
+UPDATE notes
+SET content_preview = LEFT(TRIM(REGEXP_REPLACE(IFNULL(content, ''), '[[:space:]]+', ' ')), 120),
+    content_length = CHAR_LENGTH(IFNULL(content, ''));
+
+-- 验证修改结果
+DESC notes;
@@ -7,6 +7,7 @@ CREATE TABLE users (
     password_hash VARCHAR(255) NOT NULL COMMENT '密码哈希值',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    change_seq BIGINT NOT NULL DEFAULT 0 COMMENT '用户数据变更序号，每次写入便签时递增',
     INDEX idx_email (email) COMMENT '邮箱索引'
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='用户信息表';
 
@@ -26,13 +27,61 @@ CREATE TABLE notes (
     user_id INT NOT NULL COMMENT '用户ID，逻辑关联users表',
     title VARCHAR(100) NOT NULL COMMENT '便签标题',
     content TEXT COMMENT '便签内容',
+    content_preview VARCHAR(255) COMMENT '便签内容预览，写入时生成',
+    content_length INT DEFAULT 0 COMMENT '便签内容字数',
     color VARCHAR(20) DEFAULT '#ffffff' COMMENT '便签颜色',
     category_id INT COMMENT '分类ID，逻辑关联categories表',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     is_pinned BOOLEAN DEFAULT FALSE COMMENT '是否置顶',
     is_archived BOOLEAN DEFAULT FALSE COMMENT '是否归档',
+    change_seq BIGINT NOT NULL DEFAULT 0 COMMENT '最后一次写入时的用户变更序号',
+    revision_no INT NOT NULL DEFAULT 0 COMMENT '最新的历史版本号',
     INDEX idx_user_id (user_id) COMMENT '用户ID索引',
     INDEX idx_category_id (category_id) COMMENT '分类ID索引',
-    INDEX idx_pinned_archived (is_pinned, is_archived) COMMENT '置顶和归档状态索引'
+    INDEX idx_pinned_archived (is_pinned, is_archived) COMMENT '置顶和归档状态索引',
+    INDEX idx_user_archived_pinned_updated (user_id, is_archived, is_pinned, updated_at, note_id) COMMENT '列表键集分页索引',
+    INDEX idx_user_category_archived_pinned_updated (user_id, category_id, is_archived, is_pinned, updated_at, note_id) COMMENT '分类列表键集分页索引',
+    INDEX idx_user_change_seq (user_id, change_seq, note_id) COMMENT '增量同步索引'
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='便签内容表';
+
+-- 便签删除记录表 - 增量同步时告诉客户端哪些便签被删除
+CREATE TABLE note_tombstones (
+    note_id INT PRIMARY KEY COMMENT '被删除的便签ID',
+    user_id INT NOT NULL COMMENT '用户ID，逻辑关联users表',
+    change_seq BIGINT NOT NULL COMMENT '删除时的用户变更序号',
+    deleted_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '删除时间',
+    INDEX idx_user_change_seq (user_id, change_seq, note_id) COMMENT '增量同步索引'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='便签删除记录表';
+
+-- 便签统计表 - 按分类、归档、置顶状态分桶的便签数，随便签写入在同一事务内增量维护
+CREATE TABLE note_stats (
+    user_id INT NOT NULL COMMENT '用户ID，逻辑关联users表',
+    category_id INT NOT NULL COMMENT '分类ID，0表示未分类',
+    is_archived BOOLEAN NOT NULL COMMENT '是否归档',
+    is_pinned BOOLEAN NOT NULL COMMENT '是否置顶',
+    note_count INT NOT NULL DEFAULT 0 COMMENT '便签数',
+    PRIMARY KEY (user_id, category_id, is_archived, is_pinned)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='便签统计表';
+
+-- 每日新建便签数 - 活跃度热力图使用
+CREATE TABLE note_daily_activity (
+    user_id INT NOT NULL COMMENT '用户ID，逻辑关联users表',
+    activity_date DATE NOT NULL COMMENT '日期',
+    created_count INT NOT NULL DEFAULT 0 COMMENT '当天新建的便签数',
+    PRIMARY KEY (user_id, activity_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='每日新建便签数';
+
+-- 便签历史版本表 - 每隔若干版本保存完整快照，其余版本只保存相对上一版本的正文编辑
+CREATE TABLE note_revisions (
+    revision_id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键',
+    note_id INT NOT NULL COMMENT '便签ID，逻辑关联notes表',
+    user_id INT NOT NULL COMMENT '用户ID，逻辑关联users表',
+    revision_no INT NOT NULL COMMENT '便签内的版本号',
+    is_snapshot BOOLEAN NOT NULL COMMENT '是否为完整快照',
+    title VARCHAR(100) NOT NULL COMMENT '该版本的标题',
+    payload LONGTEXT COMMENT '快照为完整正文，否则为相对上一版本的正文编辑',
+    content_length INT DEFAULT 0 COMMENT '该版本的正文字数',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    UNIQUE INDEX uk_note_revision (note_id, revision_no) COMMENT '便签版本索引'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='便签历史版本表';
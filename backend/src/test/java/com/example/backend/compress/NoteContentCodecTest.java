@@ -0,0 +1,147 @@
+package com.example.backend.compress;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NoteContentCodecTest {
+
+    private static final int THRESHOLD = 4096;
+
+    private final NoteContentCodec codec = new NoteContentCodec(THRESHOLD, new DeflateContentCodec(6));
+
+    @Test
+    void shortTextIsStoredAsIs() {
+        String text = "周会纪要";
+        assertSame(text, codec.encode(text));
+        assertSame(text, codec.decode(text));
+    }
+
+    @Test
+    void nullAndEmptyPassThrough() {
+        assertNull(codec.encode(null));
+        assertEquals("", codec.encode(""));
+        assertNull(codec.decode(null));
+        assertEquals("", codec.decode(""));
+    }
+
+    @Test
+    void longTextRoundTrips() {
+        String text = repeat("会议记录 meeting notes\n", 500);
+        String stored = codec.encode(text);
+        assertTrue(NoteContentCodec.isEncoded(stored));
+        assertTrue(stored.startsWith(NoteContentCodec.MARKER_START + DeflateContentCodec.ID + ":"));
+        assertTrue(stored.length() < text.length());
+        assertEquals(text, codec.decode(stored));
+    }
+
+    @Test
+    void thresholdCountsUtf8Bytes() {
+        // 1400个汉字只有1400个字符，但UTF-8编码为4200字节，超过阈值
+        String text = repeat("记", 1400);
+        assertTrue(NoteContentCodec.isEncoded(codec.encode(text)));
+        String atThreshold = repeat("a", THRESHOLD);
+        assertSame(atThreshold, codec.encode(atThreshold));
+    }
+
+    @Test
+    void incompressibleTextIsStoredAsIs() {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 6000; i++) {
+            text.append((char) (' ' + random.nextInt(95)));
+        }
+        // 随机ASCII压缩后再经Base64编码会比原文更长
+        String plain = text.toString();
+        assertFalse(NoteContentCodec.isEncoded(codec.encode(plain)));
+    }
+
+    @Test
+    void textStartingWithMarkerIsAlwaysEncoded() {
+        String text = NoteContentCodec.MARKER_START + "x";
+        String stored = codec.encode(text);
+        assertTrue(NoteContentCodec.isEncoded(stored));
+        assertEquals(text, codec.decode(stored));
+    }
+
+    @Test
+    void textThatLooksLikeStoredFormatRoundTrips() {
+        String lookalike = NoteContentCodec.MARKER_START + DeflateContentCodec.ID + ":not base64";
+        assertEquals(lookalike, codec.decode(codec.encode(lookalike)));
+    }
+
+    @Test
+    void markerTextIsEncodedEvenWhenCompressionIsDisabled() {
+        NoteContentCodec codec = new NoteContentCodec(0, new DeflateContentCodec(6));
+        String longText = repeat("a", 10000);
+        assertSame(longText, codec.encode(longText));
+        String text = NoteContentCodec.MARKER_START + "x";
+        assertEquals(text, codec.decode(codec.encode(text)));
+    }
+
+    @Test
+    void deflateContentStillDecodesAfterSwitchingCodec() {
+        String stored = codec.encode(repeat("abc", 3000));
+        NoteContentCodec switched = new NoteContentCodec(THRESHOLD, new StubCodec());
+        assertEquals(repeat("abc", 3000), switched.decode(stored));
+        assertTrue(switched.encode(repeat("abc", 3000)).startsWith(NoteContentCodec.MARKER_START + "S1:"));
+    }
+
+    @Test
+    void decodeOnlyCodecReadsOldContent() {
+        String stored = NoteContentCodec.MARKER_START + "S1:AAAA";
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(stored));
+        NoteContentCodec withOld = new NoteContentCodec(THRESHOLD, new DeflateContentCodec(6), new StubCodec());
+        assertEquals("", withOld.decode(stored));
+        assertTrue(withOld.encode(repeat("abc", 3000)).startsWith(NoteContentCodec.MARKER_START + DeflateContentCodec.ID + ":"));
+    }
+
+    @Test
+    void malformedStoredContentIsRejected() {
+        char marker = NoteContentCodec.MARKER_START;
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(marker + "Z1"));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(marker + "XX:AAAA"));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(marker + "Z1:AAAA"));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(marker + "Z1:@@@"));
+    }
+
+    @Test
+    void isEncodedChecksOnlyFirstCharacter() {
+        assertFalse(NoteContentCodec.isEncoded("a" + NoteContentCodec.MARKER_START));
+        assertTrue(NoteContentCodec.isEncoded(String.valueOf(NoteContentCodec.MARKER_START)));
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder sb = new StringBuilder(s.length() * times);
+        for (int i = 0; i < times; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    // 不压缩，只用来验证切换算法后的标识
+    private static final class StubCodec implements ContentCodec {
+
+        @Override
+        public String getId() {
+            return "S1";
+        }
+
+        @Override
+        public byte[] compress(byte[] data) {
+            return new byte[0];
+        }
+
+        @Override
+        public byte[] decompress(byte[] data) {
+            return new byte[0];
+        }
+    }
+}
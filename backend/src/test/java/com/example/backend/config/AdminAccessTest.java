@@ -0,0 +1,43 @@
+package com.example.backend.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdminAccessTest {
+
+    private final AdminAccess adminAccess = new AdminAccess(new Integer[]{1});
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void configuredUserIdIsAdmin() {
+        authenticate(1, "admin");
+        assertTrue(adminAccess.isAdmin());
+    }
+
+    @Test
+    void sameUsernameWithAnotherIdIsNotAdmin() {
+        authenticate(2, "admin");
+        assertFalse(adminAccess.isAdmin());
+    }
+
+    @Test
+    void anonymousIsNotAdmin() {
+        assertFalse(adminAccess.isAdmin());
+        assertFalse(new AdminAccess(new Integer[0]).isAdmin());
+    }
+
+    private static void authenticate(Integer userId, String username) {
+        AuthenticatedUser principal = new AuthenticatedUser(userId, username);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.backend.config;
+
+import com.example.backend.compress.CompressedTextTypeHandler;
+import com.example.backend.compress.NoteContentCodec;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.StringTypeHandler;
+import org.apache.ibatis.type.TypeHandler;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NoteContentConfigTest {
+
+    private final NoteContentConfig config = new NoteContentConfig();
+
+    @Test
+    void configuredHandlerIsUsedForExplicitReferencesOnly() throws SQLException {
+        NoteContentCodec codec = config.noteContentCodec(10, 6);
+        Configuration configuration = new Configuration();
+        config.compressedTextTypeHandlerCustomizer(codec).customize(configuration);
+
+        TypeHandler<?> handler = configuration.getTypeHandlerRegistry().getMappingTypeHandler(CompressedTextTypeHandler.class);
+        String[] stored = new String[1];
+        PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    stored[0] = (String) args[1];
+                    return null;
+                });
+        ((CompressedTextTypeHandler) handler).setParameter(ps, 1, repeat("abc", 100), JdbcType.VARCHAR);
+        // 按配置的10字节阈值压缩
+        assertTrue(NoteContentCodec.isEncoded(stored[0]));
+        assertTrue(configuration.getTypeHandlerRegistry().getTypeHandler(String.class) instanceof StringTypeHandler);
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder sb = new StringBuilder(s.length() * times);
+        for (int i = 0; i < times; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.backend.controller;
+
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.MyBatisSystemException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConnectionPoolExceptionHandlerTest {
+
+    private final ConnectionPoolExceptionHandler handler = new ConnectionPoolExceptionHandler();
+
+    @Test
+    void poolTimeoutWhenOpeningTransactionReturns503() {
+        assertServiceUnavailable(handler.handlePoolExhausted(
+                new CannotCreateTransactionException("Could not open JDBC Connection for transaction", poolTimeout())));
+    }
+
+    @Test
+    void poolTimeoutInsideMyBatisStatementReturns503() {
+        CannotGetJdbcConnectionException noConnection = new CannotGetJdbcConnectionException("Failed to obtain JDBC Connection", poolTimeout());
+        assertServiceUnavailable(handler.handlePoolExhausted(
+                new MyBatisSystemException(new PersistenceException("Error querying database", noConnection))));
+    }
+
+    @Test
+    void poolTimeoutOutsideMyBatisReturns503() {
+        assertServiceUnavailable(handler.handlePoolExhausted(
+                new CannotGetJdbcConnectionException("Failed to obtain JDBC Connection", poolTimeout())));
+    }
+
+    @Test
+    void otherDataAccessErrorsAreRethrown() {
+        DataIntegrityViolationException duplicate = new DataIntegrityViolationException("duplicate key");
+        assertSame(duplicate, assertThrows(DataIntegrityViolationException.class, () -> handler.handlePoolExhausted(duplicate)));
+        MyBatisSystemException mapping = new MyBatisSystemException(new PersistenceException("no getter"));
+        assertSame(mapping, assertThrows(MyBatisSystemException.class, () -> handler.handlePoolExhausted(mapping)));
+    }
+
+    private static SQLTransientConnectionException poolTimeout() {
+        return new SQLTransientConnectionException("HikariPool-1 - Connection is not available, request timed out after 2000ms.");
+    }
+
+    private static void assertServiceUnavailable(ResponseEntity<Map<String, Object>> response) {
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(false, response.getBody().get("success"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.backend.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void smallValuesHaveExactBuckets() {
+        for (int v = 0; v < 16; v++) {
+            assertEquals(v, LatencyHistogram.bucketIndex(v));
+            assertEquals(v, LatencyHistogram.bucketUpperBound(v));
+        }
+    }
+
+    @Test
+    void everyValueFallsInsideItsBucket() {
+        long[] samples = {16, 17, 31, 32, 33, 1000, 1023, 1024, 999_999, 1_000_000_007L, (1L << 36) - 1};
+        for (long value : samples) {
+            int index = LatencyHistogram.bucketIndex(value);
+            long upper = LatencyHistogram.bucketUpperBound(index);
+            long lower = index > 0 ? LatencyHistogram.bucketUpperBound(index - 1) + 1 : 0;
+            assertTrue(lower <= value && value <= upper, value + " not in [" + lower + ", " + upper + "]");
+        }
+    }
+
+    @Test
+    void bucketsAreContiguousAndRelativeErrorIsBounded() {
+        int last = LatencyHistogram.bucketIndex((1L << 36) - 1);
+        for (int i = 1; i <= last; i++) {
+            long lower = LatencyHistogram.bucketUpperBound(i - 1) + 1;
+            long upper = LatencyHistogram.bucketUpperBound(i);
+            assertEquals(i, LatencyHistogram.bucketIndex(lower));
+            assertEquals(i, LatencyHistogram.bucketIndex(upper));
+            // 每个2的幂区间分为16个子桶，桶宽不超过下界的1/16
+            assertTrue((upper - lower + 1) * 16 <= Math.max(16, lower), "bucket " + i);
+        }
+    }
+
+    @Test
+    void emptySnapshotReturnsZero() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram(60, 6).snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.valueAt(0.99));
+    }
+
+    @Test
+    void percentilesOfUniformSamplesAreWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram(60, 6);
+        for (long ms = 1; ms <= 1000; ms++) {
+            histogram.record(ms * 1_000_000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(1_000_000_000L, snapshot.getMaxNanos());
+        assertWithin(500_000_000L, snapshot.valueAt(0.5));
+        assertWithin(990_000_000L, snapshot.valueAt(0.99));
+        assertWithin(1_000_000L, snapshot.valueAt(0.0));
+    }
+
+    @Test
+    void percentileNeverExceedsObservedMax() {
+        LatencyHistogram histogram = new LatencyHistogram(60, 6);
+        histogram.record(1000);
+        histogram.record(1001);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1001, snapshot.valueAt(1.0));
+        assertTrue(snapshot.valueAt(0.5) >= 1000);
+    }
+
+    @Test
+    void singleOutlierOnlyAffectsTopPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram(60, 6);
+        for (int i = 0; i < 99; i++) {
+            histogram.record(2_000_000);
+        }
+        histogram.record(5_000_000_000L);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertWithin(2_000_000L, snapshot.valueAt(0.99));
+        assertEquals(5_000_000_000L, snapshot.valueAt(1.0));
+    }
+
+    @Test
+    void negativeAndHugeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram(60, 6);
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.valueAt(0.5));
+        assertEquals((1L << 36) - 1, snapshot.getMaxNanos());
+        assertEquals((1L << 36) - 1, histogram.getSumNanos());
+        assertEquals(2, histogram.getCount());
+    }
+
+    @Test
+    void samplesLeaveTheWindowAfterItExpires() throws InterruptedException {
+        // 1秒窗口分为2个时间片
+        LatencyHistogram histogram = new LatencyHistogram(1, 2);
+        histogram.record(1000);
+        assertEquals(1, histogram.snapshot().getCount());
+        Thread.sleep(1100);
+        assertEquals(0, histogram.snapshot().getCount());
+        assertEquals(1, histogram.getCount());
+    }
+
+    // 分位数取桶上界，相对误差不超过1/16
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 16, "expected ~" + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.backend.metrics;
+
+import com.example.backend.model.Note;
+import com.example.backend.model.dto.QueryReport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class QueryDiagnosticsTest {
+
+    private static final String SECRET = "$2a$10$secret-hash";
+
+    private final Configuration configuration = new Configuration();
+    private final MappedStatement update = statement("com.example.backend.mapper.NoteMapper.update",
+            "UPDATE note SET title = ?, content = ? WHERE note_id = ?", "title", "content", "noteId");
+
+    private QueryDiagnostics diagnostics;
+
+    @AfterEach
+    void tearDown() {
+        if (diagnostics != null) {
+            diagnostics.shutdown();
+        }
+    }
+
+    @Test
+    void slowStatementLogsParameterTypesOnly() throws Exception {
+        diagnostics = newDiagnostics(false);
+        diagnostics.onStatement(update, note(1, "标题", SECRET), null, TimeUnit.SECONDS.toNanos(1));
+
+        QueryReport report = awaitReport();
+        assertEquals(Arrays.asList("String", "String", "Int"), report.getParameters());
+        assertFalse(new ObjectMapper().writeValueAsString(report).contains(SECRET));
+        // 原始值只用于EXPLAIN，数据源不可用时记录的是EXPLAIN失败
+        assertNotNull(report.getExplainError());
+    }
+
+    @Test
+    void parameterValuesAreLoggedWhenEnabled() throws Exception {
+        diagnostics = newDiagnostics(true);
+        diagnostics.onStatement(update, note(1, "标题", SECRET), null, TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(Arrays.asList("标题", SECRET, "1"), awaitReport().getParameters());
+    }
+
+    @Test
+    void duplicatesAreDetectedByBoundValues() {
+        diagnostics = newDiagnostics(false);
+        diagnostics.beginRequest("PUT /api/notes/1");
+        // 两个不同的Note实例绑定相同的值，按对象哈希会被当成不同的执行
+        diagnostics.onStatement(update, note(1, "标题", "正文"), null, 0);
+        diagnostics.onStatement(update, note(1, "标题", "正文"), null, 0);
+        diagnostics.onStatement(update, note(2, "标题", "正文"), null, 0);
+        diagnostics.endRequest();
+
+        List<QueryReport> reports = diagnostics.recentReports(10);
+        assertEquals(1, reports.size());
+        assertEquals(Collections.singletonMap("NoteMapper.update", 1), reports.get(0).getDuplicates());
+    }
+
+    @Test
+    void differentValuesAreNotDuplicates() {
+        diagnostics = newDiagnostics(false);
+        diagnostics.beginRequest("PUT /api/notes/1");
+        diagnostics.onStatement(update, note(1, "标题", "正文"), null, 0);
+        diagnostics.onStatement(update, note(1, "标题", "新正文"), null, 0);
+        diagnostics.endRequest();
+
+        assertTrue(diagnostics.recentReports(10).isEmpty());
+    }
+
+    private QueryDiagnostics newDiagnostics(boolean logParameterValues) {
+        return new QueryDiagnostics(new UnavailableDataSource(), new ObjectMapper(), new MetricsRegistry(60, 6),
+                true, 10, 5, 200, 300, 16, logParameterValues);
+    }
+
+    private QueryReport awaitReport() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (System.nanoTime() < deadline) {
+            List<QueryReport> reports = diagnostics.recentReports(1);
+            if (!reports.isEmpty()) {
+                return reports.get(0);
+            }
+            Thread.sleep(10);
+        }
+        return fail("未生成慢语句记录");
+    }
+
+    private MappedStatement statement(String id, String sql, String... properties) {
+        ParameterMapping[] mappings = new ParameterMapping[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            Class<?> type = properties[i].equals("noteId") ? Integer.class : String.class;
+            mappings[i] = new ParameterMapping.Builder(configuration, properties[i], type).build();
+        }
+        StaticSqlSource source = new StaticSqlSource(configuration, sql, Arrays.asList(mappings));
+        return new MappedStatement.Builder(configuration, id, source, SqlCommandType.UPDATE).build();
+    }
+
+    private static Note note(int noteId, String title, String content) {
+        Note note = new Note();
+        note.setNoteId(noteId);
+        note.setTitle(title);
+        note.setContent(content);
+        return note;
+    }
+
+    private static final class UnavailableDataSource extends AbstractDataSource {
+        @Override
+        public Connection getConnection() throws SQLException {
+            throw new SQLException("unavailable");
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new SQLException("unavailable");
+        }
+    }
+}
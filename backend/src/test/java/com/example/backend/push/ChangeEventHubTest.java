@@ -0,0 +1,123 @@
+package com.example.backend.push;
+
+import com.example.backend.util.UserChangeVersions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChangeEventHubTest {
+
+    private final CountDownLatch unstall = new CountDownLatch(1);
+
+    private ChangeEventHub hub;
+
+    @AfterEach
+    void tearDown() {
+        unstall.countDown();
+        if (hub != null) {
+            hub.shutdown();
+        }
+    }
+
+    @Test
+    void stalledConnectionsDoNotDelayOtherUsers() throws Exception {
+        hub = newHub(60_000);
+        for (int userId = 1; userId <= 8; userId++) {
+            hub.subscribe(userId, new StalledEmitter());
+        }
+        RecordingEmitter healthy = new RecordingEmitter();
+        hub.subscribe(100, healthy);
+        assertNotNull(healthy.sent.poll(2, TimeUnit.SECONDS), "ready事件");
+
+        hub.publish(100, ChangeEvent.KIND_NOTE, ChangeEvent.ACTION_UPSERT, 1);
+        assertNotNull(healthy.sent.poll(2, TimeUnit.SECONDS), "change事件");
+        assertEquals(9, hub.getConnectionCount());
+    }
+
+    @Test
+    void stalledSendIsAbandonedAfterDeadline() throws Exception {
+        hub = newHub(200);
+        StalledEmitter stalled = new StalledEmitter();
+        hub.subscribe(1, stalled);
+        assertTrue(stalled.sending.await(2, TimeUnit.SECONDS));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+        while (hub.getConnectionCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, hub.getConnectionCount());
+
+        // 放弃后不再为该连接排队事件，卡住的写出结束后连接被关闭
+        hub.publish(1, ChangeEvent.KIND_NOTE, ChangeEvent.ACTION_UPSERT, 1);
+        unstall.countDown();
+        assertTrue(stalled.completed.await(2, TimeUnit.SECONDS));
+        assertEquals(1, stalled.sends.get());
+    }
+
+    private static ChangeEventHub newHub(long sendTimeoutMillis) {
+        ChangeEventHub hub = new ChangeEventHub();
+        ReflectionTestUtils.setField(hub, "changeVersions", new UserChangeVersions());
+        ReflectionTestUtils.setField(hub, "timeoutMillis", 0L);
+        ReflectionTestUtils.setField(hub, "bufferSize", 16);
+        ReflectionTestUtils.setField(hub, "heartbeatSeconds", 60L);
+        ReflectionTestUtils.setField(hub, "sendTimeoutMillis", sendTimeoutMillis);
+        ReflectionTestUtils.setField(hub, "maxConnectionsPerUser", 10);
+        hub.init();
+        return hub;
+    }
+
+    /**
+     * 模拟TCP窗口已满的客户端：写出一直阻塞，与ResponseBodyEmitter一样send和complete共用一把锁
+     */
+    private final class StalledEmitter extends SseEmitter {
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(1);
+        final AtomicInteger sends = new AtomicInteger();
+
+        StalledEmitter() {
+            super(0L);
+        }
+
+        @Override
+        public synchronized void send(SseEventBuilder builder) {
+            sends.incrementAndGet();
+            sending.countDown();
+            try {
+                unstall.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+        }
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+        final BlockingQueue<List<?>> sent = new LinkedBlockingQueue<>();
+
+        RecordingEmitter() {
+            super(0L);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sent.add(new ArrayList<>(builder.build()));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.backend.push;
+
+import com.example.backend.config.AuthenticatedUser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SseTicketStoreTest {
+
+    private final SseTicketStore store = new SseTicketStore(30, 100);
+
+    @Test
+    void ticketRedeemsOnce() {
+        String ticket = store.issue(new AuthenticatedUser(7, "alice"));
+        AuthenticatedUser user = store.redeem(ticket);
+        assertEquals(7, user.getUserId());
+        assertEquals("alice", user.getUsername());
+        assertNull(store.redeem(ticket));
+    }
+
+    @Test
+    void unknownTicketIsRejected() {
+        assertNull(store.redeem("nope"));
+        assertNull(store.redeem(null));
+    }
+
+    @Test
+    void expiredTicketIsRejected() {
+        SseTicketStore expiring = new SseTicketStore(0, 100);
+        assertNull(expiring.redeem(expiring.issue(new AuthenticatedUser(7, "alice"))));
+    }
+
+    @Test
+    void ticketsAreUniqueAndUrlSafe() {
+        AuthenticatedUser user = new AuthenticatedUser(7, "alice");
+        String first = store.issue(user);
+        assertNotEquals(first, store.issue(user));
+        assertTrue(first.matches("[A-Za-z0-9_-]{43}"), first);
+    }
+
+    @Test
+    void ticketDoesNotCarryPassword() {
+        String ticket = store.issue(new AuthenticatedUser(7, "alice", "hash"));
+        assertNull(store.redeem(ticket).getPassword());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.backend.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CjkBigramTokenizerTest {
+
+    @Test
+    void documentEmitsUnigramsAndBigramsForCjk() {
+        assertEquals(Arrays.asList("会", "议", "记", "录", "会议", "议记", "记录"),
+                CjkBigramTokenizer.tokenizeDocument("会议记录"));
+    }
+
+    @Test
+    void queryUsesBigramsOnlyUnlessSingleCharacter() {
+        assertEquals(Arrays.asList("会议", "议记", "记录"), CjkBigramTokenizer.tokenizeQuery("会议记录"));
+        assertEquals(Collections.singletonList("会"), CjkBigramTokenizer.tokenizeQuery("会"));
+    }
+
+    @Test
+    void latinWordsAreLowercasedAndSplitOnPunctuation() {
+        assertEquals(Arrays.asList("spring", "boot", "2", "7"), CjkBigramTokenizer.tokenizeDocument("Spring-Boot 2.7"));
+    }
+
+    @Test
+    void mixedScriptsSplitAtBoundaries() {
+        assertEquals(Arrays.asList("java", "笔", "记", "笔记", "v2"), CjkBigramTokenizer.tokenizeDocument("Java笔记v2"));
+    }
+
+    @Test
+    void overlongWordIsTruncated() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            text.append('a');
+        }
+        assertEquals(64, CjkBigramTokenizer.tokenizeDocument(text.toString()).get(0).length());
+    }
+
+    @Test
+    void nullAndEmptyProduceNoTerms() {
+        assertTrue(CjkBigramTokenizer.tokenizeDocument(null).isEmpty());
+        assertTrue(CjkBigramTokenizer.tokenizeQuery("  ,. ").isEmpty());
+    }
+
+    @Test
+    void wordTermDetection() {
+        assertTrue(CjkBigramTokenizer.isWordTerm("spring"));
+        assertFalse(CjkBigramTokenizer.isWordTerm("会议"));
+        assertFalse(CjkBigramTokenizer.isWordTerm(""));
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.backend.search;
+
+import com.example.backend.model.Note;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NoteSearchIndexTest {
+
+    private static final int USER = 1;
+
+    private NoteSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NoteSearchIndex();
+        ReflectionTestUtils.setField(index, "ready", true);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void notReadyFallsBackToSql() {
+        ReflectionTestUtils.setField(index, "ready", false);
+        assertNull(index.search(USER, "会议", null, null));
+    }
+
+    @Test
+    void titleMatchOutranksContentMatch() {
+        index.index(note(1, "购物清单", "周末会议的记录"));
+        index.index(note(2, "会议纪要", "讨论了预算"));
+        assertEquals(Arrays.asList(2, 1), ids(index.search(USER, "会议", null, null)));
+    }
+
+    @Test
+    void higherTermFrequencyRanksHigher() {
+        index.index(note(1, "a", "spring boot"));
+        index.index(note(2, "b", "spring spring spring boot"));
+        index.index(note(3, "c", "mybatis"));
+        assertEquals(Arrays.asList(2, 1), ids(index.search(USER, "spring", null, null)));
+    }
+
+    @Test
+    void documentLengthCountsTitleTermsWithTheirWeight() {
+        // 标题中的一个词与正文中重复三次的同一个词词频相同，文档长度也相同，得分应相等
+        index.index(note(1, "spring", ""));
+        index.index(note(2, "", "spring spring spring"));
+        index.index(note(3, "", "mybatis redis kafka"));
+        List<NoteSearchIndex.Hit> hits = index.search(USER, "spring", null, null);
+        assertEquals(2, hits.size());
+        assertEquals(hits.get(0).getScore(), hits.get(1).getScore(), 1e-9);
+    }
+
+    @Test
+    void longerDocumentScoresLowerForSameTermFrequency() {
+        index.index(note(1, "a", "spring boot"));
+        index.index(note(2, "b", "spring boot mybatis redis kafka mysql"));
+        assertEquals(Arrays.asList(1, 2), ids(index.search(USER, "spring", null, null)));
+    }
+
+    @Test
+    void matchesUsesIndexTokenization() {
+        List<String> terms = CjkBigramTokenizer.tokenizeQuery("spr 事务");
+        assertTrue(NoteSearchIndex.matches(terms, "Spring", "分布式事务"));
+        // 不是词的前缀、不连续的中文词条都不算命中，与SQL子串匹配不同
+        assertFalse(NoteSearchIndex.matches(CjkBigramTokenizer.tokenizeQuery("pring"), "spring", null));
+        assertFalse(NoteSearchIndex.matches(CjkBigramTokenizer.tokenizeQuery("事务"), "事情", "服务"));
+        assertFalse(NoteSearchIndex.matches(terms, "spring", null));
+    }
+
+    @Test
+    void rareTermContributesMoreThanCommonTerm() {
+        index.index(note(1, "a", "java redis"));
+        index.index(note(2, "b", "java kafka"));
+        index.index(note(3, "c", "java"));
+        List<NoteSearchIndex.Hit> hits = index.search(USER, "java redis", null, null);
+        assertEquals(Arrays.asList(1), ids(hits));
+        List<NoteSearchIndex.Hit> javaOnly = index.search(USER, "java", null, null);
+        assertTrue(hits.get(0).getScore() > javaOnly.get(0).getScore());
+    }
+
+    @Test
+    void allQueryTermsMustMatchAndLatinTermsMatchByPrefix() {
+        index.index(note(1, "a", "springframework 事务"));
+        index.index(note(2, "b", "spring"));
+        assertEquals(Arrays.asList(1), ids(index.search(USER, "spr 事务", null, null)));
+    }
+
+    @Test
+    void equalScoresOrderPinnedFirst() {
+        index.index(note(1, "a", "todo"));
+        Note pinned = note(2, "b", "todo");
+        pinned.setIsPinned(true);
+        index.index(pinned);
+        assertEquals(Arrays.asList(2, 1), ids(index.search(USER, "todo", null, null)));
+    }
+
+    @Test
+    void filtersByCategoryAndArchivedFlag() {
+        Note categorized = note(1, "a", "plan");
+        categorized.setCategoryId(7);
+        index.index(categorized);
+        index.index(note(2, "b", "plan"));
+        assertEquals(Arrays.asList(1), ids(index.search(USER, "plan", 7, null)));
+
+        index.updateFlags(2, null, true);
+        assertEquals(Arrays.asList(2), ids(index.search(USER, "plan", null, true)));
+        assertEquals(Arrays.asList(1), ids(index.search(USER, "plan", null, false)));
+    }
+
+    @Test
+    void removeDropsNoteFromResults() {
+        index.index(note(1, "a", "plan"));
+        index.remove(1);
+        assertTrue(index.search(USER, "plan", null, null).isEmpty());
+    }
+
+    @Test
+    void changesInsideTransactionApplyOnlyAfterCommit() {
+        index.index(note(1, "a", "plan"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        index.index(note(2, "b", "plan"));
+        index.remove(1);
+        assertEquals(Arrays.asList(1), ids(index.search(USER, "plan", null, null)));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        assertEquals(Arrays.asList(2), ids(index.search(USER, "plan", null, null)));
+    }
+
+    @Test
+    void changesInsideRolledBackTransactionAreDiscarded() {
+        TransactionSynchronizationManager.initSynchronization();
+        index.index(note(1, "a", "plan"));
+        TransactionSynchronizationManager.clearSynchronization();
+        assertTrue(index.search(USER, "plan", null, null).isEmpty());
+    }
+
+    @Test
+    void laterMutationOfNoteDoesNotLeakIntoPendingEntry() {
+        TransactionSynchronizationManager.initSynchronization();
+        Note note = note(1, "a", "plan");
+        index.index(note);
+        note.setContent("changed");
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        assertEquals(Arrays.asList(1), ids(index.search(USER, "plan", null, null)));
+        assertTrue(index.search(USER, "changed", null, null).isEmpty());
+    }
+
+    private static Note note(int noteId, String title, String content) {
+        Note note = new Note();
+        note.setNoteId(noteId);
+        note.setUserId(USER);
+        note.setTitle(title);
+        note.setContent(content);
+        note.setIsPinned(false);
+        note.setIsArchived(false);
+        return note;
+    }
+
+    private static List<Integer> ids(List<NoteSearchIndex.Hit> hits) {
+        List<Integer> ids = new ArrayList<>();
+        for (NoteSearchIndex.Hit hit : hits) {
+            ids.add(hit.getNoteId());
+        }
+        return ids;
+    }
+}
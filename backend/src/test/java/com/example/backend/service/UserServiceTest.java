@@ -0,0 +1,148 @@
+package com.example.backend.service;
+
+import com.example.backend.mapper.UserMapper;
+import com.example.backend.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class UserServiceTest {
+
+    private final InMemoryUserMapper mapper = new InMemoryUserMapper();
+    private final UserService service = new UserService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "userMapper", mapper);
+        mapper.put(1L, "alice", "hash-a1");
+        mapper.put(2L, "bob", "hash-b1");
+    }
+
+    @Test
+    void passwordHashChangeIsVisibleImmediately() {
+        assertEquals("hash-a1", service.findByUsername("alice").getPasswordHash());
+        service.updatePasswordHash(1L, "hash-a2");
+        assertEquals("hash-a2", service.findByUsername("alice").getPasswordHash());
+    }
+
+    @Test
+    void deletedUserIsNoLongerResolvable() {
+        service.findByUsername("alice");
+        service.delete(1L);
+        assertNull(service.findByUsername("alice"));
+    }
+
+    @Test
+    void renameEvictsOldAndNewUsername() {
+        assertNull(service.findByUsername("carol"));
+        service.findByUsername("alice");
+        User renamed = service.findByUsername("alice");
+        renamed.setUsername("carol");
+        service.update(renamed);
+        assertNull(service.findByUsername("alice"));
+        assertEquals(Long.valueOf(1L), service.findByUsername("carol").getId());
+    }
+
+    @Test
+    void rowLoadedWhileWriteCompletesIsNotCached() {
+        // 查询读到旧行后、放入缓存前，另一个请求完成了写入和失效
+        mapper.beforeReturn = () -> service.updatePasswordHash(1L, "hash-a2");
+        assertEquals("hash-a1", service.findByUsername("alice").getPasswordHash());
+        assertEquals("hash-a2", service.findByUsername("alice").getPasswordHash());
+    }
+
+    @Test
+    void writeEvictsOnlyAffectedUsername() {
+        service.findByUsername("alice");
+        service.findByUsername("bob");
+        service.updatePasswordHash(2L, "hash-b2");
+        // 绕过服务直接修改数据库中的行，仍命中缓存说明alice没有被失效
+        mapper.put(1L, "alice", "hash-a2");
+        assertEquals("hash-a1", service.findByUsername("alice").getPasswordHash());
+        assertEquals("hash-b2", service.findByUsername("bob").getPasswordHash());
+    }
+
+    private static final class InMemoryUserMapper implements UserMapper {
+        private final Map<Long, User> rows = new HashMap<>();
+        private Runnable beforeReturn;
+
+        void put(Long id, String username, String passwordHash) {
+            User user = new User(username, null);
+            user.setId(id);
+            user.setPasswordHash(passwordHash);
+            rows.put(id, user);
+        }
+
+        @Override
+        public User findByUsername(String username) {
+            User found = null;
+            for (User user : rows.values()) {
+                if (user.getUsername().equals(username)) {
+                    found = copy(user);
+                }
+            }
+            Runnable hook = beforeReturn;
+            beforeReturn = null;
+            if (hook != null) {
+                hook.run();
+            }
+            return found;
+        }
+
+        @Override
+        public User findByEmail(String email) {
+            return null;
+        }
+
+        @Override
+        public User findById(Long id) {
+            return copy(rows.get(id));
+        }
+
+        @Override
+        public int insert(User user) {
+            rows.put(user.getId(), copy(user));
+            return 1;
+        }
+
+        @Override
+        public int update(User user) {
+            if (!rows.containsKey(user.getId())) {
+                return 0;
+            }
+            rows.put(user.getId(), copy(user));
+            return 1;
+        }
+
+        @Override
+        public int updatePasswordHash(Long id, String passwordHash) {
+            User user = rows.get(id);
+            if (user == null) {
+                return 0;
+            }
+            user.setPasswordHash(passwordHash);
+            return 1;
+        }
+
+        @Override
+        public int delete(Long id) {
+            return rows.remove(id) != null ? 1 : 0;
+        }
+
+        private static User copy(User user) {
+            if (user == null) {
+                return null;
+            }
+            User copy = new User(user.getUsername(), null);
+            copy.setId(user.getId());
+            copy.setPasswordHash(user.getPasswordHash());
+            return copy;
+        }
+    }
+}
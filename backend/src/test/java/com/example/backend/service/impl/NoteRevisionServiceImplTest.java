@@ -0,0 +1,265 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.mapper.NoteRevisionMapper;
+import com.example.backend.model.Note;
+import com.example.backend.model.NoteRevision;
+import com.example.backend.model.dto.NotePatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NoteRevisionServiceImplTest {
+
+    private static final int NOTE_ID = 1;
+    private static final int USER_ID = 7;
+    private static final int SNAPSHOT_INTERVAL = 3;
+
+    private final InMemoryRevisionMapper mapper = new InMemoryRevisionMapper();
+    private final NoteRevisionServiceImpl service = new NoteRevisionServiceImpl();
+    // 每个版本号写入时的正文，用来核对还原结果
+    private final Map<Integer, String> contents = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "revisionMapper", mapper);
+        ReflectionTestUtils.setField(service, "snapshotInterval", SNAPSHOT_INTERVAL);
+        ReflectionTestUtils.setField(service, "retentionDays", 30);
+        ReflectionTestUtils.setField(service, "maxPerNote", 1000);
+    }
+
+    @Test
+    void firstUpdateOfLegacyNoteBackfillsVersionZero() {
+        Note legacy = note(0, "旧标题", "早于历史版本功能的内容");
+        service.recordUpdated(legacy, note(1, "新标题", "修改后的内容"), null);
+
+        assertEquals(2, mapper.rows.size());
+        NoteRevision zero = service.getRevision(NOTE_ID, USER_ID, 0);
+        assertEquals("早于历史版本功能的内容", zero.getContent());
+        assertEquals("旧标题", zero.getTitle());
+        assertTrue(zero.getSnapshot());
+        assertEquals("修改后的内容", service.getRevision(NOTE_ID, USER_ID, 1).getContent());
+    }
+
+    @Test
+    void laterUpdatesDoNotBackfill() {
+        create("v1");
+        update(2, "v2", false);
+        assertEquals(2, mapper.rows.size());
+        assertNull(service.getRevision(NOTE_ID, USER_ID, 0));
+    }
+
+    @Test
+    void snapshotsAreTakenAtIntervalBoundaries() {
+        create("v1");
+        for (int revisionNo = 2; revisionNo <= 8; revisionNo++) {
+            update(revisionNo, "v" + revisionNo, false);
+        }
+        // 版本号除以间隔余1的版本为快照：1、4、7
+        for (NoteRevision row : mapper.rows) {
+            assertEquals((row.getRevisionNo() - 1) % SNAPSHOT_INTERVAL == 0, row.getSnapshot(), "版本" + row.getRevisionNo());
+        }
+    }
+
+    @Test
+    void rebuildsEveryVersionFromSnapshotAndDeltasAcrossIntervals() {
+        create("第一行\n");
+        // 偶数版本提交编辑，奇数版本比较前后正文，跨越三个快照间隔
+        for (int revisionNo = 2; revisionNo <= 9; revisionNo++) {
+            update(revisionNo, contents.get(revisionNo - 1) + "第" + revisionNo + "行\n", revisionNo % 2 == 0);
+        }
+        update(10, "整段替换😀" + contents.get(9).substring(4), true);
+
+        for (int revisionNo = 1; revisionNo <= 10; revisionNo++) {
+            NoteRevision revision = service.getRevision(NOTE_ID, USER_ID, revisionNo);
+            assertEquals(contents.get(revisionNo), revision.getContent(), "版本" + revisionNo);
+            assertEquals(Integer.valueOf(revisionNo), revision.getRevisionNo());
+            assertNull(revision.getPayload());
+        }
+        assertNull(service.getRevision(NOTE_ID, USER_ID, 11));
+        assertNull(service.getRevision(NOTE_ID, 8, 5));
+    }
+
+    @Test
+    void pruningByAgeKeepsSnapshotAtStartOfRemainingChain() {
+        create("v1");
+        for (int revisionNo = 2; revisionNo <= 10; revisionNo++) {
+            update(revisionNo, contents.get(revisionNo - 1) + " v" + revisionNo, revisionNo % 2 == 0);
+        }
+        // 版本1到5超过保留期：保留期外最新的快照是版本4，它之前的版本被删除
+        Date old = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(60));
+        for (NoteRevision row : mapper.rows) {
+            if (row.getRevisionNo() <= 5) {
+                row.setCreatedAt(old);
+            }
+        }
+        ReflectionTestUtils.invokeMethod(service, "prune");
+
+        assertRemainingChainStartsWithSnapshot(4);
+    }
+
+    @Test
+    void pruningByCountKeepsSnapshotAtStartOfRemainingChain() {
+        ReflectionTestUtils.setField(service, "maxPerNote", 4);
+        create("v1");
+        for (int revisionNo = 2; revisionNo <= 12; revisionNo++) {
+            update(revisionNo, contents.get(revisionNo - 1) + " v" + revisionNo, revisionNo % 2 == 0);
+        }
+        // 最多保留4个版本时版本8及之前可以清理，其中最新的快照是版本7
+        ReflectionTestUtils.invokeMethod(service, "prune");
+
+        assertRemainingChainStartsWithSnapshot(7);
+    }
+
+    private void assertRemainingChainStartsWithSnapshot(int expectedFirst) {
+        int first = Integer.MAX_VALUE;
+        for (NoteRevision row : mapper.rows) {
+            first = Math.min(first, row.getRevisionNo());
+        }
+        assertEquals(expectedFirst, first);
+        for (NoteRevision row : mapper.rows) {
+            if (row.getRevisionNo() == first) {
+                assertTrue(row.getSnapshot());
+            }
+            assertEquals(contents.get(row.getRevisionNo()),
+                    service.getRevision(NOTE_ID, USER_ID, row.getRevisionNo()).getContent());
+        }
+        assertNull(service.getRevision(NOTE_ID, USER_ID, first - 1));
+    }
+
+    private void create(String content) {
+        contents.put(1, content);
+        mapper.latest = 1;
+        service.recordCreated(note(1, "标题", content));
+    }
+
+    private void update(int revisionNo, String content, boolean withEdits) {
+        String before = contents.get(revisionNo - 1);
+        List<NotePatch.TextEdit> edits = null;
+        if (withEdits) {
+            // 客户端提交的编辑：把旧正文整体替换为新正文，与diff得到的编辑形式不同
+            edits = Collections.singletonList(new NotePatch.TextEdit(0, before.length(), content));
+        }
+        contents.put(revisionNo, content);
+        mapper.latest = revisionNo;
+        service.recordUpdated(note(revisionNo - 1, "标题", before), note(revisionNo, "标题", content), edits);
+    }
+
+    private static Note note(int revisionNo, String title, String content) {
+        Note note = new Note();
+        note.setNoteId(NOTE_ID);
+        note.setUserId(USER_ID);
+        note.setRevisionNo(revisionNo);
+        note.setTitle(title);
+        note.setContent(content);
+        return note;
+    }
+
+    /**
+     * 按NoteRevisionMapper.xml中语句的条件在内存中执行，只保存一个便签的版本
+     */
+    private static final class InMemoryRevisionMapper implements NoteRevisionMapper {
+        private final List<NoteRevision> rows = new ArrayList<>();
+        // notes.revision_no
+        private int latest;
+
+        @Override
+        public int insertBatch(List<NoteRevision> revisions) {
+            for (NoteRevision revision : revisions) {
+                assertFalse(find(revision.getRevisionNo()) != null, "uk_note_revision");
+                NoteRevision row = copy(revision);
+                row.setCreatedAt(new Date());
+                rows.add(row);
+            }
+            return revisions.size();
+        }
+
+        @Override
+        public List<NoteRevision> findByNoteId(Integer noteId, Integer userId, Integer beforeRevisionNo, int limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<NoteRevision> findChain(Integer noteId, Integer userId, Integer revisionNo) {
+            List<NoteRevision> chain = new ArrayList<>();
+            if (noteId != NOTE_ID || userId != USER_ID) {
+                return chain;
+            }
+            Integer start = null;
+            for (NoteRevision row : rows) {
+                if (row.getSnapshot() && row.getRevisionNo() <= revisionNo
+                        && (start == null || row.getRevisionNo() > start)) {
+                    start = row.getRevisionNo();
+                }
+            }
+            if (start == null) {
+                return chain;
+            }
+            for (int no = start; no <= revisionNo; no++) {
+                NoteRevision row = find(no);
+                if (row != null) {
+                    chain.add(copy(row));
+                }
+            }
+            return chain;
+        }
+
+        @Override
+        public int pruneExpired(Date cutoff, int maxRevisions) {
+            Integer keepFrom = null;
+            for (NoteRevision row : rows) {
+                if (row.getSnapshot()
+                        && (row.getCreatedAt().before(cutoff) || row.getRevisionNo() <= latest - maxRevisions)
+                        && (keepFrom == null || row.getRevisionNo() > keepFrom)) {
+                    keepFrom = row.getRevisionNo();
+                }
+            }
+            if (keepFrom == null) {
+                return 0;
+            }
+            int before = rows.size();
+            int keep = keepFrom;
+            rows.removeIf(row -> row.getRevisionNo() < keep);
+            return before - rows.size();
+        }
+
+        @Override
+        public int pruneDeleted(Date cutoff) {
+            return 0;
+        }
+
+        private NoteRevision find(int revisionNo) {
+            for (NoteRevision row : rows) {
+                if (row.getRevisionNo() == revisionNo) {
+                    return row;
+                }
+            }
+            return null;
+        }
+
+        private static NoteRevision copy(NoteRevision revision) {
+            NoteRevision copy = new NoteRevision();
+            copy.setNoteId(revision.getNoteId());
+            copy.setUserId(revision.getUserId());
+            copy.setRevisionNo(revision.getRevisionNo());
+            copy.setSnapshot(revision.getSnapshot());
+            copy.setTitle(revision.getTitle());
+            copy.setPayload(revision.getPayload());
+            copy.setContentLength(revision.getContentLength());
+            copy.setCreatedAt(revision.getCreatedAt());
+            return copy;
+        }
+    }
+}
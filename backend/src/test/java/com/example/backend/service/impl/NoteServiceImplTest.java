@@ -0,0 +1,133 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.mapper.NoteMapper;
+import com.example.backend.metrics.LatencyHistogram;
+import com.example.backend.model.Note;
+import com.example.backend.model.NoteSummary;
+import com.example.backend.model.dto.CursorPage;
+import com.example.backend.util.NoteCursor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 列表叠加写缓冲中的版本后仍满足请求的过滤条件和排序
+ */
+class NoteServiceImplTest {
+
+    private static final int USER_ID = 7;
+
+    // 模拟数据库按过滤条件和排序返回的行
+    private List<Note> noteRows = new ArrayList<>();
+    private List<NoteSummary> summaryRows = new ArrayList<>();
+
+    private final NoteServiceImpl service = new NoteServiceImpl();
+    private NoteWriteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        NoteMapper mapper = (NoteMapper) Proxy.newProxyInstance(NoteMapper.class.getClassLoader(),
+                new Class<?>[]{NoteMapper.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findByUserId":
+                        case "findByUserIdAndCategoryId":
+                            return noteRows;
+                        case "findSummaries":
+                            return summaryRows;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        buffer = new NoteWriteBuffer(note -> note, 60_000, 10, new LatencyHistogram(60, 6));
+        ReflectionTestUtils.setField(service, "noteMapper", mapper);
+        ReflectionTestUtils.setField(service, "writeBuffer", buffer);
+    }
+
+    @AfterEach
+    void tearDown() {
+        buffer.close();
+    }
+
+    @Test
+    void noteMovedToAnotherCategoryIsExcluded() {
+        summaryRows = Arrays.asList(summary(note(2, 5, false, 2000)), summary(note(1, 5, false, 1000)));
+        buffer.put(note(1, 6, false, 3000));
+
+        List<NoteSummary> summaries = service.getNoteSummaries(USER_ID, 5, false);
+        assertEquals(1, summaries.size());
+        assertEquals(Integer.valueOf(2), summaries.get(0).getNoteId());
+    }
+
+    @Test
+    void noteArchivedInBufferLeavesActiveList() {
+        noteRows = new ArrayList<>(Arrays.asList(note(2, null, false, 2000), note(1, null, false, 1000)));
+        buffer.put(note(2, null, true, 3000));
+
+        List<Note> notes = service.getNotesByUserId(USER_ID, false);
+        assertEquals(1, notes.size());
+        assertEquals(Integer.valueOf(1), notes.get(0).getNoteId());
+        // 不按归档状态过滤时保留，并带有缓冲中的状态
+        noteRows = new ArrayList<>(Arrays.asList(note(2, null, false, 2000), note(1, null, false, 1000)));
+        assertTrue(service.getNotesByUserId(USER_ID, null).get(0).getIsArchived());
+    }
+
+    @Test
+    void editedNoteMovesToListPosition() {
+        noteRows = new ArrayList<>(Arrays.asList(note(3, null, false, 3000), note(2, null, false, 2000), note(1, null, false, 1000)));
+        buffer.put(note(1, null, false, 4000));
+
+        List<Note> notes = service.getNotesByUserId(USER_ID, null);
+        assertEquals(Arrays.asList(1, 3, 2), ids(notes));
+    }
+
+    @Test
+    void noteSortedBeforeCursorIsLeftToEarlierPage() {
+        noteRows = new ArrayList<>(Arrays.asList(note(2, null, false, 2000), note(1, null, false, 1000)));
+        buffer.put(note(1, null, false, 4000));
+        String cursor = NoteCursor.keyset(false, new Date(2500), 9).encode();
+
+        CursorPage<Note> page = service.getNotePage(USER_ID, null, null, cursor, 10);
+        assertEquals(Arrays.asList(2), ids(page.getItems()));
+    }
+
+    private static List<Integer> ids(List<Note> notes) {
+        List<Integer> ids = new ArrayList<>();
+        for (Note note : notes) {
+            ids.add(note.getNoteId());
+        }
+        return ids;
+    }
+
+    private static Note note(int noteId, Integer categoryId, boolean archived, long updatedAt) {
+        Note note = new Note();
+        note.setNoteId(noteId);
+        note.setUserId(USER_ID);
+        note.setTitle("便签" + noteId);
+        note.setCategoryId(categoryId);
+        note.setIsPinned(false);
+        note.setIsArchived(archived);
+        note.setUpdatedAt(new Date(updatedAt));
+        return note;
+    }
+
+    private static NoteSummary summary(Note note) {
+        NoteSummary summary = new NoteSummary();
+        summary.setNoteId(note.getNoteId());
+        summary.setTitle(note.getTitle());
+        summary.setCategoryId(note.getCategoryId());
+        summary.setIsPinned(note.getIsPinned());
+        summary.setIsArchived(note.getIsArchived());
+        summary.setUpdatedAt(note.getUpdatedAt());
+        return summary;
+    }
+}
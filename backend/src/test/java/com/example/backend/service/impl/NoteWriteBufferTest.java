@@ -0,0 +1,239 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.metrics.LatencyHistogram;
+import com.example.backend.model.Note;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NoteWriteBufferTest {
+
+    // 足够长的窗口，测试期间后台线程不会写入
+    private static final long LONG_WINDOW = 60_000;
+
+    private final List<Note> written = Collections.synchronizedList(new ArrayList<>());
+    private NoteWriteBuffer buffer;
+
+    @AfterEach
+    void close() {
+        if (buffer != null) {
+            buffer.close();
+        }
+    }
+
+    @Test
+    void disabledWithoutWindow() {
+        buffer = newBuffer(this::record, 0, 10);
+        assertFalse(buffer.isEnabled());
+    }
+
+    @Test
+    void updatesToSameNoteCoalesceIntoOneWrite() {
+        buffer = newBuffer(this::record, LONG_WINDOW, 10);
+        Note v1 = note(1, 7, "v1");
+        Note v2 = note(1, 7, "v2");
+        Note v3 = note(1, 7, "v3");
+        buffer.put(v1);
+        buffer.put(v2);
+        buffer.put(v3);
+        assertSame(v3, buffer.get(1));
+
+        buffer.flush(1);
+        assertEquals(1, written.size());
+        assertSame(v3, written.get(0));
+        assertTrue(buffer.isEmpty());
+        assertEquals(2L, buffer.stats().get("coalescedCount"));
+        assertEquals(1L, buffer.stats().get("flushCount"));
+    }
+
+    @Test
+    void flushUserWritesOnlyThatUsersNotes() {
+        buffer = newBuffer(this::record, LONG_WINDOW, 10);
+        buffer.put(note(1, 7, "a"));
+        buffer.put(note(2, 7, "b"));
+        buffer.put(note(3, 8, "c"));
+
+        buffer.flushUser(7);
+        assertEquals(2, written.size());
+        assertNull(buffer.get(1));
+        assertNull(buffer.get(2));
+        assertEquals("c", buffer.get(3).getTitle());
+    }
+
+    @Test
+    void backgroundFlushWritesAfterWindow() throws InterruptedException {
+        buffer = newBuffer(this::record, 100, 10);
+        buffer.put(note(1, 7, "a"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!buffer.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(buffer.isEmpty());
+        assertEquals(1, written.size());
+    }
+
+    @Test
+    void exceedingMaxPendingWritesOldestOnCallerThread() throws InterruptedException {
+        buffer = newBuffer(this::record, LONG_WINDOW, 2);
+        buffer.put(note(1, 7, "a"));
+        Thread.sleep(5);
+        buffer.put(note(2, 7, "b"));
+        Thread.sleep(5);
+        buffer.put(note(3, 7, "c"));
+        assertEquals(1, written.size());
+        assertEquals(Integer.valueOf(1), written.get(0).getNoteId());
+        assertNull(buffer.get(1));
+    }
+
+    @Test
+    void failedWriteIsKeptAndRetriedUntilItSucceeds() {
+        int[] failuresLeft = {5};
+        buffer = newBuffer(note -> {
+            if (failuresLeft[0]-- > 0) {
+                throw new IllegalStateException("数据库不可用");
+            }
+            return record(note);
+        }, LONG_WINDOW, 10);
+        Note note = note(1, 7, "a");
+        buffer.put(note);
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(IllegalStateException.class, () -> buffer.flush(1));
+            assertSame(note, buffer.get(1));
+        }
+        assertEquals(5L, buffer.stats().get("failedCount"));
+        assertEquals(1, buffer.stats().get("failingCount"));
+        assertTrue(((String) buffer.stats().get("lastError")).contains("数据库不可用"));
+        assertEquals(0L, buffer.stats().get("droppedCount"));
+
+        buffer.flush(1);
+        assertTrue(buffer.isEmpty());
+        assertEquals(1, written.size());
+        assertEquals(0, buffer.stats().get("failingCount"));
+    }
+
+    @Test
+    void closeReportsEntriesThatStillFail() {
+        buffer = newBuffer(note -> {
+            throw new IllegalStateException("数据库不可用");
+        }, LONG_WINDOW, 10);
+        buffer.put(note(1, 7, "a"));
+        buffer.close();
+        assertFalse(buffer.isEnabled());
+        assertEquals(1L, buffer.stats().get("failedCount"));
+        assertEquals(1, buffer.stats().get("failingCount"));
+    }
+
+    @Test
+    void noteGoneAtWriteTimeIsDropped() {
+        buffer = newBuffer(note -> null, LONG_WINDOW, 10);
+        buffer.put(note(1, 7, "a"));
+        buffer.flush(1);
+        assertTrue(buffer.isEmpty());
+        assertEquals(1L, buffer.stats().get("droppedCount"));
+    }
+
+    @Test
+    void versionArrivingDuringWriteStaysBuffered() {
+        Note newer = note(1, 7, "newer");
+        buffer = newBuffer(note -> {
+            if (written.isEmpty()) {
+                buffer.put(newer);
+            }
+            return record(note);
+        }, LONG_WINDOW, 10);
+        buffer.put(note(1, 7, "older"));
+
+        buffer.flush(1);
+        assertEquals("older", written.get(0).getTitle());
+        assertSame(newer, buffer.get(1));
+
+        buffer.flush(1);
+        assertEquals("newer", written.get(1).getTitle());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void flushInTransactionIsSettledOnCommit() {
+        buffer = newBuffer(this::record, LONG_WINDOW, 10);
+        buffer.put(note(1, 7, "a"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            buffer.flush(1);
+            // 提交前仍留在缓冲中，同一事务再次flush不重复写入
+            assertEquals("a", buffer.get(1).getTitle());
+            buffer.flushUser(7);
+            assertEquals(1, written.size());
+            completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void flushInRolledBackTransactionStaysBuffered() {
+        buffer = newBuffer(this::record, LONG_WINDOW, 10);
+        Note note = note(1, 7, "a");
+        buffer.put(note);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            buffer.flush(1);
+            completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertSame(note, buffer.get(1));
+
+        buffer.flush(1);
+        assertEquals(2, written.size());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void closeWritesPendingNotes() {
+        buffer = newBuffer(this::record, LONG_WINDOW, 10);
+        buffer.put(note(1, 7, "a"));
+        buffer.put(note(2, 8, "b"));
+        buffer.close();
+        assertEquals(2, written.size());
+        assertTrue(buffer.isEmpty());
+    }
+
+    private static void completeTransaction(int status) {
+        TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(), status);
+    }
+
+    private Note record(Note note) {
+        written.add(note);
+        return note;
+    }
+
+    private static NoteWriteBuffer newBuffer(Function<Note, Note> writer, long windowMillis, int maxPending) {
+        return new NoteWriteBuffer(writer, windowMillis, maxPending, new LatencyHistogram(60, 6));
+    }
+
+    private static Note note(int noteId, int userId, String title) {
+        Note note = new Note();
+        note.setNoteId(noteId);
+        note.setUserId(userId);
+        note.setTitle(title);
+        return note;
+    }
+}
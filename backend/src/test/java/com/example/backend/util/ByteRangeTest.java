@@ -0,0 +1,77 @@
+package com.example.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ByteRangeTest {
+
+    private static final String ETAG = "\"job-1\"";
+
+    @Test
+    void closedRange() {
+        assertRange(0, 99, "bytes=0-99", 1000);
+        assertRange(500, 500, "bytes=500-500", 1000);
+        assertEquals(100, ByteRange.parse("bytes=0-99", 1000).getLength());
+    }
+
+    @Test
+    void openEndRunsToLastByte() {
+        assertRange(400, 999, "bytes=400-", 1000);
+        assertRange(999, 999, "bytes=999-", 1000);
+    }
+
+    @Test
+    void suffixRangeCoversLastBytes() {
+        assertRange(900, 999, "bytes=-100", 1000);
+        // 后缀长度超过文件时返回整个文件
+        assertRange(0, 999, "bytes=-5000", 1000);
+    }
+
+    @Test
+    void lastPastEndOfFileIsClamped() {
+        assertRange(900, 999, "bytes=900-5000", 1000);
+        assertRange(0, 999, "bytes=0-" + Long.MAX_VALUE, 1000);
+    }
+
+    @Test
+    void rejectsMultipleRanges() {
+        assertNull(ByteRange.parse("bytes=0-99,200-299", 1000));
+        assertNull(ByteRange.parse("bytes=0-99, -100", 1000));
+    }
+
+    @Test
+    void rejectsUnsatisfiableRanges() {
+        assertNull(ByteRange.parse("bytes=1000-", 1000));
+        assertNull(ByteRange.parse("bytes=500-100", 1000));
+        assertNull(ByteRange.parse("bytes=-0", 1000));
+        assertNull(ByteRange.parse("bytes=0-", 0));
+    }
+
+    @Test
+    void rejectsMalformedRanges() {
+        assertNull(ByteRange.parse("items=0-99", 1000));
+        assertNull(ByteRange.parse("bytes=100", 1000));
+        assertNull(ByteRange.parse("bytes=a-b", 1000));
+        assertNull(ByteRange.parse("bytes=-", 1000));
+    }
+
+    @Test
+    void ifRangeMismatchServesWholeFile() {
+        assertTrue(ByteRange.applies("bytes=0-99", null, ETAG));
+        assertTrue(ByteRange.applies("bytes=0-99", ETAG, ETAG));
+        assertFalse(ByteRange.applies("bytes=0-99", "\"job-2\"", ETAG));
+        // If-Range为日期时无法与ETag比较，同样按不一致处理
+        assertFalse(ByteRange.applies("bytes=0-99", "Wed, 21 Oct 2026 07:28:00 GMT", ETAG));
+        assertFalse(ByteRange.applies(null, ETAG, ETAG));
+    }
+
+    private static void assertRange(long start, long end, String header, long size) {
+        ByteRange range = ByteRange.parse(header, size);
+        assertEquals(start, range.getStart(), header);
+        assertEquals(end, range.getEnd(), header);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NoteCursorTest {
+
+    @Test
+    void keysetRoundTrip() {
+        Date updatedAt = new Date(1767225600123L);
+        NoteCursor cursor = NoteCursor.decode(NoteCursor.keyset(true, updatedAt, 42).encode());
+        assertFalse(cursor.isRanked());
+        assertTrue(cursor.isPinned());
+        assertEquals(updatedAt, cursor.getUpdatedAt());
+        assertEquals(42, cursor.getNoteId());
+    }
+
+    @Test
+    void keysetTreatsNullPinnedAsUnpinned() {
+        NoteCursor cursor = NoteCursor.decode(NoteCursor.keyset(null, new Date(0), 1).encode());
+        assertFalse(cursor.isPinned());
+    }
+
+    @Test
+    void rankedRoundTrip() {
+        NoteCursor cursor = NoteCursor.decode(NoteCursor.ranked(3.25, 7).encode());
+        assertTrue(cursor.isRanked());
+        assertEquals(3.25, cursor.getScore());
+        assertEquals(7, cursor.getNoteId());
+    }
+
+    @Test
+    void encodedCursorIsUrlSafe() {
+        String encoded = NoteCursor.keyset(true, new Date(Long.MAX_VALUE / 2), Integer.MAX_VALUE).encode();
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertRejected("not base64!");
+        assertRejected("");
+        assertRejected(raw("x|1|2|3"));
+        assertRejected(raw("k|1|2"));
+        assertRejected(raw("k|1|2|3|4"));
+        assertRejected(raw("k|1|yesterday|3"));
+        assertRejected(raw("k|1|2|3.5"));
+        assertRejected(raw("r|1.0"));
+        assertRejected(raw("r|abc|3"));
+    }
+
+    @Test
+    void rejectsNonFiniteScores() {
+        assertRejected(raw("r|NaN|3"));
+        assertRejected(raw("r|Infinity|3"));
+    }
+
+    private static String raw(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertRejected(String cursor) {
+        assertThrows(InvalidCursorException.class, () -> NoteCursor.decode(cursor));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SyncTokenTest {
+
+    @Test
+    void roundTrip() {
+        SyncToken token = SyncToken.decode(new SyncToken(9_000_000_000L, 123).encode());
+        assertEquals(9_000_000_000L, token.getChangeSeq());
+        assertEquals(123, token.getNoteId());
+    }
+
+    @Test
+    void missingTokenStartsFromTheBeginning() {
+        assertSame(SyncToken.INITIAL, SyncToken.decode(null));
+        assertSame(SyncToken.INITIAL, SyncToken.decode(""));
+        assertEquals(0L, SyncToken.INITIAL.getChangeSeq());
+        assertEquals(0, SyncToken.INITIAL.getNoteId());
+    }
+
+    @Test
+    void encodedTokenIsUrlSafe() {
+        String encoded = new SyncToken(Long.MAX_VALUE, Integer.MAX_VALUE).encode();
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        assertRejected("%%%");
+        assertRejected(raw("s2|1|2"));
+        assertRejected(raw("s1|1"));
+        assertRejected(raw("s1|1|2|3"));
+        assertRejected(raw("s1|x|2"));
+        assertRejected(raw("s1|1|99999999999"));
+    }
+
+    @Test
+    void rejectsNegativeValues() {
+        assertRejected(raw("s1|-1|2"));
+        assertRejected(raw("s1|1|-2"));
+    }
+
+    @Test
+    void rejectsKeysetCursorPassedAsSyncToken() {
+        assertRejected(NoteCursor.keyset(true, new Date(0), 1).encode());
+    }
+
+    private static String raw(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertRejected(String token) {
+        assertThrows(InvalidCursorException.class, () -> SyncToken.decode(token));
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.backend.util;
+
+import com.example.backend.model.dto.NotePatch.TextEdit;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextEditsTest {
+
+    @Test
+    void appliesInsertDeleteAndReplaceInOrder() {
+        List<TextEdit> edits = Arrays.asList(
+                new TextEdit(0, 0, "# "),
+                new TextEdit(3, 2, null),
+                new TextEdit(7, 2, "记录"));
+        assertEquals("# 今天的会议记录", TextEdits.apply("今天的草稿会议纪要", edits));
+    }
+
+    @Test
+    void offsetsReferToTheOriginalText() {
+        List<TextEdit> edits = Arrays.asList(new TextEdit(0, 1, "AAA"), new TextEdit(2, 1, "C"));
+        assertEquals("AAAbCd", TextEdits.apply("abcd", edits));
+    }
+
+    @Test
+    void editsAtEndAndOnEmptyOrNullBase() {
+        assertEquals("abc!", TextEdits.apply("abc", Collections.singletonList(new TextEdit(3, 0, "!"))));
+        assertEquals("new", TextEdits.apply(null, Collections.singletonList(new TextEdit(0, 0, "new"))));
+        assertEquals("abc", TextEdits.apply("abc", Collections.<TextEdit>emptyList()));
+    }
+
+    @Test
+    void rejectsOutOfRangeOverlappingAndNegativeEdits() {
+        assertRejected("abc", new TextEdit(4, 0, "x"));
+        assertRejected("abc", new TextEdit(2, 2, null));
+        assertRejected("abc", new TextEdit(1, -1, null));
+        assertRejected("abc", new TextEdit(-1, 0, "x"));
+        assertRejected("abcdef", new TextEdit(2, 2, null), new TextEdit(3, 1, null));
+        assertRejected("abcdef", new TextEdit(3, 0, "x"), new TextEdit(1, 0, "y"));
+    }
+
+    @Test
+    void rejectsEditsSplittingSurrogatePairs() {
+        String emoji = "a😀b";
+        assertRejected(emoji, new TextEdit(2, 0, "x"));
+        assertRejected(emoji, new TextEdit(1, 1, null));
+        assertEquals("ab", TextEdits.apply(emoji, Collections.singletonList(new TextEdit(1, 2, null))));
+    }
+
+    @Test
+    void diffProducesSingleEditThatReproducesTarget() {
+        assertDiffRoundTrip("周一开会讨论预算", "周二开会讨论年度预算");
+        assertDiffRoundTrip("abc", "");
+        assertDiffRoundTrip("", "abc");
+        assertDiffRoundTrip(null, "abc");
+        assertDiffRoundTrip("aaaa", "aaaaa");
+        assertTrue(TextEdits.diff("same", "same").isEmpty());
+    }
+
+    @Test
+    void diffDoesNotSplitSurrogatePairs() {
+        // 两个表情的高位代理相同，公共前缀会停在代理对中间
+        String before = "x😀";
+        String after = "x😁";
+        List<TextEdit> edits = TextEdits.diff(before, after);
+        assertEquals(1, edits.get(0).getOffset());
+        assertEquals(2, edits.get(0).getDelete());
+        assertEquals(after, TextEdits.apply(before, edits));
+    }
+
+    @Test
+    void encodeDecodeRoundTripsDelimitersInInsertedText() {
+        List<TextEdit> edits = Arrays.asList(new TextEdit(0, 2, "a,b:c"), new TextEdit(5, 0, ""), new TextEdit(7, 1, "1,2,3:"));
+        List<TextEdit> decoded = TextEdits.decode(TextEdits.encode(edits));
+        assertEquals(edits.size(), decoded.size());
+        for (int i = 0; i < edits.size(); i++) {
+            assertEquals(edits.get(i).getOffset(), decoded.get(i).getOffset());
+            assertEquals(edits.get(i).getDelete(), decoded.get(i).getDelete());
+            assertEquals(edits.get(i).getInsert(), decoded.get(i).getInsert());
+        }
+        assertTrue(TextEdits.decode("").isEmpty());
+    }
+
+    @Test
+    void decodeRejectsMalformedInput() {
+        assertThrows(IllegalArgumentException.class, () -> TextEdits.decode("1,2"));
+        assertThrows(IllegalArgumentException.class, () -> TextEdits.decode("1,2,5:ab"));
+        assertThrows(IllegalArgumentException.class, () -> TextEdits.decode("x,2,0:"));
+    }
+
+    @Test
+    void hashIsLowercaseSha256AndTreatsNullAsEmpty() {
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", TextEdits.hash(null));
+        assertEquals(TextEdits.hash(""), TextEdits.hash(null));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", TextEdits.hash("abc"));
+    }
+
+    private static void assertDiffRoundTrip(String before, String after) {
+        assertEquals(after, TextEdits.apply(before, TextEdits.diff(before, after)));
+    }
+
+    private static void assertRejected(String base, TextEdit... edits) {
+        assertThrows(IllegalArgumentException.class, () -> TextEdits.apply(base, Arrays.asList(edits)));
+    }
+}
@@ -0,0 +1,91 @@
+#!/usr/bin/env python3
+"""比较两次JMH运行的JSON结果（-rf json），列出每个基准的变化，超过阈值的退化返回非零退出码。
+
+用法: python3 compare.py baseline.json current.json [--threshold 10]
+"""
+import argparse
+import json
+import math
+import sys
+
+# 吞吐量模式分数越高越好，其余模式（avgt、sample、ss）分数是每次操作的耗时，越低越好
+HIGHER_IS_BETTER = {"thrpt"}
+
+
+def load(path):
+    with open(path, encoding="utf-8") as f:
+        results = {}
+        for entry in json.load(f):
+            params = entry.get("params") or {}
+            key = (entry["benchmark"], entry["mode"], tuple(sorted(params.items())))
+            results[key] = entry["primaryMetric"]
+        return results
+
+
+def label(key):
+    benchmark, mode, params = key
+    name = benchmark.rsplit(".", 2)
+    name = ".".join(name[-2:]) if len(name) >= 2 else benchmark
+    if params:
+        name += "(" + ",".join("%s=%s" % p for p in params) + ")"
+    return "%s [%s]" % (name, mode)
+
+
+def interval(metric):
+    low, high = (metric.get("scoreConfidence") or [None, None])[:2]
+    try:
+        low, high = float(low), float(high)
+    except (TypeError, ValueError):
+        return None
+    if math.isnan(low) or math.isnan(high):
+        return None
+    return low, high
+
+
+def main():
+    parser = argparse.ArgumentParser(description="比较两次JMH运行结果")
+    parser.add_argument("baseline")
+    parser.add_argument("current")
+    parser.add_argument("--threshold", type=float, default=10.0,
+                        help="判定为退化的变化百分比，默认10")
+    args = parser.parse_args()
+
+    baseline = load(args.baseline)
+    current = load(args.current)
+    regressions = 0
+
+    print("%-70s %14s %14s %9s" % ("基准", "基线", "当前", "变化"))
+    for key in sorted(set(baseline) | set(current)):
+        if key not in baseline or key not in current:
+            print("%-70s %s" % (label(key), "仅在当前结果中" if key in current else "仅在基线结果中"))
+            continue
+        old, new = baseline[key], current[key]
+        if old.get("scoreUnit") != new.get("scoreUnit"):
+            print("%-70s 单位不同（%s / %s），跳过" % (label(key), old.get("scoreUnit"), new.get("scoreUnit")))
+            continue
+        old_score, new_score = float(old["score"]), float(new["score"])
+        change = (new_score - old_score) / old_score * 100 if old_score else 0.0
+        worse = -change if key[1] in HIGHER_IS_BETTER else change
+        # 两次的置信区间重叠时变化可能只是噪声，不判定为退化
+        old_ci, new_ci = interval(old), interval(new)
+        overlap = old_ci is not None and new_ci is not None and old_ci[0] <= new_ci[1] and new_ci[0] <= old_ci[1]
+        mark = ""
+        if worse > args.threshold:
+            if overlap:
+                mark = "  (置信区间重叠)"
+            else:
+                mark = "  <-- 退化"
+                regressions += 1
+        elif worse < -args.threshold:
+            mark = "  改善"
+        print("%-70s %14.3f %14.3f %+8.1f%% %s%s" % (label(key), old_score, new_score, change,
+                                                   new.get("scoreUnit", ""), mark))
+
+    if regressions:
+        print("\n%d个基准退化超过%.1f%%" % (regressions, args.threshold))
+        return 1
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
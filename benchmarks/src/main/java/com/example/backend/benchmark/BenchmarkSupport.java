@@ -0,0 +1,129 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.model.Note;
+
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * 基准测试的公共工具：生成测试便签、按方法名桩接接口、设置字段注入的依赖
+ */
+final class BenchmarkSupport {
+
+    private static final String[] WORDS = {
+            "会议", "记录", "项目", "进度", "需求", "设计", "测试", "发布", "周报", "计划",
+            "meeting", "release", "design", "review", "backend", "frontend", "deploy", "cache", "index", "query"
+    };
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 生成count个便签，正文约contentLength个字符；种子固定，每次运行的数据相同
+     */
+    static List<Note> notes(int userId, int count, int contentLength) {
+        Random random = new Random(42);
+        List<Note> notes = new ArrayList<>(count);
+        Date now = new Date();
+        for (int i = 1; i <= count; i++) {
+            Note note = new Note();
+            note.setNoteId(i);
+            note.setUserId(userId);
+            note.setTitle(text(random, 6));
+            note.setContent(textOfLength(random, contentLength));
+            note.setColor("#ffffff");
+            note.setCategoryId(i % 5 == 0 ? null : i % 7 + 1);
+            note.setIsPinned(i % 11 == 0);
+            note.setIsArchived(i % 13 == 0);
+            note.setCreatedAt(now);
+            note.setUpdatedAt(now);
+            note.setContentLength(note.getContent().length());
+            note.setContentPreview(note.getContent().substring(0, Math.min(120, note.getContent().length())));
+            note.setChangeSeq((long) i);
+            note.setRevisionNo(1);
+            notes.add(note);
+        }
+        return notes;
+    }
+
+    private static String text(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static String textOfLength(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length + 16);
+        while (sb.length() < length) {
+            sb.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(8) == 0 ? '\n' : ' ');
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+
+    /**
+     * 按方法名桩接接口，未列出的方法返回null（基本类型返回0或false）
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> handler = methods.get(method.getName());
+            if (handler != null) {
+                return handler.apply(args);
+            }
+            Class<?> returnType = method.getReturnType();
+            if (returnType == boolean.class) {
+                return false;
+            }
+            if (returnType == int.class) {
+                return 0;
+            }
+            if (returnType == long.class) {
+                return 0L;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 设置字段注入（@Autowired/@Value）的私有字段
+     */
+    static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("无法设置字段" + name, e);
+        }
+    }
+
+    /**
+     * 只统计字节数的输出流，避免把磁盘或内存写入计入导出耗时
+     */
+    static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.model.Note;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 便签列表的JSON序列化，ObjectMapper按Spring MVC的默认配置创建
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"100"})
+    public int noteCount;
+
+    // 每个便签正文的字符数
+    @Param({"200", "4000", "50000"})
+    public int contentLength;
+
+    private ObjectMapper objectMapper;
+    private List<Note> notes;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        notes = BenchmarkSupport.notes(1, noteCount, contentLength);
+    }
+
+    @Benchmark
+    public byte[] writeNoteList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(notes);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.mapper.NoteMapper;
+import com.example.backend.metrics.MetricsRegistry;
+import com.example.backend.model.Note;
+import com.example.backend.search.NoteSearchIndex;
+import com.example.backend.service.impl.NoteServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 便签检索：indexSearch是倒排索引的BM25检索，sqlFallback是索引未就绪时
+ * NoteServiceImpl对SQL候选行按关键词重新过滤的路径（候选行由桩接的NoteMapper直接返回）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoteSearchBenchmark {
+
+    private static final Integer USER_ID = 1;
+
+    @Param({"1000", "10000"})
+    public int noteCount;
+
+    @Param({"项目进度", "release"})
+    public String keyword;
+
+    private NoteSearchIndex index;
+    private NoteServiceImpl fallbackService;
+    private Map<String, Object> params;
+
+    @Setup
+    public void setup() throws Exception {
+        List<Note> notes = BenchmarkSupport.notes(USER_ID, noteCount, 800);
+
+        index = new NoteSearchIndex();
+        for (Note note : notes) {
+            index.index(note);
+        }
+        BenchmarkSupport.setField(index, "ready", true);
+
+        // 索引未就绪，searchNotes回退到SQL候选行的过滤
+        Map<String, Function<Object[], Object>> mapperMethods = new HashMap<>();
+        mapperMethods.put("searchNotes", args -> notes);
+        fallbackService = new NoteServiceImpl();
+        BenchmarkSupport.setField(fallbackService, "noteMapper", BenchmarkSupport.stub(NoteMapper.class, mapperMethods));
+        BenchmarkSupport.setField(fallbackService, "searchIndex", new NoteSearchIndex());
+        BenchmarkSupport.setField(fallbackService, "metrics", new MetricsRegistry(60, 6));
+        BenchmarkSupport.setField(fallbackService, "transactionManager",
+                BenchmarkSupport.stub(PlatformTransactionManager.class, Collections.emptyMap()));
+        fallbackService.init();
+
+        params = new HashMap<>();
+        params.put("userId", USER_ID);
+        params.put("keyword", keyword);
+    }
+
+    @Benchmark
+    public List<NoteSearchIndex.Hit> indexSearch() {
+        return index.search(USER_ID, keyword, null, null);
+    }
+
+    @Benchmark
+    public List<Note> sqlFallback() {
+        return fallbackService.searchNotes(params);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.export.ExportProgress;
+import com.example.backend.export.WordNoteExporter;
+import com.example.backend.model.Category;
+import com.example.backend.model.Note;
+import com.example.backend.service.CategoryService;
+import com.example.backend.service.NoteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Word导出：便签从内存中的列表逐条交给导出器，只测量文档生成和压缩，不含数据库读取
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WordExportBenchmark {
+
+    private static final Integer USER_ID = 1;
+
+    @Param({"10", "1000", "10000"})
+    public int noteCount;
+
+    private WordNoteExporter exporter;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        List<Note> notes = BenchmarkSupport.notes(USER_ID, noteCount, 800);
+        List<Category> categories = new ArrayList<>();
+        for (int i = 1; i <= 8; i++) {
+            Category category = new Category();
+            category.setCategoryId(i);
+            category.setUserId(USER_ID);
+            category.setName("分类" + i);
+            categories.add(category);
+        }
+
+        Map<String, Function<Object[], Object>> noteMethods = new HashMap<>();
+        noteMethods.put("countNotesByUserId", args -> notes.size());
+        noteMethods.put("forEachNoteForExport", args -> {
+            notes.forEach((Consumer<Note>) args[1]);
+            return null;
+        });
+        Map<String, Function<Object[], Object>> categoryMethods = new HashMap<>();
+        categoryMethods.put("getCategoriesByUserId", args -> categories);
+
+        exporter = new WordNoteExporter(BenchmarkSupport.stub(NoteService.class, noteMethods),
+                BenchmarkSupport.stub(CategoryService.class, categoryMethods));
+    }
+
+    @Benchmark
+    public long export() throws IOException {
+        BenchmarkSupport.CountingOutputStream out = new BenchmarkSupport.CountingOutputStream();
+        exporter.export(USER_ID, out, ExportProgress.NONE);
+        return out.count;
+    }
+}
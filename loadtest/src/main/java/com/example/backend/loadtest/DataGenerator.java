@@ -0,0 +1,316 @@
+package com.example.backend.loadtest;
+
+import com.example.backend.compress.DeflateContentCodec;
+import com.example.backend.compress.NoteContentCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 合成测试数据，直接用JDBC批量写入：
+ * 便签数按Zipf分布分配给用户（少数用户拥有大部分便签），正文长度服从对数正态分布，
+ * 另有一小部分几十万到上百万字的大便签。写入的行与应用写入的一致：内容按应用的压缩配置编码，
+ * 预览和字数按应用的规则计算，统计表按便签重新汇总；版本号为0，与升级前的存量数据相同
+ */
+class DataGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataGenerator.class);
+
+    static final String PASSWORD = "loadtest-password";
+
+    // 与application.properties中的默认压缩配置一致
+    private static final int COMPRESS_THRESHOLD = 4096;
+    private static final int COMPRESS_LEVEL = 6;
+    // 与note.preview.length的默认值一致
+    private static final int PREVIEW_LENGTH = 120;
+
+    // 普通便签正文长度的中位数和对数标准差，最长不超过MySQL TEXT的容量
+    private static final double CONTENT_MEDIAN_CHARS = 400;
+    private static final double CONTENT_SIGMA = 1.2;
+    private static final int CONTENT_MAX_CHARS = 60_000;
+
+    private static final int MAX_CATEGORIES_PER_USER = 8;
+    private static final int BATCH_SIZE = 200;
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    // 检索关键词也从这里选取，中英文混合，保证命中倒排索引的双字词和英文词
+    static final String[] WORDS = {
+            "会议", "记录", "项目", "进度", "需求", "设计", "测试", "发布", "周报", "计划",
+            "预算", "客户", "合同", "采购", "招聘", "面试", "培训", "复盘", "旅行", "读书",
+            "健身", "菜谱", "购物", "账单", "家庭", "学习", "英语", "代码", "数据", "服务器",
+            "meeting", "release", "design", "review", "backend", "frontend", "deploy", "cache",
+            "index", "query", "budget", "travel", "recipe", "invoice", "roadmap", "sprint",
+            "bug", "feature", "report", "draft"
+    };
+
+    private static final String[] COLORS = {"#ffffff", "#fff3bf", "#d3f9d8", "#d0ebff", "#ffe3e3", "#e5dbff"};
+
+    private final LoadTestOptions options;
+    private final Random random;
+    private final NoteContentCodec codec = new NoteContentCodec(COMPRESS_THRESHOLD, new DeflateContentCodec(COMPRESS_LEVEL));
+
+    DataGenerator(LoadTestOptions options) {
+        this.options = options;
+        this.random = new Random(options.getSeed());
+    }
+
+    GeneratedData generate(Connection connection) throws SQLException {
+        long start = System.nanoTime();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            List<GeneratedData.User> users = insertUsers(connection);
+            Map<Integer, List<Integer>> categories = insertCategories(connection, users);
+            long[] totals = insertNotes(connection, users, categories);
+            rebuildStats(connection);
+            connection.commit();
+            loadNoteIds(connection, users);
+            logger.info("生成{}个用户、{}个便签（其中{}个大便签，共{}字），耗时{}秒",
+                    users.size(), options.getNotes(), totals[1], totals[0],
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+            return new GeneratedData(users, PASSWORD, totals[0], (int) totals[1]);
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private List<GeneratedData.User> insertUsers(Connection connection) throws SQLException {
+        // 所有用户共用一个密码，只计算一次BCrypt
+        String passwordHash = new BCryptPasswordEncoder().encode(PASSWORD);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO users (username, email, password_hash, created_at, updated_at) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= options.getUsers(); i++) {
+                ps.setString(1, "loadtest" + i);
+                ps.setString(2, "loadtest" + i + "@example.com");
+                ps.setString(3, passwordHash);
+                ps.setTimestamp(4, now);
+                ps.setTimestamp(5, now);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        // 自增ID由数据库分配，插入后读回
+        List<GeneratedData.User> users = new ArrayList<>(options.getUsers());
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT user_id, username FROM users ORDER BY user_id")) {
+            while (rs.next()) {
+                users.add(new GeneratedData.User(rs.getInt(1), rs.getString(2)));
+            }
+        }
+        return users;
+    }
+
+    private Map<Integer, List<Integer>> insertCategories(Connection connection, List<GeneratedData.User> users)
+            throws SQLException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO categories (user_id, name, color, created_at) VALUES (?, ?, ?, ?)")) {
+            for (GeneratedData.User user : users) {
+                int count = random.nextInt(MAX_CATEGORIES_PER_USER + 1);
+                for (int i = 0; i < count; i++) {
+                    ps.setInt(1, user.getUserId());
+                    ps.setString(2, WORDS[random.nextInt(WORDS.length)] + (i + 1));
+                    ps.setString(3, COLORS[random.nextInt(COLORS.length)]);
+                    ps.setTimestamp(4, now);
+                    ps.addBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+        Map<Integer, List<Integer>> categories = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT user_id, category_id FROM categories")) {
+            while (rs.next()) {
+                categories.computeIfAbsent(rs.getInt(1), k -> new ArrayList<>()).add(rs.getInt(2));
+            }
+        }
+        return categories;
+    }
+
+    /**
+     * 写入便签，返回{总字数, 大便签数}
+     */
+    private long[] insertNotes(Connection connection, List<GeneratedData.User> users,
+                               Map<Integer, List<Integer>> categories) throws SQLException {
+        int[] counts = noteCounts(users.size());
+        long totalChars = 0;
+        long largeNotes = 0;
+        long now = System.currentTimeMillis();
+        int pending = 0;
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO notes (user_id, title, content, content_preview, content_length, color, category_id, "
+                        + "created_at, updated_at, is_pinned, is_archived, change_seq, revision_no) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, 0)")) {
+            for (int u = 0; u < users.size(); u++) {
+                GeneratedData.User user = users.get(u);
+                List<Integer> userCategories = categories.getOrDefault(user.getUserId(), Collections.emptyList());
+                for (int i = 0; i < counts[u]; i++) {
+                    boolean large = random.nextDouble() < options.getLargeNoteRatio();
+                    String content = text(random, large ? largeLength() : normalLength());
+                    long createdAt = now - (long) (random.nextDouble() * 365 * DAY_MILLIS);
+                    long updatedAt = Math.min(now, createdAt + (long) (random.nextDouble() * 30 * DAY_MILLIS));
+                    ps.setInt(1, user.getUserId());
+                    ps.setString(2, title());
+                    ps.setString(3, codec.encode(content));
+                    ps.setString(4, preview(content));
+                    ps.setInt(5, content.length());
+                    ps.setString(6, COLORS[random.nextInt(COLORS.length)]);
+                    if (userCategories.isEmpty() || random.nextInt(10) < 3) {
+                        ps.setNull(7, Types.INTEGER);
+                    } else {
+                        ps.setInt(7, userCategories.get(random.nextInt(userCategories.size())));
+                    }
+                    ps.setTimestamp(8, new Timestamp(createdAt));
+                    ps.setTimestamp(9, new Timestamp(updatedAt));
+                    ps.setBoolean(10, random.nextInt(100) < 5);
+                    ps.setBoolean(11, random.nextInt(100) < 10);
+                    ps.addBatch();
+                    totalChars += content.length();
+                    if (large) {
+                        largeNotes++;
+                    }
+                    if (++pending == BATCH_SIZE) {
+                        ps.executeBatch();
+                        connection.commit();
+                        pending = 0;
+                    }
+                }
+            }
+            if (pending > 0) {
+                ps.executeBatch();
+            }
+        }
+        return new long[]{totalChars, largeNotes};
+    }
+
+    /**
+     * 按Zipf分布把便签总数分给用户，每个用户至少一个；排名打乱后分配，便签多的用户不集中在ID靠前的位置
+     */
+    private int[] noteCounts(int userCount) {
+        double[] weights = new double[userCount];
+        double sum = 0;
+        for (int rank = 1; rank <= userCount; rank++) {
+            weights[rank - 1] = 1.0 / Math.pow(rank, options.getSkew());
+            sum += weights[rank - 1];
+        }
+        int remaining = options.getNotes() - userCount;
+        int[] counts = new int[userCount];
+        int assigned = 0;
+        for (int i = 0; i < userCount; i++) {
+            counts[i] = 1 + (int) (remaining * weights[i] / sum);
+            assigned += counts[i];
+        }
+        // 取整剩下的便签给排名第一的用户
+        counts[0] += options.getNotes() - assigned;
+        for (int i = userCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = counts[i];
+            counts[i] = counts[j];
+            counts[j] = tmp;
+        }
+        return counts;
+    }
+
+    private int normalLength() {
+        double length = CONTENT_MEDIAN_CHARS * Math.exp(CONTENT_SIGMA * random.nextGaussian());
+        return (int) Math.max(1, Math.min(CONTENT_MAX_CHARS, length));
+    }
+
+    private int largeLength() {
+        return options.getLargeNoteMinChars()
+                + random.nextInt(options.getLargeNoteMaxChars() - options.getLargeNoteMinChars() + 1);
+    }
+
+    private String title() {
+        int words = 2 + random.nextInt(4);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 约length个字符的正文，按词随机拼接，大约每十几个词换一行
+     */
+    static String text(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length + 16);
+        while (sb.length() < length) {
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+            sb.append(random.nextInt(12) == 0 ? '\n' : ' ');
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+
+    // 与NoteServiceImpl的预览规则相同：连续空白折叠为一个空格，取前PREVIEW_LENGTH个字符
+    private static String preview(String content) {
+        StringBuilder preview = new StringBuilder(PREVIEW_LENGTH);
+        boolean pendingSpace = false;
+        for (int i = 0; i < content.length() && preview.length() < PREVIEW_LENGTH; i++) {
+            char c = content.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = preview.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                preview.append(' ');
+                pendingSpace = false;
+                if (preview.length() >= PREVIEW_LENGTH) {
+                    break;
+                }
+            }
+            preview.append(c);
+        }
+        return preview.toString();
+    }
+
+    // 统计表按写入的便签重新汇总，与alter_note_stats.sql的初始化方式相同
+    private static void rebuildStats(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO note_stats (user_id, category_id, is_archived, is_pinned, note_count) "
+                    + "SELECT user_id, IFNULL(category_id, 0), IFNULL(is_archived, FALSE), IFNULL(is_pinned, FALSE), COUNT(*) "
+                    + "FROM notes "
+                    + "GROUP BY user_id, IFNULL(category_id, 0), IFNULL(is_archived, FALSE), IFNULL(is_pinned, FALSE)");
+            statement.executeUpdate("INSERT INTO note_daily_activity (user_id, activity_date, created_count) "
+                    + "SELECT user_id, CAST(created_at AS DATE), COUNT(*) FROM notes "
+                    + "GROUP BY user_id, CAST(created_at AS DATE)");
+        }
+    }
+
+    private static void loadNoteIds(Connection connection, List<GeneratedData.User> users) throws SQLException {
+        Map<Integer, GeneratedData.User> byId = new HashMap<>();
+        for (GeneratedData.User user : users) {
+            byId.put(user.getUserId(), user);
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT note_id, user_id, category_id, is_pinned, is_archived FROM notes ORDER BY note_id")) {
+            while (rs.next()) {
+                int categoryId = rs.getInt(3);
+                Integer category = rs.wasNull() ? null : categoryId;
+                byId.get(rs.getInt(2)).getNotes()
+                        .add(new GeneratedData.Note(rs.getInt(1), category, rs.getBoolean(4), rs.getBoolean(5)));
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.backend.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 生成的数据中虚拟用户需要的部分：用户名和每个用户的便签
+ */
+public class GeneratedData {
+
+    /**
+     * 生成的用户，所有用户使用相同的密码
+     */
+    public static final class User {
+        private final int userId;
+        private final String username;
+        private final List<Note> notes = new ArrayList<>();
+
+        User(int userId, String username) {
+            this.userId = userId;
+            this.username = username;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public List<Note> getNotes() {
+            return notes;
+        }
+    }
+
+    /**
+     * 便签的ID和整行更新时需要原样提交的字段；置顶状态随pin操作更新
+     */
+    public static final class Note {
+        private final int noteId;
+        private final Integer categoryId;
+        private final boolean archived;
+        private volatile boolean pinned;
+
+        Note(int noteId, Integer categoryId, boolean pinned, boolean archived) {
+            this.noteId = noteId;
+            this.categoryId = categoryId;
+            this.pinned = pinned;
+            this.archived = archived;
+        }
+
+        public int getNoteId() {
+            return noteId;
+        }
+
+        public Integer getCategoryId() {
+            return categoryId;
+        }
+
+        public boolean isArchived() {
+            return archived;
+        }
+
+        public boolean isPinned() {
+            return pinned;
+        }
+
+        public void setPinned(boolean pinned) {
+            this.pinned = pinned;
+        }
+    }
+
+    private final List<User> users;
+    private final String password;
+    private final long totalChars;
+    private final int largeNotes;
+
+    GeneratedData(List<User> users, String password, long totalChars, int largeNotes) {
+        this.users = users;
+        this.password = password;
+        this.totalChars = totalChars;
+        this.largeNotes = largeNotes;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public long getTotalChars() {
+        return totalChars;
+    }
+
+    public int getLargeNotes() {
+        return largeNotes;
+    }
+}
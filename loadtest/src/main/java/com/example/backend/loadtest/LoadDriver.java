@@ -0,0 +1,316 @@
+package com.example.backend.loadtest;
+
+import com.example.backend.util.VirtualThreads;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 并发虚拟用户：每个虚拟用户以随机选中的生成用户登录，然后按权重随机执行操作直到压测结束
+ * 请求是闭环的，一个请求返回后才发出下一个；预热期间的请求不计入结果
+ */
+class LoadDriver {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadDriver.class);
+
+    private static final int PAGE_SIZE = 50;
+    private static final int CONNECT_TIMEOUT_MILLIS = 10_000;
+    // 大用户的导出可能需要较长时间
+    private static final int READ_TIMEOUT_MILLIS = 300_000;
+    // 连接被服务端关闭时的最多尝试次数
+    private static final int MAX_ATTEMPTS = 2;
+    // 登录返回503后的最短等待时间，实际等待再加上同样长度以内的随机时间
+    private static final int LOGIN_RETRY_MILLIS = 1000;
+
+    private final String baseUrl;
+    private final GeneratedData data;
+    private final LoadTestOptions options;
+    private final LoadReport report = new LoadReport();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    private volatile long measureStartNanos;
+    private volatile long endNanos;
+
+    LoadDriver(String baseUrl, GeneratedData data, LoadTestOptions options) {
+        this.baseUrl = baseUrl;
+        this.data = data;
+        this.options = options;
+        Map<Operation, Integer> mix = options.getMix();
+        this.operations = mix.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            sum += mix.get(operations[i]);
+            cumulativeWeights[i] = sum;
+        }
+    }
+
+    LoadReport run() throws InterruptedException {
+        long start = System.nanoTime();
+        measureStartNanos = start + TimeUnit.SECONDS.toNanos(options.getWarmupSeconds());
+        endNanos = measureStartNanos + TimeUnit.SECONDS.toNanos(options.getDurationSeconds());
+        AtomicInteger failedUsers = new AtomicInteger();
+        // Java 21上客户端总是使用虚拟线程，上千个并发客户端不会先耗尽压测进程自身的线程
+        ThreadFactory platformThreads = r -> {
+            Thread thread = new Thread(r);
+            thread.setName("virtual-user-" + thread.getId());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(options.getVirtualUsers(),
+                VirtualThreads.factoryOr(VirtualThreads.isSupported(), "virtual-user", platformThreads));
+        for (int i = 0; i < options.getVirtualUsers(); i++) {
+            long seed = options.getSeed() * 31 + i;
+            pool.execute(() -> {
+                try {
+                    new VirtualUser(new Random(seed)).run();
+                } catch (RuntimeException e) {
+                    failedUsers.incrementAndGet();
+                    logger.error("虚拟用户异常退出", e);
+                }
+            });
+        }
+        logger.info("{}个虚拟用户已启动，预热{}秒，统计{}秒",
+                options.getVirtualUsers(), options.getWarmupSeconds(), options.getDurationSeconds());
+        pool.shutdown();
+        long waitSeconds = options.getWarmupSeconds() + options.getDurationSeconds()
+                + TimeUnit.MILLISECONDS.toSeconds(READ_TIMEOUT_MILLIS);
+        if (!pool.awaitTermination(waitSeconds, TimeUnit.SECONDS)) {
+            logger.warn("部分虚拟用户在压测结束后仍未返回");
+            pool.shutdownNow();
+        }
+        if (failedUsers.get() > 0) {
+            logger.warn("{}个虚拟用户异常退出", failedUsers.get());
+        }
+        report.setMeasuredSeconds(options.getDurationSeconds());
+        return report;
+    }
+
+    private Operation nextOperation(Random random) {
+        int r = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (r < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private final class VirtualUser {
+        private final Random random;
+        private final GeneratedData.User user;
+        private String token;
+
+        VirtualUser(Random random) {
+            this.random = random;
+            List<GeneratedData.User> users = data.getUsers();
+            this.user = users.get(random.nextInt(users.size()));
+        }
+
+        void run() {
+            login();
+            while (System.nanoTime() < endNanos) {
+                Operation operation = nextOperation(random);
+                if (operation == Operation.LOGIN) {
+                    login();
+                } else {
+                    execute(operation);
+                }
+                if (options.getThinkMillis() > 0) {
+                    try {
+                        Thread.sleep(options.getThinkMillis());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void login() {
+            Map<String, Object> body = new HashMap<>();
+            body.put("username", user.getUsername());
+            body.put("password", data.getPassword());
+            Response response = send(Operation.LOGIN, "POST", "/api/auth/login", body, true);
+            // 密码校验线程池繁忙时返回503，按Retry-After随机退避后重试，避免所有虚拟用户同时重试
+            while (response.status == 503 && System.nanoTime() < endNanos) {
+                try {
+                    Thread.sleep(LOGIN_RETRY_MILLIS + ThreadLocalRandom.current().nextInt(LOGIN_RETRY_MILLIS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                response = send(Operation.LOGIN, "POST", "/api/auth/login", body, true);
+            }
+            if (response.status == 200) {
+                try {
+                    JsonNode json = objectMapper.readTree(response.body);
+                    token = json.path("token").asText(null);
+                } catch (IOException e) {
+                    token = null;
+                }
+            }
+            // 压测结束时仍在退避重试的虚拟用户直接退出
+            if (token == null && response.status != 503) {
+                throw new IllegalStateException("用户" + user.getUsername() + "登录失败，状态码" + response.status);
+            }
+        }
+
+        private void execute(Operation operation) {
+            GeneratedData.Note note = user.getNotes().get(random.nextInt(user.getNotes().size()));
+            Response response;
+            switch (operation) {
+                case LIST:
+                    response = send(operation, "GET", "/api/notes?limit=" + PAGE_SIZE, null, false);
+                    break;
+                case SEARCH:
+                    String keyword = DataGenerator.WORDS[random.nextInt(DataGenerator.WORDS.length)];
+                    response = send(operation, "GET", "/api/notes/search?limit=" + PAGE_SIZE + "&keyword=" + encode(keyword),
+                            null, false);
+                    break;
+                case EDIT:
+                    // 整行更新需要提交全部字段，分类和状态保持不变，标题和正文换成新内容
+                    Map<String, Object> edit = new HashMap<>();
+                    edit.put("title", DataGenerator.text(random, 4 + random.nextInt(20)).replace('\n', ' '));
+                    edit.put("content", DataGenerator.text(random, 50 + random.nextInt(2000)));
+                    edit.put("color", "#ffffff");
+                    edit.put("categoryId", note.getCategoryId());
+                    edit.put("isPinned", note.isPinned());
+                    edit.put("isArchived", note.isArchived());
+                    response = send(operation, "PUT", "/api/notes/" + note.getNoteId(), edit, false);
+                    break;
+                case PIN:
+                    boolean pinned = !note.isPinned();
+                    Map<String, Object> pin = new HashMap<>();
+                    pin.put("isPinned", pinned);
+                    response = send(operation, "PUT", "/api/notes/" + note.getNoteId() + "/pin", pin, false);
+                    if (response.status == 200) {
+                        note.setPinned(pinned);
+                    }
+                    break;
+                case EXPORT:
+                    response = send(operation, "GET", "/api/export/notes/word", null, false);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知的操作: " + operation);
+            }
+            // 虚拟用户只访问自己的便签，401/403说明token已失效（未认证的请求由Spring Security返回403），重新登录
+            if (response.status == 401 || response.status == 403) {
+                login();
+            }
+        }
+
+        private Response send(Operation operation, String method, String path, Object body, boolean keepBody) {
+            long start = System.nanoTime();
+            Response response = new Response();
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    exchange(response, operation, method, path, body, keepBody);
+                    break;
+                } catch (IOException e) {
+                    // 复用的keep-alive连接可能刚被服务端关闭（Tomcat每个连接最多处理100个请求），
+                    // JDK只对GET自动重试，带请求体的请求在还没收到状态行时重发一次
+                    if (response.status == 0 && attempt < MAX_ATTEMPTS) {
+                        continue;
+                    }
+                    response.status = -1;
+                    logger.debug("{}请求失败", operation.getLabel(), e);
+                    break;
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            if (start >= measureStartNanos && start < endNanos) {
+                report.record(operation, elapsed, response.status, response.bytes);
+            }
+            return response;
+        }
+
+        private void exchange(Response response, Operation operation, String method, String path, Object body,
+                              boolean keepBody) throws IOException {
+            HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+            try {
+                connection.setRequestMethod(method);
+                connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+                connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+                if (token != null && operation != Operation.LOGIN) {
+                    connection.setRequestProperty("Authorization", "Bearer " + token);
+                }
+                if (body != null) {
+                    byte[] json = objectMapper.writeValueAsBytes(body);
+                    connection.setDoOutput(true);
+                    connection.setRequestProperty("Content-Type", "application/json");
+                    connection.setFixedLengthStreamingMode(json.length);
+                    try (OutputStream out = connection.getOutputStream()) {
+                        out.write(json);
+                    }
+                }
+                response.status = connection.getResponseCode();
+                InputStream in = response.status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+                response.readFully(in, keepBody);
+            } catch (IOException e) {
+                connection.disconnect();
+                throw e;
+            }
+        }
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 响应状态和大小；只有登录需要保留响应体，其余响应读完即丢弃，连接留给keep-alive复用
+     */
+    private static final class Response {
+        private int status;
+        private long bytes;
+        private byte[] body;
+
+        void readFully(InputStream in, boolean keepBody) throws IOException {
+            if (in == null) {
+                return;
+            }
+            try (InputStream input = in) {
+                ByteArrayOutputStream kept = keepBody ? new ByteArrayOutputStream() : null;
+                byte[] buffer = new byte[16 * 1024];
+                int n;
+                while ((n = input.read(buffer)) > 0) {
+                    bytes += n;
+                    if (kept != null) {
+                        kept.write(buffer, 0, n);
+                    }
+                }
+                if (kept != null) {
+                    body = kept.toByteArray();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.backend.loadtest;
+
+import com.example.backend.metrics.LatencyHistogram;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按接口汇总的压测结果：请求数、错误数（按状态码细分，-1表示连接失败）、吞吐量和延迟分位数
+ * 延迟使用与/api/metrics相同的LatencyHistogram记录，分位数的相对误差约为6%
+ */
+public class LoadReport {
+
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+    // 窗口覆盖整个压测过程，分位数统计全部样本
+    private static final int WINDOW_SECONDS = 24 * 60 * 60;
+
+    /**
+     * 单个接口的统计
+     */
+    private static final class Endpoint {
+        private final LatencyHistogram latency = new LatencyHistogram(WINDOW_SECONDS, 2);
+        private final LongAdder errors = new LongAdder();
+        private final ConcurrentMap<Integer, LongAdder> errorStatuses = new ConcurrentHashMap<>();
+        private final LongAdder bytes = new LongAdder();
+    }
+
+    private final Map<Operation, Endpoint> endpoints = new EnumMap<>(Operation.class);
+    private final Endpoint total = new Endpoint();
+    private volatile double measuredSeconds;
+
+    public LoadReport() {
+        for (Operation operation : Operation.values()) {
+            endpoints.put(operation, new Endpoint());
+        }
+    }
+
+    void record(Operation operation, long nanos, int status, long responseBytes) {
+        boolean success = status >= 200 && status < 400;
+        for (Endpoint endpoint : new Endpoint[]{endpoints.get(operation), total}) {
+            endpoint.latency.record(nanos);
+            endpoint.bytes.add(responseBytes);
+            if (!success) {
+                endpoint.errors.increment();
+                endpoint.errorStatuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+            }
+        }
+    }
+
+    void setMeasuredSeconds(double measuredSeconds) {
+        this.measuredSeconds = measuredSeconds;
+    }
+
+    public long getErrorCount() {
+        return total.errors.sum();
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%-30s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "接口", "请求数", "错误数", "吞吐量/s", "平均ms", "p50ms", "p95ms", "p99ms", "最大ms");
+        for (Map.Entry<Operation, Endpoint> entry : endpoints.entrySet()) {
+            if (entry.getValue().latency.getCount() > 0) {
+                printRow(out, entry.getKey().getLabel(), entry.getValue());
+            }
+        }
+        printRow(out, "合计", total);
+        for (Map.Entry<Operation, Endpoint> entry : endpoints.entrySet()) {
+            if (!entry.getValue().errorStatuses.isEmpty()) {
+                out.printf("%-30s 错误状态码 %s%n", entry.getKey().getLabel(), errorStatuses(entry.getValue()));
+            }
+        }
+    }
+
+    private void printRow(PrintStream out, String label, Endpoint endpoint) {
+        Map<String, Object> row = row(endpoint);
+        out.printf("%-30s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n", label,
+                row.get("requests"), row.get("errors"), row.get("throughput"), row.get("meanMillis"),
+                row.get("p50Millis"), row.get("p95Millis"), row.get("p99Millis"), row.get("maxMillis"));
+    }
+
+    /**
+     * 结果的JSON结构，写入--report指定的文件
+     */
+    public Map<String, Object> toMap() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map.Entry<Operation, Endpoint> entry : endpoints.entrySet()) {
+            if (entry.getValue().latency.getCount() > 0) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("operation", entry.getKey().getName());
+                row.put("endpoint", entry.getKey().getLabel());
+                row.putAll(row(entry.getValue()));
+                rows.add(row);
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("measuredSeconds", measuredSeconds);
+        result.put("endpoints", rows);
+        result.put("total", row(total));
+        return result;
+    }
+
+    private static Map<Integer, Long> errorStatuses(Endpoint endpoint) {
+        Map<Integer, Long> statuses = new TreeMap<>();
+        for (Map.Entry<Integer, LongAdder> entry : endpoint.errorStatuses.entrySet()) {
+            statuses.put(entry.getKey(), entry.getValue().sum());
+        }
+        return statuses;
+    }
+
+    private Map<String, Object> row(Endpoint endpoint) {
+        LatencyHistogram.Snapshot snapshot = endpoint.latency.snapshot();
+        long requests = endpoint.latency.getCount();
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("requests", requests);
+        row.put("errors", endpoint.errors.sum());
+        row.put("errorStatuses", errorStatuses(endpoint));
+        row.put("throughput", measuredSeconds > 0 ? requests / measuredSeconds : 0.0);
+        row.put("meanMillis", requests > 0 ? endpoint.latency.getSumNanos() / 1e6 / requests : 0.0);
+        for (double quantile : QUANTILES) {
+            row.put("p" + Math.round(quantile * 100) + "Millis", snapshot.valueAt(quantile) / 1e6);
+        }
+        row.put("maxMillis", snapshot.getMaxNanos() / 1e6);
+        row.put("responseBytes", endpoint.bytes.sum());
+        return row;
+    }
+}
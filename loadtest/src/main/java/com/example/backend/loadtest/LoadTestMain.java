@@ -0,0 +1,108 @@
+package com.example.backend.loadtest;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.search.NoteSearchIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 离线端到端压测：
+ * 1. 在内存中的H2（MySQL兼容模式）上执行createnote.sql并生成测试数据；
+ * 2. 以loadtest配置启动backend，连接同一个数据库，等待检索索引加载完成；
+ * 3. 并发虚拟用户按操作权重访问接口，输出每个接口的吞吐量和p50/p95/p99延迟
+ */
+public class LoadTestMain {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestMain.class);
+
+    // DB_CLOSE_DELAY=-1：生成数据的连接关闭后数据库仍保留，供backend的连接池使用
+    static final String JDBC_URL = "jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+            + "CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+    static final String JDBC_USER = "sa";
+
+    private static final long INDEX_READY_TIMEOUT_MINUTES = 5;
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadTestOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        GeneratedData data;
+        try (Connection connection = DriverManager.getConnection(JDBC_URL, JDBC_USER, "")) {
+            H2Schema.create(connection);
+            data = new DataGenerator(options).generate(connection);
+        }
+
+        Path workDir = Files.createTempDirectory("note-loadtest");
+        // 以命令行参数传入，优先级高于backend的application.properties
+        String[] springArgs = {
+                "--spring.datasource.url=" + JDBC_URL,
+                "--spring.datasource.username=" + JDBC_USER,
+                "--spring.datasource.password=",
+                "--server.port=" + options.getPort(),
+                "--note.search.index-dir=" + workDir.resolve("search-index"),
+                "--export.jobs.dir=" + workDir.resolve("exports"),
+                "--threads.virtual.enabled=" + options.isVirtualThreads()
+        };
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class, H2DatabaseIdConfig.class)
+                .profiles("loadtest")
+                .run(springArgs);
+        int exitCode = 0;
+        try {
+            waitForSearchIndex(context.getBean(NoteSearchIndex.class));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadReport report = new LoadDriver("http://localhost:" + port, data, options).run();
+
+            System.out.printf("%n用户%d个，便签%d个（大便签%d个，共%d字），虚拟用户%d个，统计%d秒，后端%s线程%n",
+                    data.getUsers().size(), options.getNotes(), data.getLargeNotes(), data.getTotalChars(),
+                    options.getVirtualUsers(), options.getDurationSeconds(), options.isVirtualThreads() ? "虚拟" : "平台");
+            report.print(System.out);
+            if (options.getReport() != null) {
+                Map<String, Object> json = new HashMap<>();
+                json.put("options", options);
+                json.put("result", report.toMap());
+                new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(options.getReport()), json);
+                logger.info("结果已写入{}", options.getReport());
+            }
+            if (report.getErrorCount() > 0) {
+                exitCode = 1;
+            }
+        } finally {
+            context.close();
+        }
+        System.exit(exitCode);
+    }
+
+    // 索引在应用就绪后由后台线程加载，未就绪时检索回退到SQL，会使检索延迟失真
+    private static void waitForSearchIndex(NoteSearchIndex index) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(INDEX_READY_TIMEOUT_MINUTES);
+        while (!index.isReady()) {
+            if (System.nanoTime() > deadline) {
+                logger.warn("检索索引{}分钟内未加载完成，检索将回退到SQL", INDEX_READY_TIMEOUT_MINUTES);
+                return;
+            }
+            Thread.sleep(200);
+        }
+        logger.info("检索索引已加载");
+    }
+}
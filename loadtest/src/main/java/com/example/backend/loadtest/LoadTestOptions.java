@@ -0,0 +1,198 @@
+package com.example.backend.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 压测参数，命令行按 --名称=值 传入，未传入的使用默认值
+ */
+public class LoadTestOptions {
+
+    public static final String USAGE = String.join("\n",
+            "用法: java -jar loadtest.jar [--名称=值 ...]",
+            "  --users=200                 生成的用户数",
+            "  --notes=20000               生成的便签总数，按Zipf分布分配给用户",
+            "  --skew=1.1                  Zipf指数，越大便签越集中在少数用户",
+            "  --large-note-ratio=0.002    大便签（LONGTEXT）所占比例",
+            "  --large-note-min-chars=100000",
+            "  --large-note-max-chars=1000000",
+            "  --virtual-users=50          并发虚拟用户数",
+            "  --warmup-seconds=10         预热时长，期间的请求不计入结果",
+            "  --duration-seconds=60       统计时长",
+            "  --think-millis=0            每个虚拟用户两次请求之间的等待时间",
+            "  --mix=login:2,list:35,search:25,edit:25,pin:10,export:3",
+            "                              各操作的权重",
+            "  --seed=42                   随机种子，相同参数生成相同的数据和请求序列",
+            "  --report=                   结果另存为JSON文件的路径",
+            "  --port=0                    后端监听端口，0表示随机端口",
+            "  --virtual-threads=false     后端以虚拟线程模式运行（threads.virtual.enabled，需要Java 21）");
+
+    private int users = 200;
+    private int notes = 20000;
+    private double skew = 1.1;
+    private double largeNoteRatio = 0.002;
+    private int largeNoteMinChars = 100_000;
+    private int largeNoteMaxChars = 1_000_000;
+    private int virtualUsers = 50;
+    private int warmupSeconds = 10;
+    private int durationSeconds = 60;
+    private int thinkMillis;
+    private Map<Operation, Integer> mix = parseMix("login:2,list:35,search:25,edit:25,pin:10,export:3");
+    private long seed = 42;
+    private String report;
+    private int port;
+    private boolean virtualThreads;
+
+    public static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("无法识别的参数: " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "users":
+                    options.users = positive(name, Integer.parseInt(value));
+                    break;
+                case "notes":
+                    options.notes = positive(name, Integer.parseInt(value));
+                    break;
+                case "skew":
+                    options.skew = Double.parseDouble(value);
+                    break;
+                case "large-note-ratio":
+                    options.largeNoteRatio = Double.parseDouble(value);
+                    break;
+                case "large-note-min-chars":
+                    options.largeNoteMinChars = positive(name, Integer.parseInt(value));
+                    break;
+                case "large-note-max-chars":
+                    options.largeNoteMaxChars = positive(name, Integer.parseInt(value));
+                    break;
+                case "virtual-users":
+                    options.virtualUsers = positive(name, Integer.parseInt(value));
+                    break;
+                case "warmup-seconds":
+                    options.warmupSeconds = Integer.parseInt(value);
+                    break;
+                case "duration-seconds":
+                    options.durationSeconds = positive(name, Integer.parseInt(value));
+                    break;
+                case "think-millis":
+                    options.thinkMillis = Integer.parseInt(value);
+                    break;
+                case "mix":
+                    options.mix = parseMix(value);
+                    break;
+                case "seed":
+                    options.seed = Long.parseLong(value);
+                    break;
+                case "report":
+                    options.report = value.isEmpty() ? null : value;
+                    break;
+                case "port":
+                    options.port = Integer.parseInt(value);
+                    break;
+                case "virtual-threads":
+                    options.virtualThreads = Boolean.parseBoolean(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("无法识别的参数: " + arg);
+            }
+        }
+        if (options.notes < options.users) {
+            throw new IllegalArgumentException("便签总数不能少于用户数");
+        }
+        if (options.largeNoteMaxChars < options.largeNoteMinChars) {
+            throw new IllegalArgumentException("large-note-max-chars不能小于large-note-min-chars");
+        }
+        return options;
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] pair = part.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("操作权重应为 操作:权重 格式: " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("操作权重不能为负数: " + part);
+            }
+            mix.put(Operation.of(pair[0].trim()), weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("至少一个操作的权重应大于0");
+        }
+        return mix;
+    }
+
+    private static int positive(String name, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + "必须大于0");
+        }
+        return value;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getNotes() {
+        return notes;
+    }
+
+    public double getSkew() {
+        return skew;
+    }
+
+    public double getLargeNoteRatio() {
+        return largeNoteRatio;
+    }
+
+    public int getLargeNoteMinChars() {
+        return largeNoteMinChars;
+    }
+
+    public int getLargeNoteMaxChars() {
+        return largeNoteMaxChars;
+    }
+
+    public int getVirtualUsers() {
+        return virtualUsers;
+    }
+
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getThinkMillis() {
+        return thinkMillis;
+    }
+
+    public Map<Operation, Integer> getMix() {
+        return mix;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public String getReport() {
+        return report;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+}
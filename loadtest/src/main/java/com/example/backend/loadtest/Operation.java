@@ -0,0 +1,38 @@
+package com.example.backend.loadtest;
+
+/**
+ * 虚拟用户执行的操作，label是结果报告中的接口名称
+ */
+public enum Operation {
+    LOGIN("login", "POST /api/auth/login"),
+    LIST("list", "GET /api/notes"),
+    SEARCH("search", "GET /api/notes/search"),
+    EDIT("edit", "PUT /api/notes/{id}"),
+    PIN("pin", "PUT /api/notes/{id}/pin"),
+    EXPORT("export", "GET /api/export/notes/word");
+
+    private final String name;
+    private final String label;
+
+    Operation(String name, String label) {
+        this.name = name;
+        this.label = label;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public static Operation of(String name) {
+        for (Operation operation : values()) {
+            if (operation.name.equals(name)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("未知的操作: " + name);
+    }
+}